@@ -0,0 +1,262 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.dynatrace.metric.util.Dimension;
+import com.dynatrace.metric.util.DimensionList;
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.SummaryPointData;
+import io.opentelemetry.sdk.metrics.internal.data.*;
+import io.opentelemetry.sdk.resources.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the metric data the benchmarks run on. All data is created with a fixed seed, so every
+ * run of a benchmark sees the same values.
+ */
+final class BenchmarkData {
+  static final Resource RESOURCE = Resource.getDefault();
+  static final InstrumentationScopeInfo SCOPE = InstrumentationScopeInfo.create("benchmarks");
+
+  private static final String SHORT_NAME = "requests";
+  private static final String LONG_NAME =
+      "com.example.service.frontend.http.server.requests.duration.by.route.and.status";
+
+  static final long START_NANOS = TimeUnit.MILLISECONDS.toNanos(1_640_991_600_000L);
+  static final long END_NANOS = START_NANOS + TimeUnit.SECONDS.toNanos(60);
+
+  private BenchmarkData() {}
+
+  /** Like the exporter sets up its serializer, with a prefix and default dimensions. */
+  static Serializer serializer(boolean fastSerialization) {
+    return Serializer.builder(
+            MetricBuilderFactory.builder()
+                .withPrefix("otel")
+                .withDefaultDimensions(
+                    DimensionList.create(
+                        Dimension.create("dt.metrics.source", "opentelemetry"),
+                        Dimension.create("environment", "production")))
+                .build())
+        .setFastPath(fastSerialization)
+        .build();
+  }
+
+  static String metricName(boolean longKeys, int index) {
+    return (longKeys ? LONG_NAME : SHORT_NAME) + "." + index;
+  }
+
+  /**
+   * Creates one attribute set per series, with the given number of string attributes. Values are
+   * spread like typical resource and route attributes: a few that are shared by all series and
+   * some that differ between them.
+   */
+  static List<Attributes> attributes(int series, int dimensions) {
+    List<Attributes> result = new ArrayList<>(series);
+    for (int i = 0; i < series; i++) {
+      AttributesBuilder builder = Attributes.builder();
+      for (int d = 0; d < dimensions; d++) {
+        String value = d % 2 == 0 ? "value-" + d : "value-" + d + "-" + (i % (10 * (d + 1)));
+        builder.put("dimension.key." + d, value);
+      }
+      result.add(builder.build());
+    }
+    return result;
+  }
+
+  static List<LongPointData> longPoints(List<Attributes> attributes, int points, Random random) {
+    List<LongPointData> result = new ArrayList<>(points);
+    for (int i = 0; i < points; i++) {
+      result.add(
+          ImmutableLongPointData.create(
+              START_NANOS,
+              END_NANOS,
+              attributes.get(i % attributes.size()),
+              random.nextInt(10_000)));
+    }
+    return result;
+  }
+
+  static List<DoublePointData> doublePoints(
+      List<Attributes> attributes, int points, Random random) {
+    List<DoublePointData> result = new ArrayList<>(points);
+    for (int i = 0; i < points; i++) {
+      result.add(
+          ImmutableDoublePointData.create(
+              START_NANOS,
+              END_NANOS,
+              attributes.get(i % attributes.size()),
+              random.nextDouble() * 1000));
+    }
+    return result;
+  }
+
+  static List<SummaryPointData> summaryPoints(
+      List<Attributes> attributes, int points, Random random) {
+    List<SummaryPointData> result = new ArrayList<>(points);
+    for (int i = 0; i < points; i++) {
+      double min = random.nextDouble() * 10;
+      double max = min + random.nextDouble() * 1000;
+      result.add(
+          ImmutableSummaryPointData.create(
+              START_NANOS,
+              END_NANOS,
+              attributes.get(i % attributes.size()),
+              100,
+              (min + max) * 50,
+              Arrays.asList(
+                  ImmutableValueAtQuantile.create(0.0, min),
+                  ImmutableValueAtQuantile.create(100.0, max))));
+    }
+    return result;
+  }
+
+  static List<HistogramPointData> histogramPoints(
+      List<Attributes> attributes, int points, int buckets, boolean withMinMax, Random random) {
+    List<HistogramPointData> result = new ArrayList<>(points);
+    List<Double> boundaries = boundaries(buckets);
+    for (int i = 0; i < points; i++) {
+      List<Long> counts = counts(buckets, random);
+      long count = counts.stream().mapToLong(Long::longValue).sum();
+      double sum = count * random.nextDouble() * 100;
+      result.add(
+          ImmutableHistogramPointData.create(
+              START_NANOS,
+              END_NANOS,
+              attributes.get(i % attributes.size()),
+              sum,
+              withMinMax,
+              withMinMax ? random.nextDouble() : 0,
+              withMinMax,
+              withMinMax ? 100 + random.nextDouble() : 0,
+              boundaries,
+              counts));
+    }
+    return result;
+  }
+
+  /** Exponentially growing boundaries, like the default latency buckets, for buckets - 1 bounds. */
+  static List<Double> boundaries(int buckets) {
+    List<Double> boundaries = new ArrayList<>(buckets - 1);
+    double bound = 0.5;
+    for (int i = 0; i < buckets - 1; i++) {
+      boundaries.add(bound);
+      bound *= 1.25;
+    }
+    return Collections.unmodifiableList(boundaries);
+  }
+
+  /** Counts where only the buckets in the middle third are populated, like most latencies are. */
+  static List<Long> counts(int buckets, Random random) {
+    List<Long> counts = new ArrayList<>(buckets);
+    for (int i = 0; i < buckets; i++) {
+      boolean populated = buckets < 3 || (i >= buckets / 3 && i < 2 * buckets / 3);
+      counts.add(populated ? (long) random.nextInt(100) : 0L);
+    }
+    return Collections.unmodifiableList(counts);
+  }
+
+  static MetricData longSum(String name, List<LongPointData> points, boolean monotonic) {
+    return ImmutableMetricData.createLongSum(
+        RESOURCE,
+        SCOPE,
+        name,
+        "",
+        "1",
+        ImmutableSumData.create(monotonic, AggregationTemporality.DELTA, points));
+  }
+
+  static MetricData longGauge(String name, List<LongPointData> points) {
+    return ImmutableMetricData.createLongGauge(
+        RESOURCE, SCOPE, name, "", "1", ImmutableGaugeData.create(points));
+  }
+
+  static MetricData doubleSum(String name, List<DoublePointData> points, boolean monotonic) {
+    return ImmutableMetricData.createDoubleSum(
+        RESOURCE,
+        SCOPE,
+        name,
+        "",
+        "1",
+        ImmutableSumData.create(monotonic, AggregationTemporality.DELTA, points));
+  }
+
+  static MetricData doubleGauge(String name, List<DoublePointData> points) {
+    return ImmutableMetricData.createDoubleGauge(
+        RESOURCE, SCOPE, name, "", "1", ImmutableGaugeData.create(points));
+  }
+
+  static MetricData summary(String name, List<SummaryPointData> points) {
+    return ImmutableMetricData.createDoubleSummary(
+        RESOURCE, SCOPE, name, "", "ms", ImmutableSummaryData.create(points));
+  }
+
+  static MetricData histogram(String name, List<HistogramPointData> points) {
+    return ImmutableMetricData.createDoubleHistogram(
+        RESOURCE,
+        SCOPE,
+        name,
+        "",
+        "ms",
+        ImmutableHistogramData.create(AggregationTemporality.DELTA, points));
+  }
+
+  /**
+   * A batch like a collection cycle produces it: many metrics of all kinds, with 100 series each,
+   * for a total of the given number of points.
+   */
+  static List<MetricData> batch(int totalPoints, int dimensions, boolean longKeys) {
+    Random random = new Random(42);
+    int pointsPerMetric = Math.min(100, totalPoints);
+    List<Attributes> attributes = attributes(pointsPerMetric, dimensions);
+    List<MetricData> metrics = new ArrayList<>();
+    for (int i = 0; metrics.size() * pointsPerMetric < totalPoints; i++) {
+      String name = metricName(longKeys, i);
+      switch (i % 6) {
+        case 0:
+          metrics.add(longSum(name, longPoints(attributes, pointsPerMetric, random), true));
+          break;
+        case 1:
+          metrics.add(longGauge(name, longPoints(attributes, pointsPerMetric, random)));
+          break;
+        case 2:
+          metrics.add(doubleSum(name, doublePoints(attributes, pointsPerMetric, random), false));
+          break;
+        case 3:
+          metrics.add(doubleGauge(name, doublePoints(attributes, pointsPerMetric, random)));
+          break;
+        case 4:
+          metrics.add(summary(name, summaryPoints(attributes, pointsPerMetric, random)));
+          break;
+        default:
+          metrics.add(
+              histogram(name, histogramPoints(attributes, pointsPerMetric, 16, true, random)));
+      }
+    }
+    return metrics;
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Consumes lines without keeping them, so only the cost of creating them is measured. */
+final class BlackholeSink implements MetricLineSink {
+  private final Blackhole blackhole;
+
+  BlackholeSink(Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  @Override
+  public void accept(String line) {
+    blackhole.consume(line);
+  }
+
+  @Override
+  public void accept(byte[] line, int offset, int length) {
+    blackhole.consume(line);
+    blackhole.consume(length);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link DynatraceMetricExporter#doExport} end to end, from {@link MetricData} to the
+ * response of the server. The server is an in-process stub that reads the request body and
+ * responds like the Dynatrace API does for accepted lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ExportBenchmark {
+  private static final byte[] RESPONSE =
+      "{\"linesOk\":1000,\"linesInvalid\":0,\"error\":null}".getBytes(StandardCharsets.UTF_8);
+
+  @Param({"1000", "100000"})
+  int points;
+
+  @Param({"5"})
+  int dimensions;
+
+  @Param({"false", "true"})
+  boolean gzipCompression;
+
+  @Param({"false", "true"})
+  boolean fastSerialization;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private DynatraceMetricExporter exporter;
+  private List<MetricData> batch;
+
+  @Setup
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/api/v2/metrics/ingest",
+        exchange -> {
+          drain(exchange.getRequestBody());
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(202, RESPONSE.length);
+          try (OutputStream body = exchange.getResponseBody()) {
+            body.write(RESPONSE);
+          }
+        });
+    serverExecutor = Executors.newFixedThreadPool(4);
+    server.setExecutor(serverExecutor);
+    server.start();
+
+    exporter =
+        DynatraceMetricExporter.builder()
+            .setUrl(
+                String.format(
+                    "http://localhost:%d/api/v2/metrics/ingest", server.getAddress().getPort()))
+            .setApiToken("benchmark")
+            .setGzipCompression(gzipCompression)
+            .setFastSerialization(fastSerialization)
+            .build();
+    batch = BenchmarkData.batch(points, dimensions, false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    exporter.shutdown().join(10, TimeUnit.SECONDS);
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public boolean doExport() {
+    CompletableResultCode result = exporter.doExport(batch);
+    return result.join(1, TimeUnit.MINUTES).isSuccess();
+  }
+
+  private static void drain(InputStream body) throws IOException {
+    byte[] buffer = new byte[8192];
+    while (body.read(buffer) != -1) {
+      // discard, the content of the request is not checked.
+    }
+  }
+}
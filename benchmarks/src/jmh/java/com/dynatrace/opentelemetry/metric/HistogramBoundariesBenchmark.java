@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the estimation of min and max from the bucket boundaries of histograms without
+ * recorded min and max, for increasingly wide histograms. {@code legacyMinAndMax} is the former
+ * implementation, which searched the buckets once for each estimate, as a baseline for {@code
+ * minAndMax}. The difference is largest for empty histograms, e.g. of idle series with delta
+ * temporality, whose buckets were read twice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HistogramBoundariesBenchmark {
+
+  @Param({"16", "160", "1600"})
+  int buckets;
+
+  /** Whether all buckets are empty, or only the buckets in the middle third are populated. */
+  @Param({"false", "true"})
+  boolean empty;
+
+  private HistogramPointData point;
+
+  @Setup
+  public void setUp() {
+    if (empty) {
+      point =
+          ImmutableHistogramPointData.create(
+              BenchmarkData.START_NANOS,
+              BenchmarkData.END_NANOS,
+              Attributes.empty(),
+              0,
+              false,
+              0,
+              false,
+              0,
+              BenchmarkData.boundaries(buckets),
+              Collections.nCopies(buckets, 0L));
+      return;
+    }
+    List<Attributes> attributes = Collections.singletonList(Attributes.empty());
+    point = BenchmarkData.histogramPoints(attributes, 1, buckets, false, new Random(42)).get(0);
+  }
+
+  @Benchmark
+  public double minFromBoundaries() {
+    return Serializer.getMinFromBoundaries(point);
+  }
+
+  @Benchmark
+  public double maxFromBoundaries() {
+    return Serializer.getMaxFromBoundaries(point);
+  }
+
+  @Benchmark
+  public void minAndMax(Blackhole blackhole) {
+    List<Long> counts = point.getCounts();
+    int first = Serializer.firstNonEmptyBucket(counts);
+    blackhole.consume(Serializer.estimateMin(point, first));
+    blackhole.consume(Serializer.estimateMax(point, Serializer.lastNonEmptyBucket(counts, first)));
+  }
+
+  @Benchmark
+  public void legacyMinAndMax(Blackhole blackhole) {
+    blackhole.consume(legacyMin(point));
+    blackhole.consume(legacyMax(point));
+  }
+
+  private static double legacyMin(HistogramPointData pointData) {
+    if (pointData.getCounts().size() == 1) {
+      if (pointData.getCounts().get(0) > 0) {
+        return pointData.getSum() / pointData.getCount();
+      }
+      return pointData.getSum();
+    }
+    for (int i = 0; i < pointData.getCounts().size(); i++) {
+      if (pointData.getCounts().get(i) > 0) {
+        if (i == 0) {
+          return Math.min(
+              pointData.getBoundaries().get(i), pointData.getSum() / pointData.getCount());
+        }
+        return pointData.getBoundaries().get(i - 1);
+      }
+    }
+    return pointData.getSum();
+  }
+
+  private static double legacyMax(HistogramPointData pointData) {
+    if (pointData.getCounts().size() == 1) {
+      if (pointData.getCounts().get(0) > 0) {
+        return pointData.getSum() / pointData.getCount();
+      }
+      return pointData.getSum();
+    }
+    int lastElemIdx = pointData.getCounts().size() - 1;
+    for (int i = lastElemIdx; i >= 0; i--) {
+      if (pointData.getCounts().get(i) > 0) {
+        if (i == lastElemIdx) {
+          return Math.max(
+              pointData.getBoundaries().get(i - 1), pointData.getSum() / pointData.getCount());
+        }
+        return pointData.getBoundaries().get(i);
+      }
+    }
+    return pointData.getSum();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link DynatraceMetricExporter#serializeToMetricLines} for batches like a collection
+ * cycle produces them, with metrics of all kinds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class SerializeBatchBenchmark {
+
+  @Param({"1000", "100000"})
+  int points;
+
+  @Param({"0", "5", "20"})
+  int dimensions;
+
+  @Param({"false", "true"})
+  boolean longKeys;
+
+  @Param({"false", "true"})
+  boolean fastSerialization;
+
+  private DynatraceMetricExporter exporter;
+  private List<MetricData> batch;
+
+  @Setup
+  public void setUp() {
+    // serializeToMetricLines does not send anything, so the sender is never called.
+    exporter =
+        new DynatraceMetricExporter(
+            (body, length, contentEncoding) -> {
+              throw new UnsupportedOperationException();
+            },
+            BenchmarkData.serializer(fastSerialization));
+    batch = BenchmarkData.batch(points, dimensions, longKeys);
+  }
+
+  @TearDown
+  public void tearDown() {
+    exporter.shutdown();
+  }
+
+  @Benchmark
+  public List<String> serializeToMetricLines() {
+    return exporter.serializeToMetricLines(batch);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@code create*Lines} methods of the {@link Serializer} for a single metric. Every
+ * operation serializes all points of the metric.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SerializerBenchmark {
+
+  @Param({"1000", "100000"})
+  int points;
+
+  @Param({"0", "5", "20"})
+  int dimensions;
+
+  @Param({"false", "true"})
+  boolean longKeys;
+
+  @Param({"false", "true"})
+  boolean fastSerialization;
+
+  private Serializer serializer;
+  private MetricData longSum;
+  private MetricData nonMonotonicLongSum;
+  private MetricData longGauge;
+  private MetricData doubleSum;
+  private MetricData nonMonotonicDoubleSum;
+  private MetricData doubleGauge;
+  private MetricData summary;
+  private MetricData histogram;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    // a realistic number of series per metric, which is what the dimension cache is sized for.
+    List<Attributes> attributes = BenchmarkData.attributes(Math.min(points, 1000), dimensions);
+    List<LongPointData> longPoints = BenchmarkData.longPoints(attributes, points, random);
+    List<DoublePointData> doublePoints = BenchmarkData.doublePoints(attributes, points, random);
+    String name = BenchmarkData.metricName(longKeys, 0);
+
+    serializer = BenchmarkData.serializer(fastSerialization);
+    longSum = BenchmarkData.longSum(name, longPoints, true);
+    nonMonotonicLongSum = BenchmarkData.longSum(name, longPoints, false);
+    longGauge = BenchmarkData.longGauge(name, longPoints);
+    doubleSum = BenchmarkData.doubleSum(name, doublePoints, true);
+    nonMonotonicDoubleSum = BenchmarkData.doubleSum(name, doublePoints, false);
+    doubleGauge = BenchmarkData.doubleGauge(name, doublePoints);
+    summary = BenchmarkData.summary(name, BenchmarkData.summaryPoints(attributes, points, random));
+    histogram =
+        BenchmarkData.histogram(
+            name, BenchmarkData.histogramPoints(attributes, points, 16, true, random));
+  }
+
+  @Benchmark
+  public void longSumLines(Blackhole blackhole) {
+    serializer.createLongSumLines(longSum, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void nonMonotonicLongSumLines(Blackhole blackhole) {
+    serializer.createLongSumLines(nonMonotonicLongSum, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void longGaugeLines(Blackhole blackhole) {
+    serializer.createLongGaugeLines(longGauge, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void doubleSumLines(Blackhole blackhole) {
+    serializer.createDoubleSumLines(doubleSum, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void nonMonotonicDoubleSumLines(Blackhole blackhole) {
+    serializer.createDoubleSumLines(nonMonotonicDoubleSum, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void doubleGaugeLines(Blackhole blackhole) {
+    serializer.createDoubleGaugeLines(doubleGauge, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void doubleSummaryLines(Blackhole blackhole) {
+    serializer.createDoubleSummaryLines(summary, new BlackholeSink(blackhole));
+  }
+
+  @Benchmark
+  public void doubleHistogramLines(Blackhole blackhole) {
+    serializer.createDoubleHistogramLines(histogram, new BlackholeSink(blackhole));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.primitives.Ints;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import java.util.Collection;
+
+/**
+ * Reads exponential histograms with the data types of OpenTelemetry SDK 1.23+. Loaded through
+ * {@link ExponentialHistogramSupport#load()} only.
+ */
+final class SdkExponentialHistogramSupport implements ExponentialHistogramSupport {
+  @Override
+  public Collection<? extends PointData> getPoints(MetricData metric) {
+    return metric.getData().getPoints();
+  }
+
+  @Override
+  public double getMin(PointData point) {
+    ExponentialHistogramPointData pointData = (ExponentialHistogramPointData) point;
+    return pointData.hasMin() ? pointData.getMin() : estimateMin(pointData);
+  }
+
+  @Override
+  public double getMax(PointData point) {
+    ExponentialHistogramPointData pointData = (ExponentialHistogramPointData) point;
+    return pointData.hasMax() ? pointData.getMax() : estimateMax(pointData);
+  }
+
+  @Override
+  public double getSum(PointData point) {
+    return ((ExponentialHistogramPointData) point).getSum();
+  }
+
+  @Override
+  public long getCount(PointData point) {
+    return ((ExponentialHistogramPointData) point).getCount();
+  }
+
+  /**
+   * Estimates the min of an exponential histogram without recorded min from the lowest non-empty
+   * bucket: the lower bound of the highest negative bucket, the zero bucket, or the lower bound of
+   * the lowest positive bucket, in that order.
+   */
+  static double estimateMin(ExponentialHistogramPointData pointData) {
+    long count = pointData.getCount();
+    if (count == 0) {
+      // see Serializer#estimateMin: let the backend decide what to do with a count of 0.
+      return pointData.getSum();
+    }
+    double mean = pointData.getSum() / count;
+    int scale = pointData.getScale();
+    ExponentialHistogramBuckets negative = pointData.getNegativeBuckets();
+    if (negative.getTotalCount() > 0) {
+      // negative bucket i holds [-base^(offset + i + 1), -base^(offset + i)). The total count is
+      // > 0, so searching backwards down to bucket 0 always finds a non-empty bucket.
+      int last = Serializer.lastNonEmptyBucket(negative.getBucketCounts(), 0);
+      return Math.min(-exponentialBound(scale, (long) negative.getOffset() + last + 1), mean);
+    }
+    if (pointData.getZeroCount() > 0) {
+      return Math.min(0.0, mean);
+    }
+    ExponentialHistogramBuckets positive = pointData.getPositiveBuckets();
+    int first = Serializer.firstNonEmptyBucket(positive.getBucketCounts());
+    if (first < 0) {
+      return mean;
+    }
+    // positive bucket i holds (base^(offset + i), base^(offset + i + 1)].
+    return Math.min(exponentialBound(scale, (long) positive.getOffset() + first), mean);
+  }
+
+  /**
+   * Estimates the max of an exponential histogram without recorded max, see {@link #estimateMin}
+   * for the mirrored method that is annotated.
+   */
+  static double estimateMax(ExponentialHistogramPointData pointData) {
+    long count = pointData.getCount();
+    if (count == 0) {
+      return pointData.getSum();
+    }
+    double mean = pointData.getSum() / count;
+    int scale = pointData.getScale();
+    ExponentialHistogramBuckets positive = pointData.getPositiveBuckets();
+    if (positive.getTotalCount() > 0) {
+      int last = Serializer.lastNonEmptyBucket(positive.getBucketCounts(), 0);
+      return Math.max(exponentialBound(scale, (long) positive.getOffset() + last + 1), mean);
+    }
+    if (pointData.getZeroCount() > 0) {
+      return Math.max(0.0, mean);
+    }
+    ExponentialHistogramBuckets negative = pointData.getNegativeBuckets();
+    int first = Serializer.firstNonEmptyBucket(negative.getBucketCounts());
+    if (first < 0) {
+      return mean;
+    }
+    return Math.max(-exponentialBound(scale, (long) negative.getOffset() + first), mean);
+  }
+
+  /**
+   * The boundary {@code base^index} of an exponential histogram with {@code base =
+   * 2^(2^-scale)}, i.e. {@code 2^(index / 2^scale)}. For scales <= 0 the boundary is a power of
+   * two and exact. For positive scales, only the fractional part of the exponent needs {@link
+   * Math#pow}, the integral part is applied with {@link Math#scalb}.
+   */
+  static double exponentialBound(int scale, long index) {
+    if (scale <= 0) {
+      return Math.scalb(1.0, Ints.saturatedCast(index << -scale));
+    }
+    long exponent = index >> scale;
+    long fraction = index & ((1L << scale) - 1);
+    return Math.scalb(
+        Math.pow(2.0, fraction / (double) (1L << scale)), Ints.saturatedCast(exponent));
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Limits the number of series the {@link Serializer} creates lines for, per metric key. The first
+ * series of a metric are admitted up to its budget, points of any further series are dropped. The
+ * budgets start over after a fixed time, so that metrics recover after the cause of the extra
+ * series, like an attribute with unique values, has been fixed.
+ *
+ * <p>The admitted series of a metric are kept as {@link SeriesFingerprint}s in a hash set of
+ * primitives, which grows with the number of series up to the budget. The number of metrics that
+ * are tracked is limited as well, metrics beyond that are not limited.
+ */
+final class CardinalityLimiter {
+  private static final Logger logger = Logger.getLogger(CardinalityLimiter.class.getName());
+
+  private static final int INITIAL_BUDGET_CAPACITY = 16;
+
+  private final int maxSeriesPerMetric;
+  private final Cache<String, SeriesBudget> budgets;
+  private final LongAdder limitedPoints = new LongAdder();
+
+  /**
+   * @param maxSeriesPerMetric the number of series admitted per metric key.
+   * @param window the time after which the budget of a metric starts over.
+   * @param maxMetrics the number of metric keys that are tracked.
+   */
+  CardinalityLimiter(int maxSeriesPerMetric, Duration window, int maxMetrics) {
+    this.maxSeriesPerMetric = maxSeriesPerMetric;
+    this.budgets =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxMetrics)
+            .expireAfterWrite(window.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+  }
+
+  /** Returns the budget of the metric, which is looked up once per metric instead of per point. */
+  SeriesBudget getBudget(String metricKey) {
+    return budgets.asMap().computeIfAbsent(metricKey, SeriesBudget::new);
+  }
+
+  /** The number of points that were dropped because their series exceeded the budget. */
+  long getLimitedPoints() {
+    return limitedPoints.sum();
+  }
+
+  private static void insert(long[] fingerprints, long fingerprint) {
+    int mask = fingerprints.length - 1;
+    int slot = (int) fingerprint & mask;
+    while (fingerprints[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    fingerprints[slot] = fingerprint;
+  }
+
+  /** The series admitted for a single metric key, an open addressing set with linear probing. */
+  final class SeriesBudget {
+    private final String metricKey;
+    private long[] fingerprints = new long[INITIAL_BUDGET_CAPACITY];
+    private int size;
+    private long limited;
+
+    private SeriesBudget(String metricKey) {
+      this.metricKey = metricKey;
+    }
+
+    /**
+     * Whether the point of the series may be exported. The series is admitted if it already was
+     * admitted before, or if the budget has room for another series.
+     *
+     * @param fingerprint see {@link SeriesFingerprint}.
+     */
+    synchronized boolean admit(long fingerprint) {
+      int mask = fingerprints.length - 1;
+      int slot = (int) fingerprint & mask;
+      while (fingerprints[slot] != 0) {
+        if (fingerprints[slot] == fingerprint) {
+          return true;
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (size >= maxSeriesPerMetric) {
+        if (limited++ == 0) {
+          logger.warning(
+              () ->
+                  String.format(
+                      "Metric %s exceeds the limit of %d series, points of further series are"
+                          + " dropped.",
+                      metricKey, maxSeriesPerMetric));
+        }
+        limitedPoints.increment();
+        return false;
+      }
+      if (2 * (size + 1) > fingerprints.length) {
+        // slots are only filled up to half of the capacity, to keep probe sequences short.
+        long[] old = fingerprints;
+        fingerprints = new long[old.length * 2];
+        for (long admitted : old) {
+          if (admitted != 0) {
+            insert(fingerprints, admitted);
+          }
+        }
+      }
+      insert(fingerprints, fingerprint);
+      size++;
+      return true;
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+      return size;
+    }
+
+    @VisibleForTesting
+    synchronized long getLimitedPoints() {
+      return limited;
+    }
+  }
+}
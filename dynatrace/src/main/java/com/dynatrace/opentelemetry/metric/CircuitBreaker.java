@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.dynatrace.opentelemetry.metric.CircuitBreakerPolicy.State;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decides whether requests are sent to the endpoint, based on the outcome of the most recent
+ * requests, see {@link CircuitBreakerPolicy}. The outcomes are kept in a ring buffer, which holds
+ * the last requests of the window together with the number of failed and slow ones among them.
+ *
+ * <p>Every request that was permitted by {@link #tryAcquire()} has to be completed by {@link
+ * #onResult}, as probe requests are counted while the breaker is half-open. A permit carries the
+ * generation of the state it was taken in, which changes with every state change, so late results
+ * of requests that were sent in an earlier state are ignored.
+ */
+final class CircuitBreaker {
+  private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+  /** Returned by {@link #tryAcquire()} if the request must not be sent. */
+  static final long NO_PERMIT = -1;
+
+  private final CircuitBreakerPolicy policy;
+  private final long slowRequestNanos;
+  private final long openNanos;
+  private final LongSupplier nanoTime;
+
+  private final boolean[] failed;
+  private final boolean[] slow;
+  // the next slot of the ring buffer and the number of requests in it.
+  private int next;
+  private int requests;
+  private int failedRequests;
+  private int slowRequests;
+
+  private State state = State.CLOSED;
+  // incremented with every state change.
+  private long generation;
+  private long openedNanos;
+  // only used while half-open.
+  private int probesLeft;
+  private int probesSucceeded;
+
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder[] transitions = new LongAdder[State.values().length];
+
+  CircuitBreaker(CircuitBreakerPolicy policy) {
+    this(policy, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  CircuitBreaker(CircuitBreakerPolicy policy, LongSupplier nanoTime) {
+    this.policy = policy;
+    this.slowRequestNanos = policy.getSlowRequestDuration().toNanos();
+    this.openNanos = policy.getOpenDuration().toNanos();
+    this.nanoTime = nanoTime;
+    this.failed = new boolean[policy.getWindowSize()];
+    this.slow = new boolean[policy.getWindowSize()];
+    for (int i = 0; i < transitions.length; i++) {
+      transitions[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Whether a request may be sent. Moves an open breaker to half-open once the open duration has
+   * passed, and counts the request as rejected if it may not be sent.
+   *
+   * @return the permit to pass to {@link #onResult}, or {@link #NO_PERMIT} if the request must not
+   *     be sent.
+   */
+  long tryAcquire() {
+    State from;
+    long permit;
+    synchronized (this) {
+      from = state;
+      if (state == State.CLOSED) {
+        return generation;
+      }
+      if (state == State.OPEN) {
+        if (nanoTime.getAsLong() - openedNanos < openNanos) {
+          rejected.increment();
+          return NO_PERMIT;
+        }
+        state = State.HALF_OPEN;
+        generation++;
+        probesLeft = policy.getProbeRequests();
+        probesSucceeded = 0;
+      }
+      if (probesLeft == 0) {
+        rejected.increment();
+        return NO_PERMIT;
+      }
+      probesLeft--;
+      permit = generation;
+    }
+    if (from == State.OPEN) {
+      onStateChange(from, State.HALF_OPEN);
+    }
+    return permit;
+  }
+
+  /**
+   * Whether an export can fail without being serialized, as none of its requests would be sent.
+   * Counts the export as rejected if so.
+   */
+  boolean rejectsExport() {
+    synchronized (this) {
+      if (state != State.OPEN || nanoTime.getAsLong() - openedNanos >= openNanos) {
+        return false;
+      }
+    }
+    rejected.increment();
+    return true;
+  }
+
+  /**
+   * Records the outcome of a request that was sent. Results of requests whose permit was taken
+   * before the last state change are ignored.
+   *
+   * @param permit the permit returned by {@link #tryAcquire()} for the request.
+   * @param requestFailed whether the request got no response or a server error.
+   * @param nanos how long the request took.
+   */
+  void onResult(long permit, boolean requestFailed, long nanos) {
+    boolean requestSlow = nanos >= slowRequestNanos;
+    State from;
+    State to;
+    synchronized (this) {
+      from = state;
+      if (permit != generation) {
+        return;
+      }
+      if (state == State.CLOSED) {
+        record(requestFailed, requestSlow);
+        if (requests >= policy.getMinimumRequests()
+            && (failedRequests >= policy.getFailureRateThreshold() * requests
+                || slowRequests >= policy.getSlowRequestRateThreshold() * requests)) {
+          open();
+        }
+      } else if (state == State.HALF_OPEN) {
+        if (requestFailed || requestSlow) {
+          open();
+        } else if (++probesSucceeded >= policy.getProbeRequests()) {
+          close();
+        }
+      }
+      to = state;
+    }
+    if (from != to) {
+      onStateChange(from, to);
+    }
+  }
+
+  private void record(boolean requestFailed, boolean requestSlow) {
+    if (requests == failed.length) {
+      // the oldest request drops out of the window.
+      failedRequests -= failed[next] ? 1 : 0;
+      slowRequests -= slow[next] ? 1 : 0;
+    } else {
+      requests++;
+    }
+    failed[next] = requestFailed;
+    slow[next] = requestSlow;
+    failedRequests += requestFailed ? 1 : 0;
+    slowRequests += requestSlow ? 1 : 0;
+    next = (next + 1) % failed.length;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    generation++;
+    openedNanos = nanoTime.getAsLong();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    generation++;
+    next = 0;
+    requests = 0;
+    failedRequests = 0;
+    slowRequests = 0;
+  }
+
+  private void onStateChange(State from, State to) {
+    transitions[to.ordinal()].increment();
+    if (to == State.OPEN) {
+      logger.warning(
+          () ->
+              String.format(
+                  "The circuit breaker opened, requests are not sent for %d ms.",
+                  policy.getOpenDuration().toMillis()));
+    } else if (to == State.CLOSED) {
+      logger.info("The circuit breaker closed, requests are sent again.");
+    } else {
+      logger.fine("The circuit breaker is half-open, sending probe requests.");
+    }
+    CircuitBreakerPolicy.StateListener listener = policy.getStateListener();
+    if (listener != null) {
+      try {
+        listener.onStateChange(from, to);
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Error in circuit breaker state listener", e);
+      }
+    }
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+
+  /** The number of requests and exports that were rejected because the breaker was open. */
+  long getRejected() {
+    return rejected.sum();
+  }
+
+  /** The number of times the breaker changed into the given state. */
+  long getTransitions(State to) {
+    return transitions[to.ordinal()].sum();
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+
+/**
+ * Configures the circuit breaker of the {@link DynatraceMetricExporter}, which stops sending
+ * requests while the endpoint seems to be down, so that exports do not wait for connect and read
+ * timeouts every interval.
+ *
+ * <p>The breaker starts {@link State#CLOSED closed} and keeps track of the outcome of the most
+ * recent requests. A request fails if it gets no response or a response with a status code of 500
+ * or above, and it is slow if it takes longer than the slow request duration. Once the share of
+ * failed or of slow requests reaches its threshold, the breaker {@link State#OPEN opens}. While it
+ * is open, requests fail right away. After the open duration, the breaker is {@link
+ * State#HALF_OPEN half-open} and lets a few probe requests through. If all of them succeed in time,
+ * the breaker closes again, otherwise it opens for another open duration.
+ */
+public final class CircuitBreakerPolicy {
+  private static final CircuitBreakerPolicy DEFAULT = builder().build();
+
+  /** The states of the circuit breaker. */
+  public enum State {
+    /** Requests are sent. */
+    CLOSED,
+    /** Requests fail without being sent. */
+    OPEN,
+    /** A limited number of probe requests is sent to find out if the endpoint is back. */
+    HALF_OPEN
+  }
+
+  /** Is notified whenever the circuit breaker changes its state. */
+  @FunctionalInterface
+  public interface StateListener {
+    /**
+     * Called on the thread that caused the change, which is usually a thread sending requests, so
+     * it should return quickly.
+     */
+    void onStateChange(State from, State to);
+  }
+
+  private final double failureRateThreshold;
+  private final double slowRequestRateThreshold;
+  private final Duration slowRequestDuration;
+  private final int windowSize;
+  private final int minimumRequests;
+  private final Duration openDuration;
+  private final int probeRequests;
+  private final StateListener stateListener;
+
+  private CircuitBreakerPolicy(Builder builder) {
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowRequestRateThreshold = builder.slowRequestRateThreshold;
+    this.slowRequestDuration = builder.slowRequestDuration;
+    this.windowSize = builder.windowSize;
+    this.minimumRequests = builder.minimumRequests;
+    this.openDuration = builder.openDuration;
+    this.probeRequests = builder.probeRequests;
+    this.stateListener = builder.stateListener;
+  }
+
+  /**
+   * Returns a policy that opens once half of the last 20 requests failed or all of them took longer
+   * than 10 seconds, but not before 10 requests were made. It stays open for 30 seconds and then
+   * sends a single probe request.
+   */
+  public static CircuitBreakerPolicy getDefault() {
+    return DEFAULT;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public double getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public double getSlowRequestRateThreshold() {
+    return slowRequestRateThreshold;
+  }
+
+  public Duration getSlowRequestDuration() {
+    return slowRequestDuration;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public int getMinimumRequests() {
+    return minimumRequests;
+  }
+
+  public Duration getOpenDuration() {
+    return openDuration;
+  }
+
+  public int getProbeRequests() {
+    return probeRequests;
+  }
+
+  /** Returns the listener for state changes, or null if there is none. */
+  public StateListener getStateListener() {
+    return stateListener;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "CircuitBreakerPolicy{failureRateThreshold=%s, slowRequestRateThreshold=%s,"
+            + " slowRequestDuration=%s, windowSize=%d, minimumRequests=%d, openDuration=%s,"
+            + " probeRequests=%d}",
+        failureRateThreshold,
+        slowRequestRateThreshold,
+        slowRequestDuration,
+        windowSize,
+        minimumRequests,
+        openDuration,
+        probeRequests);
+  }
+
+  public static final class Builder {
+    private double failureRateThreshold = 0.5;
+    private double slowRequestRateThreshold = 1.0;
+    private Duration slowRequestDuration = Duration.ofSeconds(10);
+    private int windowSize = 20;
+    private int minimumRequests = 10;
+    private Duration openDuration = Duration.ofSeconds(30);
+    private int probeRequests = 1;
+    private StateListener stateListener;
+
+    private Builder() {}
+
+    /** Sets the share of failed requests, between 0 and 1, at which the breaker opens. */
+    public Builder setFailureRateThreshold(double failureRateThreshold) {
+      Preconditions.checkArgument(
+          failureRateThreshold > 0 && failureRateThreshold <= 1,
+          "failureRateThreshold must be greater than 0 and at most 1");
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    /** Sets the share of slow requests, between 0 and 1, at which the breaker opens. */
+    public Builder setSlowRequestRateThreshold(double slowRequestRateThreshold) {
+      Preconditions.checkArgument(
+          slowRequestRateThreshold > 0 && slowRequestRateThreshold <= 1,
+          "slowRequestRateThreshold must be greater than 0 and at most 1");
+      this.slowRequestRateThreshold = slowRequestRateThreshold;
+      return this;
+    }
+
+    /** Sets the duration after which a request counts as slow, whether it succeeded or not. */
+    public Builder setSlowRequestDuration(Duration slowRequestDuration) {
+      Preconditions.checkArgument(
+          !slowRequestDuration.isNegative() && !slowRequestDuration.isZero(),
+          "slowRequestDuration must be positive");
+      this.slowRequestDuration = slowRequestDuration;
+      return this;
+    }
+
+    /** Sets the number of most recent requests the rates are calculated over. */
+    public Builder setWindowSize(int windowSize) {
+      Preconditions.checkArgument(windowSize > 0, "windowSize must be greater than zero");
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    /**
+     * Sets the number of requests that have to be made before the breaker can open, so that a
+     * single failed request does not open it.
+     */
+    public Builder setMinimumRequests(int minimumRequests) {
+      Preconditions.checkArgument(minimumRequests > 0, "minimumRequests must be greater than zero");
+      this.minimumRequests = minimumRequests;
+      return this;
+    }
+
+    /** Sets how long the breaker stays open before probe requests are sent. */
+    public Builder setOpenDuration(Duration openDuration) {
+      Preconditions.checkArgument(
+          !openDuration.isNegative() && !openDuration.isZero(), "openDuration must be positive");
+      this.openDuration = openDuration;
+      return this;
+    }
+
+    /** Sets the number of probe requests that have to succeed before the breaker closes. */
+    public Builder setProbeRequests(int probeRequests) {
+      Preconditions.checkArgument(probeRequests > 0, "probeRequests must be greater than zero");
+      this.probeRequests = probeRequests;
+      return this;
+    }
+
+    /** Sets a listener that is notified whenever the breaker changes its state. */
+    public Builder setStateListener(StateListener stateListener) {
+      this.stateListener = stateListener;
+      return this;
+    }
+
+    public CircuitBreakerPolicy build() {
+      Preconditions.checkArgument(
+          minimumRequests <= windowSize, "minimumRequests must not be greater than windowSize");
+      return new CircuitBreakerPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends partitions on a pool of upload threads, with at most {@code maxConcurrentRequests} requests
+ * in flight across all exports. Once the limit is reached, handing off another partition blocks
+ * until a request has finished, which also bounds the number of partitions held in memory.
+ */
+final class ConcurrentPartitionSender {
+  private static final Logger logger = Logger.getLogger(ConcurrentPartitionSender.class.getName());
+
+  @FunctionalInterface
+  interface PartitionSender {
+    /** Sends the partition and returns true if it was accepted by the server. */
+    boolean send(byte[] body, int length, int lineCount);
+  }
+
+  private final Semaphore permits;
+  private final ExecutorService executor;
+
+  ConcurrentPartitionSender(int maxConcurrentRequests) {
+    this.permits = new Semaphore(maxConcurrentRequests);
+    this.executor =
+        Executors.newFixedThreadPool(
+            maxConcurrentRequests,
+            new ThreadFactoryBuilder()
+                .setNameFormat("dynatrace-metric-upload-%d")
+                .setDaemon(true)
+                .build());
+  }
+
+  /**
+   * Starts a new upload that sends all partitions of one export with the given sender, on the
+   * upload threads, and collects their results.
+   */
+  Upload newUpload(PartitionSender sender) {
+    return new Upload(sender);
+  }
+
+  /** Stops the upload threads, interrupting requests that are still in flight. */
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  final class Upload implements PartitionSender {
+    private final PartitionSender sender;
+    private final List<CompletableResultCode> results = new ArrayList<>();
+    private volatile boolean failed = false;
+
+    private Upload(PartitionSender sender) {
+      this.sender = sender;
+    }
+
+    @Override
+    public boolean send(byte[] body, int length, int lineCount) {
+      if (failed) {
+        return false;
+      }
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failed = true;
+        return false;
+      }
+
+      // the caller reuses its buffer for the next partition as soon as this method returns.
+      byte[] copy = Arrays.copyOf(body, length);
+      CompletableResultCode result = new CompletableResultCode();
+      results.add(result);
+      try {
+        executor.execute(
+            () -> {
+              try {
+                if (sender.send(copy, copy.length, lineCount)) {
+                  result.succeed();
+                } else {
+                  failed = true;
+                  result.fail();
+                }
+              } catch (RuntimeException e) {
+                // the result has to complete, otherwise flush and shutdown wait for it in vain.
+                logger.log(Level.WARNING, "Error while sending metrics", e);
+                failed = true;
+                result.fail();
+              } finally {
+                permits.release();
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        logger.warning("Could not send metrics, the exporter has been shut down.");
+        permits.release();
+        failed = true;
+        result.fail();
+      }
+      return !failed;
+    }
+
+    /** A result that completes once all partitions handed to this upload have been sent. */
+    CompletableResultCode result() {
+      return CompletableResultCode.ofAll(results);
+    }
+  }
+}
@@ -19,11 +19,12 @@ import com.dynatrace.metric.util.DimensionList;
 import com.dynatrace.metric.util.DynatraceMetricApiConstants;
 import com.dynatrace.metric.util.MetricBuilderFactory;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
 import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.MeterProvider;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.metrics.InstrumentType;
 import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
@@ -32,74 +33,287 @@ import io.opentelemetry.sdk.metrics.export.MetricExporter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 
 /** Export metrics to Dynatrace. */
 public final class DynatraceMetricExporter implements MetricExporter {
-  private final URL url;
-  private final String apiToken;
+  private final HttpSender httpSender;
   private final Serializer serializer;
+  // only set if partitions should be sent concurrently.
+  private final ConcurrentPartitionSender concurrentSender;
+  // only set if exports should run asynchronously.
+  private final ExecutorService exportExecutor;
+  // only set if the network phase of exports is delayed by a per-instance offset.
+  private final ScheduledThreadPoolExecutor jitterScheduler;
+  private final long jitterNanos;
+  // only set if large exports should be serialized on several threads.
+  private final ExecutorService serializationExecutor;
+  private final int serializationThreads;
+  private final int parallelSerializationMinPoints;
+  private final Set<CompletableResultCode> pendingExports = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+  private final boolean gzipCompression;
+  private final int maxPayloadBytes;
+  private final RetryPolicy retryPolicy;
+  // only set if requests are rate limited.
+  private final IngestRateLimiter rateLimiter;
+  // only set if requests stop while the endpoint seems to be down.
+  private final CircuitBreaker circuitBreaker;
+  private final PartitionSpool spool;
+  private final PartitionQueue queue;
+  private final ExecutorService queueSenders;
+  // only set if there is a spool, replays it without delaying the exports that trigger replays.
+  private final ExecutorService spoolReplayer;
+  private final AtomicBoolean replayingSpool = new AtomicBoolean(false);
+  // only set if the exporter reports metrics about itself.
+  private final SelfMetrics selfMetrics;
+  // compressors are expensive to create, so they are reused across exports.
+  private final Queue<GzipCompressor> idleCompressors = new ConcurrentLinkedQueue<>();
 
   private static final Logger logger = Logger.getLogger(DynatraceMetricExporter.class.getName());
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
   private static final List<Dimension> staticDimensions =
       Collections.singletonList(Dimension.create("dt.metrics.source", "opentelemetry"));
 
-  private static final Pattern EXTRACT_LINES_OK = Pattern.compile("\"linesOk\":\\s?(\\d+)");
-  private static final Pattern EXTRACT_LINES_INVALID =
-      Pattern.compile("\"linesInvalid\":\\s?(\\d+)");
-  private static final Pattern RETURNED_ERROR_FIELD_IS_NULL = Pattern.compile("\"error\":\\s?null");
+  // the number of spooled partitions sent after each successful export, which limits how much
+  // replaying delays the export of new metrics.
+  private static final int SPOOL_REPLAY_PARTITIONS = 10;
+  private static final int REJECTED_SERIES_MAX_SIZE = 10_000;
+  private static final int UNCHANGED_GAUGES_MAX_SERIES = 100_000;
+  private static final int CARDINALITY_LIMITED_METRICS_MAX = 10_000;
+  // requests that would have to wait longer for the rate limit fail instead.
+  private static final long RATE_LIMIT_MAX_WAIT_SECONDS = 30;
+  private static final int SERIALIZATION_CHUNKS_PER_THREAD = 4;
 
-  private DynatraceMetricExporter(
-      URL url,
-      String apiToken,
-      String prefix,
-      Attributes defaultDimensions,
-      boolean enrichWithOneAgentMetaData) {
-    this(url, apiToken, prepareSerializer(prefix, defaultDimensions, enrichWithOneAgentMetaData));
+  /** The outcome of sending a single partition. */
+  private enum SendOutcome {
+    SENT,
+    /** The request failed, but might succeed later. */
+    FAILED_TRANSIENT,
+    FAILED
   }
 
-  private static Serializer prepareSerializer(
-      String prefix, Attributes defaultDimensions, boolean enrichWithOneAgentMetaData) {
-    MetricBuilderFactory.MetricBuilderFactoryBuilder builder = MetricBuilderFactory.builder();
+  /** A serialized, and compressed if enabled, partition that is not sent yet. */
+  private static final class BufferedPartition {
+    final byte[] body;
+    final int lineCount;
 
-    if (!Strings.isNullOrEmpty(prefix)) {
-      builder = builder.withPrefix(prefix);
+    BufferedPartition(byte[] body, int lineCount) {
+      this.body = body;
+      this.lineCount = lineCount;
+    }
+  }
+
+  private DynatraceMetricExporter(Builder builder) {
+    this(
+        builder,
+        builder.httpSender != null
+            ? builder.httpSender
+            : new HttpUrlConnectionSender(builder.url, builder.apiToken),
+        prepareSerializer(builder));
+  }
+
+  private static Serializer prepareSerializer(Builder builder) {
+    MetricBuilderFactory.MetricBuilderFactoryBuilder factory = MetricBuilderFactory.builder();
+
+    if (!Strings.isNullOrEmpty(builder.prefix)) {
+      factory = factory.withPrefix(builder.prefix);
     }
 
-    if (enrichWithOneAgentMetaData) {
-      builder = builder.withDynatraceMetadata();
+    if (builder.enrichWithOneAgentMetaData) {
+      factory = factory.withDynatraceMetadata();
     }
 
     List<Dimension> dimensions;
-    if (defaultDimensions != null) {
-      dimensions = Serializer.toListOfDimensions(defaultDimensions);
+    if (builder.defaultDimensions != null) {
+      dimensions = Serializer.toListOfDimensions(builder.defaultDimensions);
     } else {
       dimensions = new ArrayList<>();
     }
 
     dimensions.addAll(staticDimensions);
-    builder.withDefaultDimensions(DimensionList.fromCollection(dimensions));
-    return new Serializer(builder.build());
+    factory.withDefaultDimensions(DimensionList.fromCollection(dimensions));
+    Serializer.Builder serializer =
+        Serializer.builder(factory.build())
+            .setFastPath(builder.fastSerialization)
+            .setMetricFilter(builder.buildMetricFilter());
+    if (!builder.rejectedSeriesExpiry.isZero()) {
+      serializer.setRejectedSeries(
+          new RejectedSeriesCache(REJECTED_SERIES_MAX_SIZE, builder.rejectedSeriesExpiry));
+    }
+    if (!builder.maxGaugeSuppression.isZero()) {
+      serializer.setUnchangedGauges(
+          new UnchangedGaugeFilter(builder.maxGaugeSuppression, UNCHANGED_GAUGES_MAX_SERIES));
+    }
+    if (builder.maxSeriesPerMetric > 0) {
+      serializer.setCardinalityLimiter(
+          new CardinalityLimiter(
+              builder.maxSeriesPerMetric,
+              builder.cardinalityWindow,
+              CARDINALITY_LIMITED_METRICS_MAX));
+    }
+    return serializer.build();
   }
 
   @VisibleForTesting
   DynatraceMetricExporter(URL url, String apiToken, Serializer serializer) {
-    this.url = url;
-    this.apiToken = apiToken;
+    this(new HttpUrlConnectionSender(url, apiToken), serializer);
+  }
+
+  @VisibleForTesting
+  DynatraceMetricExporter(HttpSender httpSender, Serializer serializer) {
+    this(new Builder(), httpSender, serializer);
+  }
+
+  private DynatraceMetricExporter(Builder builder, HttpSender httpSender, Serializer serializer) {
+    this.httpSender = httpSender;
     this.serializer = serializer;
+    this.gzipCompression = builder.gzipCompression;
+    this.maxPayloadBytes = builder.maxPayloadBytes;
+    this.retryPolicy = builder.retryPolicy;
+    this.rateLimiter =
+        builder.maxRequestsPerSecond > 0
+                || builder.maxLinesPerSecond > 0
+                || builder.adaptiveRateLimit
+            ? new IngestRateLimiter(
+                builder.maxRequestsPerSecond,
+                builder.maxLinesPerSecond,
+                builder.adaptiveRateLimit,
+                TimeUnit.SECONDS.toNanos(RATE_LIMIT_MAX_WAIT_SECONDS))
+            : null;
+    this.circuitBreaker =
+        builder.circuitBreakerPolicy != null
+            ? new CircuitBreaker(builder.circuitBreakerPolicy)
+            : null;
+    this.spool = openSpool(builder);
+    this.spoolReplayer =
+        spool != null
+            ? Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                    .setNameFormat("dynatrace-metric-replay-%d")
+                    .setDaemon(true)
+                    .build())
+            : null;
+    if (builder.queueMaxBytes > 0) {
+      // the queue has sender threads of its own, which also limit the requests in flight.
+      this.queue =
+          new PartitionQueue(
+              builder.queueMaxBytes,
+              builder.queueMaxLines,
+              builder.queueOverflowPolicy,
+              builder.queueBlockTimeout.toMillis());
+      this.queueSenders =
+          Executors.newFixedThreadPool(
+              builder.maxConcurrentRequests,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("dynatrace-metric-send-%d")
+                  .setDaemon(true)
+                  .build());
+      for (int i = 0; i < builder.maxConcurrentRequests; i++) {
+        queueSenders.execute(this::drainQueue);
+      }
+      this.concurrentSender = null;
+    } else {
+      this.queue = null;
+      this.queueSenders = null;
+      this.concurrentSender =
+          builder.maxConcurrentRequests > 1
+              ? new ConcurrentPartitionSender(builder.maxConcurrentRequests)
+              : null;
+    }
+    if (builder.meterProvider != null) {
+      this.selfMetrics = new SelfMetrics();
+      CardinalityLimiter cardinalityLimiter = serializer.getCardinalityLimiter();
+      selfMetrics.register(
+          builder.meterProvider,
+          queue != null ? queue::stats : null,
+          cardinalityLimiter != null ? cardinalityLimiter::getLimitedPoints : null,
+          circuitBreaker);
+    } else {
+      this.selfMetrics = null;
+    }
+    this.serializationThreads = builder.serializationThreads;
+    this.parallelSerializationMinPoints = builder.parallelSerializationMinPoints;
+    if (builder.serializationThreads > 1) {
+      this.serializationExecutor =
+          Executors.newFixedThreadPool(
+              builder.serializationThreads,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("dynatrace-metric-serialize-%d")
+                  .setDaemon(true)
+                  .build());
+    } else {
+      this.serializationExecutor = null;
+    }
+    this.jitterNanos =
+        ExportJitter.offsetNanos(
+            ExportJitter.instanceId(builder.url, builder.prefix, builder.defaultDimensions),
+            builder.exportJitter);
+    if (jitterNanos > 0) {
+      this.jitterScheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("dynatrace-metric-jitter-%d")
+                  .setDaemon(true)
+                  .build());
+    } else {
+      this.jitterScheduler = null;
+    }
+    if (builder.asyncExport) {
+      this.exportExecutor =
+          Executors.newSingleThreadExecutor(
+              new ThreadFactoryBuilder()
+                  .setNameFormat("dynatrace-metric-export-%d")
+                  .setDaemon(true)
+                  .build());
+    } else {
+      this.exportExecutor = null;
+    }
+  }
+
+  private static PartitionSpool openSpool(Builder builder) {
+    if (builder.spoolDirectory == null) {
+      return null;
+    }
+    try {
+      return PartitionSpool.open(
+          builder.spoolDirectory, builder.spoolMaxBytes, builder.spoolMaxAge);
+    } catch (IOException e) {
+      logger.log(
+          Level.WARNING,
+          "Could not open the spool in " + builder.spoolDirectory + ", exporting without it",
+          e);
+      return null;
+    }
   }
 
   public static Builder builder() {
@@ -122,126 +336,742 @@ public final class DynatraceMetricExporter implements MetricExporter {
   /**
    * Called by IntervalMetricReader with every collection interval. Could also be called manually.
    *
+   * <p>If asynchronous export is enabled, the metrics are serialized and sent on an exporter-owned
+   * thread, and the returned result is completed once that is done.
+   *
    * @param metrics is the MetricData collected by all Metric Instruments.
    * @return ResultCode.FAILURE if exporting was not successful, ResultCode.SUCCESS otherwise.
    */
   @Override
   public CompletableResultCode export(@Nonnull Collection<MetricData> metrics) {
-    HttpURLConnection connection;
-    try {
-      connection = (HttpURLConnection) url.openConnection();
-    } catch (Exception e) {
-      logger.log(Level.WARNING, "Error while exporting", e);
+    if (isShutdown.get()) {
+      logger.warning("The exporter has been shut down, metrics are not exported.");
       return CompletableResultCode.ofFailure();
     }
+    if (exportExecutor == null) {
+      return track(doExport(metrics));
+    }
+
+    CompletableResultCode result = track(new CompletableResultCode());
+    try {
+      exportExecutor.execute(
+          () -> {
+            CompletableResultCode exportResult;
+            try {
+              exportResult = doExport(metrics);
+            } catch (RuntimeException e) {
+              logger.log(Level.WARNING, "Error while exporting", e);
+              exportResult = CompletableResultCode.ofFailure();
+            }
+            CompletableResultCode finalExportResult = exportResult;
+            finalExportResult.whenComplete(
+                () -> {
+                  if (finalExportResult.isSuccess()) {
+                    result.succeed();
+                  } else {
+                    result.fail();
+                  }
+                });
+          });
+    } catch (RejectedExecutionException e) {
+      logger.warning("The exporter has been shut down, metrics are not exported.");
+      result.fail();
+    }
+    return result;
+  }
 
-    return doExport(metrics, connection);
+  /** Keeps track of results that are not complete yet, so flush and shutdown can wait for them. */
+  private CompletableResultCode track(CompletableResultCode result) {
+    if (!result.isDone()) {
+      pendingExports.add(result);
+      result.whenComplete(() -> pendingExports.remove(result));
+    }
+    return result;
   }
 
   @VisibleForTesting
   List<String> serializeToMetricLines(Collection<MetricData> metrics) {
     ArrayList<String> metricLines = new ArrayList<>();
     for (MetricData metric : metrics) {
-      switch (metric.getType()) {
-        case LONG_GAUGE:
-          metricLines.addAll(serializer.createLongGaugeLines(metric));
-          break;
-        case LONG_SUM:
-          metricLines.addAll(serializer.createLongSumLines(metric));
-          break;
-        case DOUBLE_GAUGE:
-          metricLines.addAll(serializer.createDoubleGaugeLines(metric));
-          break;
-        case DOUBLE_SUM:
-          metricLines.addAll(serializer.createDoubleSumLines(metric));
-          break;
-        case SUMMARY:
-          metricLines.addAll(serializer.createDoubleSummaryLines(metric));
-          break;
-        case HISTOGRAM:
-          metricLines.addAll(serializer.createDoubleHistogramLines(metric));
-          break;
-        default:
-          logger.warning(
-              () ->
-                  String.format(
-                      "Tried to serialize metric of type %s. The Dynatrace metrics exporter does not handle metrics of that type at this time.",
-                      metric.getType().toString()));
-          break;
-      }
+      serializeToMetricLines(metric, metricLines::add);
     }
 
     return metricLines;
   }
 
+  private void serializeToMetricLines(MetricData metric, MetricLineSink sink) {
+    switch (metric.getType()) {
+      case LONG_GAUGE:
+        serializer.createLongGaugeLines(metric, sink);
+        break;
+      case LONG_SUM:
+        serializer.createLongSumLines(metric, sink);
+        break;
+      case DOUBLE_GAUGE:
+        serializer.createDoubleGaugeLines(metric, sink);
+        break;
+      case DOUBLE_SUM:
+        serializer.createDoubleSumLines(metric, sink);
+        break;
+      case SUMMARY:
+        serializer.createDoubleSummaryLines(metric, sink);
+        break;
+      case HISTOGRAM:
+        serializer.createDoubleHistogramLines(metric, sink);
+        break;
+      case EXPONENTIAL_HISTOGRAM:
+        serializer.createExponentialHistogramLines(metric, sink);
+        break;
+      default:
+        logger.warning(
+            () ->
+                String.format(
+                    "Tried to serialize metric of type %s. The Dynatrace metrics exporter does not handle metrics of that type at this time.",
+                    metric.getType().toString()));
+        break;
+    }
+  }
+
   @VisibleForTesting
-  CompletableResultCode doExport(Collection<MetricData> metrics, HttpURLConnection connection) {
-    List<String> metricLines = serializeToMetricLines(metrics);
-    for (List<String> partition :
-        Lists.partition(metricLines, DynatraceMetricApiConstants.getPayloadLinesLimit())) {
-      CompletableResultCode resultCode;
-      String joinedMetricLines = Joiner.on('\n').join(partition);
-
-      logger.finer(() -> String.format("Exporting metrics:%n%s", joinedMetricLines));
-      try {
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Accept", "*/*; q=0");
-        if (this.apiToken != null) {
-          connection.setRequestProperty("Authorization", "Api-Token " + apiToken);
+  CompletableResultCode doExport(Collection<MetricData> metrics) {
+    if (spool == null && circuitBreaker != null && circuitBreaker.rejectsExport()) {
+      // without a spool, serializing the metrics would be wasted, as they could not be sent.
+      logger.fine("The circuit breaker is open, metrics are not exported.");
+      return CompletableResultCode.ofFailure();
+    }
+    UnchangedGaugeFilter unchangedGauges = serializer.getUnchangedGauges();
+    UnchangedGaugeFilter.RememberedPoints rememberedGauges =
+        unchangedGauges != null ? new UnchangedGaugeFilter.RememberedPoints() : null;
+    CompletableResultCode result =
+        jitterScheduler != null
+            ? exportAfterJitter(metrics, rememberedGauges)
+            : sendExport(
+                partitionSender -> serializeAndHandOff(metrics, partitionSender, rememberedGauges));
+    if (rememberedGauges != null) {
+      // the values are remembered while serializing, so the next export must not skip them if
+      // this one failed, no matter whether a partition was rejected, dropped or not sent at all.
+      result.whenComplete(
+          () -> {
+            if (!result.isSuccess()) {
+              unchangedGauges.forget(rememberedGauges);
+            }
+          });
+    }
+    return result;
+  }
+
+  /**
+   * Serializes the metrics right away, but keeps the partitions in memory and only sends them once
+   * the jitter offset of this instance has passed.
+   */
+  private CompletableResultCode exportAfterJitter(
+      Collection<MetricData> metrics, UnchangedGaugeFilter.RememberedPoints rememberedGauges) {
+    List<BufferedPartition> partitions = new ArrayList<>();
+    boolean serialized =
+        serializeAndHandOff(
+            metrics,
+            (body, length, lineCount) ->
+                partitions.add(new BufferedPartition(Arrays.copyOf(body, length), lineCount)),
+            rememberedGauges);
+    if (!serialized) {
+      return CompletableResultCode.ofFailure();
+    }
+    if (partitions.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    CompletableResultCode result = new CompletableResultCode();
+    Runnable send =
+        () -> {
+          CompletableResultCode sent =
+              sendExport(
+                  partitionSender -> {
+                    for (BufferedPartition partition : partitions) {
+                      if (!partitionSender.send(
+                          partition.body, partition.body.length, partition.lineCount)) {
+                        return false;
+                      }
+                    }
+                    return true;
+                  });
+          sent.whenComplete(
+              () -> {
+                if (sent.isSuccess()) {
+                  result.succeed();
+                } else {
+                  result.fail();
+                }
+              });
+        };
+    try {
+      jitterScheduler.schedule(send, jitterNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // the exporter is shutting down, so the partitions are sent without delay.
+      send.run();
+    }
+    return result;
+  }
+
+  /**
+   * Hands the partitions of an export to the queue, or sends them sequentially or concurrently.
+   *
+   * @param handOff hands all partitions of the export to the given sender, and returns false if
+   *     any of them could not be handed off.
+   */
+  private CompletableResultCode sendExport(
+      Predicate<ConcurrentPartitionSender.PartitionSender> handOff) {
+    if (queue != null) {
+      return enqueue(handOff);
+    }
+    // the time budget for retries starts now and covers all partitions of this export.
+    ExportRetry retry = retryPolicy != null ? new ExportRetry(retryPolicy) : null;
+    AtomicBoolean spooled = new AtomicBoolean();
+    ConcurrentPartitionSender.PartitionSender sender =
+        spool != null
+            ? (body, length, lineCount) -> sendOrSpool(body, length, lineCount, retry, spooled)
+            : (body, length, lineCount) ->
+                sendPartition(body, length, lineCount, gzipCompression, retry, false)
+                    == SendOutcome.SENT;
+    ConcurrentPartitionSender.Upload upload =
+        concurrentSender != null ? concurrentSender.newUpload(sender) : null;
+    ConcurrentPartitionSender.PartitionSender partitionSender = upload != null ? upload : sender;
+
+    if (!handOff.test(partitionSender)) {
+      // requests that are already in flight are allowed to finish, but the export failed.
+      return CompletableResultCode.ofFailure();
+    }
+    CompletableResultCode result =
+        upload != null ? upload.result() : CompletableResultCode.ofSuccess();
+    return spool != null ? replaySpoolAfter(result, spooled) : result;
+  }
+
+  /**
+   * Hands the partitions of an export to the queue, from where they are sent by the queue sender
+   * threads. The result completes once all partitions of the export were sent or dropped.
+   */
+  private CompletableResultCode enqueue(
+      Predicate<ConcurrentPartitionSender.PartitionSender> handOff) {
+    List<CompletableResultCode> results = new ArrayList<>();
+    boolean handedOff =
+        handOff.test(
+            (body, length, lineCount) -> {
+              CompletableResultCode result = new CompletableResultCode();
+              results.add(result);
+              try {
+                // a dropped partition fails its result, the remaining ones might still fit.
+                queue.offer(
+                    new PartitionQueue.Entry(Arrays.copyOf(body, length), lineCount, result));
+                return true;
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.fail();
+                return false;
+              }
+            });
+    if (!handedOff) {
+      return CompletableResultCode.ofFailure();
+    }
+    return results.isEmpty()
+        ? CompletableResultCode.ofSuccess()
+        : CompletableResultCode.ofAll(results);
+  }
+
+  /** Runs on each queue sender thread until the queue is closed. */
+  private void drainQueue() {
+    try {
+      PartitionQueue.Entry entry;
+      while ((entry = queue.take()) != null) {
+        // queued partitions are sent independently, so each gets the whole retry budget.
+        ExportRetry retry = retryPolicy != null ? new ExportRetry(retryPolicy) : null;
+        SendOutcome outcome =
+            sendPartition(
+                entry.body, entry.body.length, entry.lineCount, gzipCompression, retry, false);
+        if (outcome == SendOutcome.FAILED_TRANSIENT && spool != null) {
+          spool.append(entry.body, entry.body.length, entry.lineCount, gzipCompression);
         }
-        connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
-        connection.setRequestProperty("User-Agent", "opentelemetry-metric-java");
-        connection.setDoOutput(true);
-        try (final OutputStream outputStream = connection.getOutputStream()) {
-          outputStream.write(joinedMetricLines.getBytes(StandardCharsets.UTF_8));
+        queue.completed(entry, outcome == SendOutcome.SENT);
+        if (outcome == SendOutcome.SENT && spool != null && queue.isEmpty()) {
+          scheduleSpoolReplay();
         }
-        int code = connection.getResponseCode();
-        if (code < 400) {
-          String response =
-              CharStreams.toString(
-                  new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
-          resultCode = handleSuccess(code, metricLines.size(), response);
-        } else {
-          if (logger.isLoggable(Level.WARNING)) {
-            logExportingError(connection.getErrorStream(), code);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Serializes the metrics and hands every partition, compressed if enabled, to the sender.
+   *
+   * @param rememberedGauges collects the points whose values the {@link UnchangedGaugeFilter}
+   *     remembered, or null if the filter is disabled.
+   * @return false if any partition could not be handed off.
+   */
+  private boolean serializeAndHandOff(
+      Collection<MetricData> metrics,
+      ConcurrentPartitionSender.PartitionSender partitionSender,
+      UnchangedGaugeFilter.RememberedPoints rememberedGauges) {
+    GzipCompressor compressor = gzipCompression ? borrowCompressor() : null;
+    try {
+      return serializePartitioned(
+          serializer.filterMetrics(metrics),
+          (body, lineCount) -> handOff(body, lineCount, compressor, partitionSender),
+          rememberedGauges);
+    } finally {
+      if (compressor != null) {
+        idleCompressors.offer(compressor);
+      }
+    }
+  }
+
+  private boolean handOff(
+      PayloadBuffer body,
+      int lineCount,
+      GzipCompressor compressor,
+      ConcurrentPartitionSender.PartitionSender partitionSender) {
+    logger.finer(
+        () ->
+            String.format(
+                "Exporting metrics:%n%s",
+                new String(body.array(), 0, body.size(), StandardCharsets.UTF_8)));
+    if (selfMetrics != null) {
+      selfMetrics.recordPartition();
+    }
+    if (compressor == null) {
+      return partitionSender.send(body.array(), body.size(), lineCount);
+    }
+    PayloadBuffer compressed = compressor.compress(body.array(), body.size());
+    logger.finest(
+        () ->
+            String.format(
+                "Compressed %d metric lines from %d to %d bytes",
+                lineCount, body.size(), compressed.size()));
+    return partitionSender.send(compressed.array(), compressed.size(), lineCount);
+  }
+
+  private GzipCompressor borrowCompressor() {
+    GzipCompressor compressor = idleCompressors.poll();
+    return compressor != null ? compressor : new GzipCompressor();
+  }
+
+  /**
+   * Serializes the metrics and hands each partition to the handler as soon as it is full. This
+   * keeps memory usage independent of the number of exported points.
+   *
+   * @return false if any partition could not be handed off.
+   */
+  private boolean serializePartitioned(
+      Collection<MetricData> metrics,
+      MetricLinePartitioner.PartitionHandler handler,
+      UnchangedGaugeFilter.RememberedPoints rememberedGauges) {
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            DynatraceMetricApiConstants.getPayloadLinesLimit(),
+            maxPayloadBytes,
+            handler,
+            rememberedGauges);
+    if (serializationExecutor != null) {
+      int points = countPoints(metrics);
+      if (points >= parallelSerializationMinPoints) {
+        return serializeInParallel(metrics, points, partitioner);
+      }
+    }
+
+    LongSupplier lines = partitioner::getTotalLines;
+    LongSupplier dropped = partitioner::getDroppedLines;
+    for (MetricData metric : metrics) {
+      serializeMetric(metric, partitioner, lines, dropped);
+      if (partitioner.hasFailed()) {
+        // no need to serialize the remaining metrics if they cannot be sent anyway.
+        return false;
+      }
+    }
+    return partitioner.flush();
+  }
+
+  /**
+   * Serializes the metric, recording it if self-monitoring is enabled.
+   *
+   * @param lines the number of lines the sink has received so far.
+   * @param dropped the number of lines the sink has been told were dropped so far.
+   */
+  private void serializeMetric(
+      MetricData metric, MetricLineSink sink, LongSupplier lines, LongSupplier dropped) {
+    if (selfMetrics == null || isSelfMetric(metric)) {
+      serializeToMetricLines(metric, sink);
+      return;
+    }
+    long start = System.nanoTime();
+    long linesBefore = lines.getAsLong();
+    long droppedBefore = dropped.getAsLong();
+    serializeToMetricLines(metric, sink);
+    selfMetrics.recordSerialization(
+        metric.getType(),
+        metric.getName(),
+        System.nanoTime() - start,
+        lines.getAsLong() - linesBefore,
+        dropped.getAsLong() - droppedBefore);
+  }
+
+  private static int countPoints(Collection<MetricData> metrics) {
+    int points = 0;
+    for (MetricData metric : metrics) {
+      points += metric.getData().getPoints().size();
+    }
+    return points;
+  }
+
+  /**
+   * Serializes chunks of consecutive metrics on the serialization threads into buffers of their
+   * own, and passes the buffers on to the partitioner in the original order as they complete. The
+   * partitions are therefore exactly the same as if the metrics were serialized on one thread.
+   *
+   * @return false if any partition could not be handed off.
+   */
+  private boolean serializeInParallel(
+      Collection<MetricData> metrics, int points, MetricLinePartitioner partitioner) {
+    // a few chunks per thread balance out metrics that take longer than others.
+    int pointsPerChunk =
+        Math.max(1, points / (serializationThreads * SERIALIZATION_CHUNKS_PER_THREAD));
+    List<Future<SerializedLines>> chunks = new ArrayList<>();
+    try {
+      List<MetricData> chunk = new ArrayList<>();
+      int chunkPoints = 0;
+      for (MetricData metric : metrics) {
+        chunk.add(metric);
+        chunkPoints += metric.getData().getPoints().size();
+        if (chunkPoints >= pointsPerChunk) {
+          chunks.add(submitChunk(chunk));
+          chunk = new ArrayList<>();
+          chunkPoints = 0;
+        }
+      }
+      if (!chunk.isEmpty()) {
+        chunks.add(submitChunk(chunk));
+      }
+
+      for (Future<SerializedLines> lines : chunks) {
+        lines.get().writeTo(partitioner);
+        if (partitioner.hasFailed()) {
+          return false;
+        }
+      }
+      return partitioner.flush();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | RejectedExecutionException e) {
+      logger.log(Level.WARNING, "Error while serializing metrics", e);
+      return false;
+    } finally {
+      // only does something if the export failed before all chunks were passed on.
+      for (Future<SerializedLines> lines : chunks) {
+        lines.cancel(true);
+      }
+    }
+  }
+
+  private Future<SerializedLines> submitChunk(List<MetricData> chunk) {
+    return serializationExecutor.submit(
+        () -> {
+          SerializedLines lines = new SerializedLines();
+          LongSupplier lineCount = lines::getTotalLines;
+          LongSupplier dropped = lines::getDroppedLines;
+          for (MetricData metric : chunk) {
+            serializeMetric(metric, lines, lineCount, dropped);
           }
-          resultCode = CompletableResultCode.ofFailure();
+          return lines;
+        });
+  }
+
+  /**
+   * Whether the metric is one of the metrics about the exporter itself, which are not recorded, as
+   * recording them while exporting them would change them with every export.
+   */
+  private static boolean isSelfMetric(MetricData metric) {
+    return SelfMetrics.INSTRUMENTATION_SCOPE.equals(
+        metric.getInstrumentationScopeInfo().getName());
+  }
+
+  /**
+   * Sends the partition, retrying transient failures if a retry policy is configured.
+   *
+   * @param gzip whether the body is compressed with gzip.
+   * @param retry the retry state of the export, or null if failed requests are not retried.
+   * @param replayed whether the partition was read from the spool. Its lines might be long
+   *     outdated, so the series of its invalid lines are not remembered as rejected.
+   */
+  private SendOutcome sendPartition(
+      byte[] body, int length, int lineCount, boolean gzip, ExportRetry retry, boolean replayed) {
+    for (int attempt = 1; ; attempt++) {
+      int code = -1;
+      String retryAfter = null;
+      SendOutcome outcome;
+      if (rateLimiter != null) {
+        try {
+          if (!rateLimiter.acquire(lineCount)) {
+            logger.warning(
+                () ->
+                    String.format(
+                        "Not sending %d lines, the rate limit would delay the request by more than"
+                            + " %d seconds.",
+                        lineCount, RATE_LIMIT_MAX_WAIT_SECONDS));
+            return SendOutcome.FAILED_TRANSIENT;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return SendOutcome.FAILED;
         }
+      }
+      // taken right before sending, so waiting for the rate limit does not hold a probe request.
+      long permit = CircuitBreaker.NO_PERMIT;
+      if (circuitBreaker != null) {
+        permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.NO_PERMIT) {
+          logger.fine(
+              () ->
+                  String.format("Not sending %d lines, the circuit breaker is open.", lineCount));
+          return SendOutcome.FAILED_TRANSIENT;
+        }
+      }
+      long start = System.nanoTime();
+      // every partition is sent in its own request, the sender takes care of reusing connections.
+      try (HttpSender.Response response = httpSender.send(body, length, gzip ? "gzip" : null)) {
+        code = response.getStatusCode();
+        if (selfMetrics != null) {
+          selfMetrics.recordRequest(code, System.nanoTime() - start, length);
+        }
+        if (circuitBreaker != null) {
+          circuitBreaker.onResult(permit, code >= 500, System.nanoTime() - start);
+        }
+        if (rateLimiter != null) {
+          recordRateLimit(code, response);
+        }
+        if (code < 400) {
+          return handleSuccess(code, lineCount, response.getBody()) != null
+              ? SendOutcome.SENT
+              : SendOutcome.FAILED;
+        }
+        RejectedSeriesCache rejectedSeries = serializer.getRejectedSeries();
+        if (code == 400 && rejectedSeries != null && !replayed) {
+          rejectInvalidLines(rejectedSeries, response.getBody(), body, length, gzip);
+        } else if (logger.isLoggable(Level.WARNING)) {
+          logExportingError(response.getBody(), code);
+        }
+        retryAfter = response.getHeader(ExportRetry.RETRY_AFTER_HEADER);
+        outcome = isTransientFailure(code) ? SendOutcome.FAILED_TRANSIENT : SendOutcome.FAILED;
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Error while exporting", e);
+        if (selfMetrics != null && code < 0) {
+          selfMetrics.recordRequestWithoutResponse(System.nanoTime() - start);
+        }
+        if (circuitBreaker != null && code < 0) {
+          circuitBreaker.onResult(permit, true, System.nanoTime() - start);
+        }
+        // I/O errors after a response was received are judged by its status code.
+        outcome =
+            code < 0 || isTransientFailure(code)
+                ? SendOutcome.FAILED_TRANSIENT
+                : SendOutcome.FAILED;
       } catch (Exception e) {
         logger.log(Level.WARNING, "Error while exporting", e);
-        resultCode = CompletableResultCode.ofFailure();
+        if (circuitBreaker != null && code < 0) {
+          circuitBreaker.onResult(permit, true, System.nanoTime() - start);
+        }
+        return SendOutcome.FAILED;
       }
-      if (!resultCode.isSuccess()) {
-        return resultCode;
+
+      // requests that failed without a response are always retried.
+      if (retry == null
+          || (code >= 0 && !retry.isRetryable(code))
+          || !retry.awaitRetry(attempt, retryAfter)) {
+        return outcome;
+      }
+      if (selfMetrics != null) {
+        selfMetrics.recordRetry();
       }
     }
-    return CompletableResultCode.ofSuccess();
   }
 
-  private void logExportingError(InputStream errorStream, int code) throws IOException {
-    if (errorStream == null) {
-      logger.warning(() -> String.format("Error while exporting. Status code: %d", code));
+  private void recordRateLimit(int code, HttpSender.Response response) {
+    if (code == 429) {
+      rateLimiter.onThrottled(
+          ExportRetry.parseRetryAfterMillis(
+              response.getHeader(ExportRetry.RETRY_AFTER_HEADER), System.currentTimeMillis()));
+    } else if (code < 400) {
+      rateLimiter.onSuccess();
+    }
+  }
+
+  /** Whether the request might succeed later, e.g. once the endpoint is available again. */
+  private static boolean isTransientFailure(int statusCode) {
+    return statusCode == 429 || statusCode >= 500;
+  }
+
+  /**
+   * Sends the partition or, if the endpoint is not available, writes it to the spool. Once a
+   * partition of an export has been spooled, the remaining partitions of that export are spooled
+   * right away.
+   *
+   * @return false if the partition was neither sent nor spooled.
+   */
+  private boolean sendOrSpool(
+      byte[] body, int length, int lineCount, ExportRetry retry, AtomicBoolean spooled) {
+    if (!spooled.get()) {
+      SendOutcome outcome = sendPartition(body, length, lineCount, gzipCompression, retry, false);
+      if (outcome != SendOutcome.FAILED_TRANSIENT) {
+        return outcome == SendOutcome.SENT;
+      }
+      spooled.set(true);
+    }
+    logger.fine(() -> String.format("Spooling partition of %d lines.", lineCount));
+    return spool.append(body, length, lineCount, gzipCompression);
+  }
+
+  /**
+   * Completes once the export is done. If the whole export was sent, the endpoint is available
+   * again, so some of the spooled partitions are sent as well, after the export has completed. An
+   * export that had to be spooled is reported as failed.
+   */
+  private CompletableResultCode replaySpoolAfter(
+      CompletableResultCode exported, AtomicBoolean spooled) {
+    CompletableResultCode result = new CompletableResultCode();
+    exported.whenComplete(
+        () -> {
+          if (!exported.isSuccess() || spooled.get()) {
+            result.fail();
+            return;
+          }
+          // tracked before the export completes, so a flush right after the export includes it.
+          CompletableResultCode replayed = trackSpoolReplay();
+          result.succeed();
+          if (replayed != null) {
+            startSpoolReplay(replayed);
+          }
+        });
+    return result;
+  }
+
+  /** Replays the spool on the replay thread, unless a replay is already running. */
+  private void scheduleSpoolReplay() {
+    CompletableResultCode replayed = trackSpoolReplay();
+    if (replayed != null) {
+      startSpoolReplay(replayed);
+    }
+  }
+
+  /**
+   * Tracks a replay like an export, so {@link #flush()} and {@link #shutdown()} wait for it.
+   *
+   * @return the result to complete once the replay is done, or null if one is already running.
+   */
+  private CompletableResultCode trackSpoolReplay() {
+    if (!replayingSpool.compareAndSet(false, true)) {
+      return null;
+    }
+    return track(new CompletableResultCode());
+  }
+
+  private void startSpoolReplay(CompletableResultCode replayed) {
+    try {
+      spoolReplayer.execute(
+          () -> {
+            try {
+              replaySpool();
+            } catch (RuntimeException e) {
+              logger.log(Level.WARNING, "Error while replaying the spool", e);
+            } finally {
+              replayingSpool.set(false);
+              replayed.succeed();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // the exporter is shutting down, the spool is replayed after the next start.
+      replayingSpool.set(false);
+      replayed.succeed();
+    }
+  }
+
+  /** Sends up to {@value #SPOOL_REPLAY_PARTITIONS} spooled partitions, oldest first. */
+  private void replaySpool() {
+    for (int i = 0; i < SPOOL_REPLAY_PARTITIONS; i++) {
+      PartitionSpool.Record record = spool.peek();
+      if (record == null) {
+        return;
+      }
+      SendOutcome outcome =
+          sendPartition(record.body, record.body.length, record.lineCount, record.gzip, null, true);
+      if (outcome == SendOutcome.FAILED_TRANSIENT) {
+        // try again with the next export.
+        return;
+      }
+      if (outcome == SendOutcome.FAILED) {
+        logger.warning(
+            () ->
+                String.format(
+                    "Dropping spooled partition of %d lines, which was rejected.",
+                    record.lineCount));
+      }
+      spool.commit(record);
+    }
+  }
+
+  /**
+   * Remembers the series of the lines a response with status 400 lists as invalid, so that they
+   * are skipped in the following exports.
+   */
+  private static void rejectInvalidLines(
+      RejectedSeriesCache rejectedSeries,
+      InputStream responseBody,
+      byte[] body,
+      int length,
+      boolean gzip)
+      throws IOException {
+    IngestResponse response;
+    try {
+      response = IngestResponse.parse(responseBody);
+    } catch (IOException e) {
+      logger.warning(
+          () ->
+              String.format(
+                  "Error while exporting. Status code: 400; could not parse response: %s",
+                  e.getMessage()));
       return;
     }
+    logger.warning(
+        () -> String.format("Error while exporting. Status code: 400; Response: %s", response));
+    if (!response.getInvalidLines().isEmpty()) {
+      rejectedSeries.rejectLines(body, length, gzip, response.getInvalidLines());
+    }
+  }
+
+  private void logExportingError(InputStream errorStream, int code) throws IOException {
     String message =
         CharStreams.toString(new InputStreamReader(errorStream, StandardCharsets.UTF_8));
+    if (message.isEmpty()) {
+      logger.warning(() -> String.format("Error while exporting. Status code: %d", code));
+      return;
+    }
     logger.warning(
         () -> String.format("Error while exporting. Status code: %d; Response: %s", code, message));
   }
 
-  private CompletableResultCode handleSuccess(int code, int totalLines, String response) {
+  /**
+   * Parses the body of a response with a status code below 400.
+   *
+   * @return the parsed response, or null if the request was not accepted.
+   */
+  private IngestResponse handleSuccess(int code, int totalLines, InputStream body) {
     if (code == 202) {
-      if (RETURNED_ERROR_FIELD_IS_NULL.matcher(response).find()) {
-        Matcher linesOkMatchResult = EXTRACT_LINES_OK.matcher(response);
-        Matcher linesInvalidMatchResult = EXTRACT_LINES_INVALID.matcher(response);
-        if (linesOkMatchResult.find() && linesInvalidMatchResult.find()) {
-          logger.fine(
-              () ->
-                  String.format(
-                      "Sent %d metric lines, linesOk: %s linesInvalid: %s",
-                      totalLines, linesOkMatchResult.group(1), linesInvalidMatchResult.group(1)));
-          return CompletableResultCode.ofSuccess();
-        }
+      IngestResponse response;
+      try {
+        response = IngestResponse.parse(body);
+      } catch (IOException e) {
+        logger.warning(() -> String.format("could not parse response: %s", e.getMessage()));
+        return null;
+      }
+      if (response.hasLineCounts() && !response.hasError()) {
+        logger.fine(() -> String.format("Sent %d metric lines, %s", totalLines, response));
+        return response;
       }
       logger.warning(() -> String.format("could not parse response: %s", response));
     } else {
@@ -252,16 +1082,86 @@ public final class DynatraceMetricExporter implements MetricExporter {
                   "Expected status code 202, got %d. Did you specify the ingest path (e. g. /api/v2/metrics/ingest)?",
                   code));
     }
-    return CompletableResultCode.ofFailure();
+    return null;
+  }
+
+  /**
+   * Returns the counters of the export queue, see {@link Builder#setQueueCapacity}. All counters
+   * are zero if the queue is not enabled.
+   */
+  public ExportQueueStats getQueueStats() {
+    return queue != null ? queue.stats() : new ExportQueueStats(0, 0, 0, 0, 0, 0);
   }
 
+  /** Returns a result that completes once all exports that are currently in flight are done. */
   @Override
   public CompletableResultCode flush() {
-    return CompletableResultCode.ofSuccess();
+    List<CompletableResultCode> pending = new ArrayList<>(pendingExports);
+    if (pending.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+    return CompletableResultCode.ofAll(pending);
   }
 
+  /**
+   * Stops accepting new exports and waits up to {@value #SHUTDOWN_TIMEOUT_SECONDS} seconds for
+   * exports in flight to finish before releasing the exporter threads.
+   */
   @Override
   public CompletableResultCode shutdown() {
+    if (!isShutdown.compareAndSet(false, true)) {
+      logger.fine("The exporter has already been shut down.");
+      return CompletableResultCode.ofSuccess();
+    }
+
+    if (jitterScheduler != null) {
+      // exports that wait for their offset are sent right away instead of delaying the shutdown.
+      List<Runnable> delayed = new ArrayList<>();
+      jitterScheduler.getQueue().drainTo(delayed);
+      jitterScheduler.shutdown();
+      delayed.forEach(Runnable::run);
+    }
+    CompletableResultCode drained = flush().join(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    if (exportExecutor != null) {
+      exportExecutor.shutdownNow();
+    }
+    if (queue != null) {
+      queue.close();
+      queueSenders.shutdownNow();
+      queue.failRemaining();
+    }
+    if (spoolReplayer != null) {
+      spoolReplayer.shutdownNow();
+    }
+    if (concurrentSender != null) {
+      concurrentSender.shutdown();
+    }
+    if (serializationExecutor != null) {
+      serializationExecutor.shutdownNow();
+    }
+    if (selfMetrics != null) {
+      selfMetrics.close();
+    }
+    GzipCompressor compressor;
+    while ((compressor = idleCompressors.poll()) != null) {
+      compressor.close();
+    }
+    if (spool != null) {
+      try {
+        spool.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Could not close the spool", e);
+      }
+    }
+
+    if (!drained.isDone()) {
+      logger.warning(
+          () ->
+              String.format(
+                  "Exports did not finish within %d seconds during shutdown.",
+                  SHUTDOWN_TIMEOUT_SECONDS));
+      return CompletableResultCode.ofFailure();
+    }
     return CompletableResultCode.ofSuccess();
   }
 
@@ -282,6 +1182,37 @@ public final class DynatraceMetricExporter implements MetricExporter {
     private boolean enrichWithOneAgentMetaData = false;
     private String prefix;
     private Attributes defaultDimensions;
+    private int maxConcurrentRequests = 1;
+    private boolean asyncExport = false;
+    private boolean gzipCompression = false;
+    private int maxPayloadBytes = Integer.MAX_VALUE;
+    private boolean fastSerialization = false;
+    private Duration rejectedSeriesExpiry = Duration.ZERO;
+    private Duration maxGaugeSuppression = Duration.ZERO;
+    private int maxSeriesPerMetric = 0;
+    private Duration cardinalityWindow;
+    private Collection<String> allowedMetricPrefixes;
+    private Collection<String> deniedMetricPrefixes = Collections.emptyList();
+    private Collection<String> droppedDimensions = Collections.emptyList();
+    private Map<String, String> renamedDimensions = Collections.emptyMap();
+    private int maxDimensionValueLength = Integer.MAX_VALUE;
+    private RetryPolicy retryPolicy;
+    private double maxRequestsPerSecond = 0;
+    private double maxLinesPerSecond = 0;
+    private boolean adaptiveRateLimit = false;
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+    private Duration exportJitter = Duration.ZERO;
+    private Path spoolDirectory;
+    private long spoolMaxBytes = 64L * 1024 * 1024;
+    private Duration spoolMaxAge = Duration.ofHours(1);
+    private long queueMaxBytes = 0;
+    private int queueMaxLines = 0;
+    private QueueOverflowPolicy queueOverflowPolicy = QueueOverflowPolicy.DROP_OLDEST;
+    private Duration queueBlockTimeout = Duration.ofSeconds(5);
+    private MeterProvider meterProvider;
+    private int serializationThreads = 1;
+    private int parallelSerializationMinPoints = 0;
+    private HttpSender httpSender;
 
     public Builder setUrl(String url) throws MalformedURLException {
       this.url = new URL(url);
@@ -313,9 +1244,363 @@ public final class DynatraceMetricExporter implements MetricExporter {
       return this;
     }
 
+    /**
+     * Sets the maximum number of ingest requests that are sent concurrently. If a batch is split
+     * into more partitions than this, the remaining partitions are sent as soon as earlier requests
+     * complete. Defaults to 1, which sends all partitions sequentially.
+     */
+    public Builder setMaxConcurrentRequests(int maxConcurrentRequests) {
+      Preconditions.checkArgument(
+          maxConcurrentRequests > 0, "maxConcurrentRequests must be greater than zero");
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      return this;
+    }
+
+    /**
+     * If enabled, {@link #export} returns immediately and the metrics are serialized and sent on a
+     * thread owned by the exporter, so the calling metric reader is not blocked by network I/O.
+     * Exports are still processed one after another, in the order they were handed in. Requires
+     * the exported {@link MetricData} to stay unchanged after export returns, which is the case
+     * for the immutable data produced by the SDK by default.
+     */
+    public Builder setAsyncExport(boolean asyncExport) {
+      this.asyncExport = asyncExport;
+      return this;
+    }
+
+    /**
+     * If enabled, request bodies are compressed with gzip and sent with {@code Content-Encoding:
+     * gzip}. Metric lines are very repetitive, so this considerably reduces the amount of data
+     * sent, at the cost of some CPU time during export.
+     */
+    public Builder setGzipCompression(boolean gzipCompression) {
+      this.gzipCompression = gzipCompression;
+      return this;
+    }
+
+    /**
+     * Sets the maximum size of a single request body in bytes, before compression. Large batches
+     * are split into multiple requests once either this size or the line limit of the Dynatrace
+     * API is reached, so requests are not rejected for being too large. Single lines that exceed
+     * this size are dropped. By default, requests are only split by their number of lines.
+     */
+    public Builder setMaxPayloadBytes(int maxPayloadBytes) {
+      Preconditions.checkArgument(maxPayloadBytes > 0, "maxPayloadBytes must be greater than zero");
+      this.maxPayloadBytes = maxPayloadBytes;
+      return this;
+    }
+
+    /**
+     * If enabled, lines of gauges, counters, summaries and histograms are written directly into the
+     * request body instead of being created by the metric builder of dynatrace-metric-utils. The
+     * dimensions of every series are still normalized by the builder, once, and the resulting
+     * lines are identical. Values the encoder cannot format exactly like the builder, like very
+     * large or very small doubles, are left to the builder.
+     */
+    public Builder setFastSerialization(boolean fastSerialization) {
+      this.fastSerialization = fastSerialization;
+      return this;
+    }
+
+    /**
+     * If set to a positive duration, series with lines the Dynatrace API rejects as invalid are
+     * not exported again for that long, which saves serializing and sending lines that will be
+     * rejected anyway. A series is identified by its metric key and dimensions, so a series is
+     * also skipped if only one of its values was invalid. At most 10,000 series are remembered.
+     * Disabled by default.
+     */
+    public Builder setRejectedSeriesExpiry(Duration rejectedSeriesExpiry) {
+      Preconditions.checkArgument(
+          !rejectedSeriesExpiry.isNegative(), "rejectedSeriesExpiry must not be negative");
+      this.rejectedSeriesExpiry = rejectedSeriesExpiry;
+      return this;
+    }
+
+    /**
+     * If set to a positive duration, lines of gauges and non-monotonic sums are not exported if
+     * their value did not change since the last exported line of their series, for at most that
+     * long. After that time, the line is exported even if the value is still the same, so the
+     * series does not go missing in Dynatrace. Choose a duration that is shorter than the time
+     * after which Dynatrace considers a series to have no data. The time is taken from the
+     * timestamps of the data points. About 100,000 series are remembered. Disabled by default.
+     */
+    public Builder setMaxGaugeSuppression(Duration maxGaugeSuppression) {
+      Preconditions.checkArgument(
+          !maxGaugeSuppression.isNegative(), "maxGaugeSuppression must not be negative");
+      this.maxGaugeSuppression = maxGaugeSuppression;
+      return this;
+    }
+
+    /**
+     * Limits the number of series exported per metric key to {@code maxSeriesPerMetric}, which
+     * protects against attributes with unbounded values, like request IDs. The first series of a
+     * metric are exported, points of any further series are dropped and a warning is logged. The
+     * series are counted anew every {@code window}, so a metric recovers once the cause of the
+     * extra series is gone. Up to 10,000 metrics are limited. By default, series are not limited.
+     *
+     * <p>To collapse the extra series into a single overflow series instead of dropping them,
+     * configure a cardinality limit on the metric reader of the SDK.
+     */
+    public Builder setCardinalityLimit(int maxSeriesPerMetric, Duration window) {
+      Preconditions.checkArgument(
+          maxSeriesPerMetric > 0, "maxSeriesPerMetric must be greater than zero");
+      Preconditions.checkArgument(
+          !window.isNegative() && !window.isZero(), "window must be positive");
+      this.maxSeriesPerMetric = maxSeriesPerMetric;
+      this.cardinalityWindow = window;
+      return this;
+    }
+
+    /**
+     * Only exports metrics whose instrument name starts with one of the prefixes. An exact
+     * instrument name is a prefix as well. Metrics that are not exported are dropped before any of
+     * their lines are created. By default, all metrics are exported.
+     */
+    public Builder setAllowedMetricPrefixes(Collection<String> prefixes) {
+      this.allowedMetricPrefixes =
+          new ArrayList<>(Preconditions.checkNotNull(prefixes, "prefixes must not be null"));
+      return this;
+    }
+
+    /**
+     * Drops metrics whose instrument name starts with one of the prefixes, even if they are
+     * allowed by {@link #setAllowedMetricPrefixes}. By default, no metric is dropped.
+     */
+    public Builder setDeniedMetricPrefixes(Collection<String> prefixes) {
+      this.deniedMetricPrefixes =
+          new ArrayList<>(Preconditions.checkNotNull(prefixes, "prefixes must not be null"));
+      return this;
+    }
+
+    /**
+     * Drops the attributes with these keys from all data points, before they are turned into
+     * dimensions. Default dimensions are not affected.
+     */
+    public Builder setDroppedDimensions(Collection<String> attributeKeys) {
+      this.droppedDimensions =
+          new ArrayList<>(
+              Preconditions.checkNotNull(attributeKeys, "attributeKeys must not be null"));
+      return this;
+    }
+
+    /**
+     * Exports the attributes of data points with the keys of the map as dimensions with the
+     * corresponding values of the map as keys. The new keys are normalized like any other
+     * dimension key. Default dimensions are not affected.
+     */
+    public Builder setRenamedDimensions(Map<String, String> renamedAttributeKeys) {
+      this.renamedDimensions =
+          new HashMap<>(
+              Preconditions.checkNotNull(
+                  renamedAttributeKeys, "renamedAttributeKeys must not be null"));
+      return this;
+    }
+
+    /**
+     * Truncates the values of dimensions created from data point attributes to this number of
+     * characters, before they are normalized. By default, values are only truncated to the limit
+     * of the Dynatrace API.
+     */
+    public Builder setMaxDimensionValueLength(int maxDimensionValueLength) {
+      Preconditions.checkArgument(
+          maxDimensionValueLength > 0, "maxDimensionValueLength must be greater than zero");
+      this.maxDimensionValueLength = maxDimensionValueLength;
+      return this;
+    }
+
+    /** Returns the filter of the configured metrics and dimensions, or null if there is none. */
+    private MetricFilter buildMetricFilter() {
+      if (allowedMetricPrefixes == null
+          && deniedMetricPrefixes.isEmpty()
+          && droppedDimensions.isEmpty()
+          && renamedDimensions.isEmpty()
+          && maxDimensionValueLength == Integer.MAX_VALUE) {
+        return null;
+      }
+      return new MetricFilter(
+          allowedMetricPrefixes,
+          deniedMetricPrefixes,
+          droppedDimensions,
+          renamedDimensions,
+          maxDimensionValueLength);
+    }
+
+    /**
+     * Limits the rate of ingest requests and of the metric lines sent in them. Pass 0 to not limit
+     * one of them. Instead of sending the partitions of an export in a burst, requests are paced
+     * evenly, and wait for their turn on the thread that sends them. A request that would have to
+     * wait longer than 30 seconds fails like a request that was throttled by the Dynatrace API,
+     * and is retried or spooled if enabled. By default, requests are not limited.
+     */
+    public Builder setRateLimit(double maxRequestsPerSecond, double maxLinesPerSecond) {
+      Preconditions.checkArgument(
+          maxRequestsPerSecond >= 0, "maxRequestsPerSecond must not be negative");
+      Preconditions.checkArgument(maxLinesPerSecond >= 0, "maxLinesPerSecond must not be negative");
+      this.maxRequestsPerSecond = maxRequestsPerSecond;
+      this.maxLinesPerSecond = maxLinesPerSecond;
+      return this;
+    }
+
+    /**
+     * If enabled, a request throttled by the Dynatrace API with status code 429 pauses all requests
+     * for the time given in its {@code Retry-After} header, and halves the rates set with {@link
+     * #setRateLimit}, down to a tenth. Successful requests then gradually restore the configured
+     * rates. Can be enabled without setting a rate limit. Disabled by default.
+     */
+    public Builder setAdaptiveRateLimit(boolean adaptiveRateLimit) {
+      this.adaptiveRateLimit = adaptiveRateLimit;
+      return this;
+    }
+
+    /**
+     * Delays the requests of each export by an offset within the given window, while the metrics
+     * are serialized right away and kept in memory until then. The offset is derived from the
+     * process, host, endpoint, prefix, and default dimensions of the exporter, so it stays the same
+     * for all exports of an instance, but differs between instances. This spreads the requests of
+     * many instances that export at the same time, e.g. after a rollout, over the window. The
+     * window should be shorter than the export interval. Disabled by default.
+     */
+    public Builder setExportJitter(Duration window) {
+      Preconditions.checkNotNull(window, "window must not be null");
+      Preconditions.checkArgument(!window.isNegative(), "window must not be negative");
+      this.exportJitter = window;
+      return this;
+    }
+
+    /**
+     * Sets the policy for retrying requests that failed for a transient reason, like a rate limit
+     * or an unavailable endpoint. See {@link RetryPolicy#getDefault()} for sensible defaults. By
+     * default, failed requests are not retried.
+     */
+    public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = Preconditions.checkNotNull(retryPolicy, "retryPolicy must not be null");
+      return this;
+    }
+
+    /**
+     * Puts a circuit breaker in front of the endpoint, which stops sending requests while the
+     * endpoint seems to be down, see {@link CircuitBreakerPolicy}. While the breaker is open,
+     * exports fail right away, or, if spooling is enabled, are spooled without sending a request.
+     * See {@link CircuitBreakerPolicy#getDefault()} for sensible defaults. Disabled by default.
+     */
+    public Builder setCircuitBreaker(CircuitBreakerPolicy circuitBreakerPolicy) {
+      this.circuitBreakerPolicy =
+          Preconditions.checkNotNull(circuitBreakerPolicy, "circuitBreakerPolicy must not be null");
+      return this;
+    }
+
+    /**
+     * Enables spooling of metrics that could not be sent because the endpoint was not available,
+     * e.g. during a network outage. Such metrics are written to files in the given directory and
+     * sent after later exports have succeeded, oldest first. The spool survives restarts of the
+     * process. Each exporter needs a directory of its own.
+     */
+    public Builder setSpoolDirectory(Path spoolDirectory) {
+      this.spoolDirectory = spoolDirectory;
+      return this;
+    }
+
+    /**
+     * Sets the maximum size of the spool on disk. Once it is reached, the oldest spooled metrics
+     * are dropped. Defaults to 64 MiB.
+     */
+    public Builder setSpoolMaxBytes(long spoolMaxBytes) {
+      Preconditions.checkArgument(spoolMaxBytes > 0, "spoolMaxBytes must be greater than zero");
+      this.spoolMaxBytes = spoolMaxBytes;
+      return this;
+    }
+
+    /**
+     * Sets how long spooled metrics are kept. Older metrics are dropped instead of being sent.
+     * Defaults to one hour, as the Dynatrace API does not accept data points that are much older.
+     */
+    public Builder setSpoolMaxAge(Duration spoolMaxAge) {
+      Preconditions.checkArgument(
+          !spoolMaxAge.isNegative() && !spoolMaxAge.isZero(), "spoolMaxAge must be positive");
+      this.spoolMaxAge = spoolMaxAge;
+      return this;
+    }
+
+    /**
+     * Enables a queue between exporting and sending metrics, with room for serialized metrics of
+     * up to {@code maxBytes} bytes and {@code maxLines} lines. {@link #export} then only serializes
+     * the metrics into the queue, and {@link #setMaxConcurrentRequests maxConcurrentRequests}
+     * threads owned by the exporter send them. This keeps a slow endpoint from stalling the metric
+     * reader, while memory usage stays bounded. What happens when the queue is full is set with
+     * {@link #setQueueOverflowPolicy}. By default, there is no queue.
+     */
+    public Builder setQueueCapacity(long maxBytes, int maxLines) {
+      Preconditions.checkArgument(maxBytes > 0, "maxBytes must be greater than zero");
+      Preconditions.checkArgument(maxLines > 0, "maxLines must be greater than zero");
+      this.queueMaxBytes = maxBytes;
+      this.queueMaxLines = maxLines;
+      return this;
+    }
+
+    /**
+     * Sets what happens when metrics are exported while the queue is full. Defaults to {@link
+     * QueueOverflowPolicy#DROP_OLDEST}.
+     */
+    public Builder setQueueOverflowPolicy(QueueOverflowPolicy queueOverflowPolicy) {
+      this.queueOverflowPolicy =
+          Preconditions.checkNotNull(queueOverflowPolicy, "queueOverflowPolicy must not be null");
+      return this;
+    }
+
+    /**
+     * Sets how long exporting blocks when the queue is full and the overflow policy is {@link
+     * QueueOverflowPolicy#BLOCK}. Defaults to 5 seconds.
+     */
+    public Builder setQueueBlockTimeout(Duration queueBlockTimeout) {
+      Preconditions.checkArgument(
+          !queueBlockTimeout.isNegative(), "queueBlockTimeout must not be negative");
+      this.queueBlockTimeout = queueBlockTimeout;
+      return this;
+    }
+
+    /**
+     * Serializes exports of at least {@code minPoints} points on {@code threads} threads owned by
+     * the exporter. The metrics are split into chunks of consecutive metrics, which are serialized
+     * into buffers of their own and then partitioned in their original order, so the requests are
+     * the same as without parallel serialization. In contrast to serializing on one thread, all
+     * lines of the chunks that are not sent yet are held in memory. Smaller exports are serialized
+     * on the exporting thread, as splitting them costs more than it saves. By default, all exports
+     * are serialized on the exporting thread.
+     */
+    public Builder setParallelSerialization(int threads, int minPoints) {
+      Preconditions.checkArgument(threads > 0, "threads must be greater than zero");
+      Preconditions.checkArgument(minPoints >= 0, "minPoints must not be negative");
+      this.serializationThreads = threads;
+      this.parallelSerializationMinPoints = minPoints;
+      return this;
+    }
+
+    /**
+     * Makes the exporter report metrics about itself, like the time spent serializing metrics, the
+     * number of lines, requests and retries, and the size of the export queue, to a meter of this
+     * provider. The instrumentation scope of these metrics is {@code
+     * com.dynatrace.opentelemetry.metric}. If they are exported with this exporter, serializing
+     * them is not recorded, but the partitions, requests and bytes they are sent in are, even if an
+     * export consists of nothing but these metrics. By default, no metrics are reported.
+     */
+    public Builder setMeterProvider(MeterProvider meterProvider) {
+      this.meterProvider =
+          Preconditions.checkNotNull(meterProvider, "meterProvider must not be null");
+      return this;
+    }
+
+    /**
+     * Replaces the transport that posts the metric lines, see {@link HttpSender}. The URL and API
+     * token set on this builder are not used by a custom sender. By default, requests are sent with
+     * {@link java.net.HttpURLConnection}.
+     */
+    public Builder setHttpSender(HttpSender httpSender) {
+      this.httpSender = Preconditions.checkNotNull(httpSender, "httpSender must not be null");
+      return this;
+    }
+
     public DynatraceMetricExporter build() {
-      return new DynatraceMetricExporter(
-          url, apiToken, prefix, defaultDimensions, enrichWithOneAgentMetaData);
+      return new DynatraceMetricExporter(this);
     }
   }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the points of exponential histograms for the {@link Serializer}. Their data types are only
+ * part of the public API since OpenTelemetry SDK 1.23, while the exporter supports older versions.
+ * The implementation is therefore compiled against SDK 1.23 in a source set of its own, and only
+ * loaded if the SDK on the classpath provides these types.
+ */
+interface ExponentialHistogramSupport {
+  String IMPLEMENTATION = "com.dynatrace.opentelemetry.metric.SdkExponentialHistogramSupport";
+  String POINT_DATA_CLASS = "io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData";
+
+  Collection<? extends PointData> getPoints(MetricData metric);
+
+  /** The recorded min of the point, or an estimate from its buckets if it was not recorded. */
+  double getMin(PointData point);
+
+  /** The recorded max of the point, or an estimate from its buckets if it was not recorded. */
+  double getMax(PointData point);
+
+  double getSum(PointData point);
+
+  long getCount(PointData point);
+
+  /** Returns the implementation, or null if the SDK on the classpath is older than 1.23. */
+  static ExponentialHistogramSupport load() {
+    ClassLoader classLoader = ExponentialHistogramSupport.class.getClassLoader();
+    try {
+      Class.forName(POINT_DATA_CLASS, false, classLoader);
+      return Class.forName(IMPLEMENTATION, true, classLoader)
+          .asSubclass(ExponentialHistogramSupport.class)
+          .getDeclaredConstructor()
+          .newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      Logger.getLogger(ExponentialHistogramSupport.class.getName())
+          .log(
+              Level.FINE,
+              "Exponential histograms are not supported, they require OpenTelemetry SDK 1.23+",
+              e);
+      return null;
+    }
+  }
+}
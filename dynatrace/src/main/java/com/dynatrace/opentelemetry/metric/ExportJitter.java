@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import io.opentelemetry.api.common.Attributes;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * Derives the delay of the network phase of each export from the identity of the exporting
+ * instance. Processes that are started at the same time, e.g. during a rollout, flush their metrics
+ * at the same time, too. Delaying each instance by a different, but fixed, offset within a window
+ * spreads their requests over that window, while the interval between two exports of the same
+ * instance stays unchanged.
+ */
+final class ExportJitter {
+  private ExportJitter() {}
+
+  /**
+   * Identifies the exporting instance by the process and host it runs on, as well as the endpoint,
+   * prefix, and default dimensions of the exporter.
+   */
+  static String instanceId(URL url, String prefix, Attributes defaultDimensions) {
+    String process;
+    try {
+      // usually "pid@hostname", which is unique per process and host.
+      process = ManagementFactory.getRuntimeMXBean().getName();
+    } catch (RuntimeException e) {
+      process = "";
+    }
+    return String.join(
+        "|",
+        process,
+        String.valueOf(url),
+        String.valueOf(prefix),
+        String.valueOf(defaultDimensions));
+  }
+
+  /** The offset of the instance within the window, which is in [0, window). */
+  static long offsetNanos(String instanceId, Duration window) {
+    long windowNanos = window.toNanos();
+    if (windowNanos <= 0) {
+      return 0;
+    }
+    // mixed, so that similar ids like host names with consecutive numbers spread over the window.
+    long hash = SeriesFingerprint.of(SeriesFingerprint.hash(instanceId), 0);
+    return Long.remainderUnsigned(hash, windowNanos);
+  }
+}
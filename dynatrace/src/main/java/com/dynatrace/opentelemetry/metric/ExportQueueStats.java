@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+/** A snapshot of the counters of the export queue of a {@link DynatraceMetricExporter}. */
+public final class ExportQueueStats {
+  private final long enqueuedLines;
+  private final long droppedLines;
+  private final long sentLines;
+  private final long failedLines;
+  private final long queuedLines;
+  private final long queuedBytes;
+
+  ExportQueueStats(
+      long enqueuedLines,
+      long droppedLines,
+      long sentLines,
+      long failedLines,
+      long queuedLines,
+      long queuedBytes) {
+    this.enqueuedLines = enqueuedLines;
+    this.droppedLines = droppedLines;
+    this.sentLines = sentLines;
+    this.failedLines = failedLines;
+    this.queuedLines = queuedLines;
+    this.queuedBytes = queuedBytes;
+  }
+
+  /** The number of lines that were added to the queue since the exporter was created. */
+  public long getEnqueuedLines() {
+    return enqueuedLines;
+  }
+
+  /** The number of lines that were dropped because the queue was full. */
+  public long getDroppedLines() {
+    return droppedLines;
+  }
+
+  /** The number of lines that were taken from the queue and accepted by the server. */
+  public long getSentLines() {
+    return sentLines;
+  }
+
+  /** The number of lines that were taken from the queue but could not be sent. */
+  public long getFailedLines() {
+    return failedLines;
+  }
+
+  /** The number of lines currently waiting in the queue. */
+  public long getQueuedLines() {
+    return queuedLines;
+  }
+
+  /** The size of the request bodies currently waiting in the queue. */
+  public long getQueuedBytes() {
+    return queuedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ExportQueueStats{enqueuedLines=%d, droppedLines=%d, sentLines=%d, failedLines=%d,"
+            + " queuedLines=%d, queuedBytes=%d}",
+        enqueuedLines, droppedLines, sentLines, failedLines, queuedLines, queuedBytes);
+  }
+}
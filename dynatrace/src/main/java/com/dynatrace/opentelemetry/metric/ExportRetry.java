@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Decides whether and when a failed request of a single export is retried. The time budget of the
+ * {@link RetryPolicy} starts when the instance is created and is shared by all requests of the
+ * export, which may be sent concurrently.
+ */
+final class ExportRetry {
+  private static final Logger logger = Logger.getLogger(ExportRetry.class.getName());
+
+  static final String RETRY_AFTER_HEADER = "Retry-After";
+
+  // the backoff is randomly shortened by up to this fraction, so clients that failed at the same
+  // time do not all retry at the same time.
+  private static final double JITTER = 0.5;
+
+  @FunctionalInterface
+  interface Sleeper {
+    void sleep(long millis) throws InterruptedException;
+  }
+
+  private final RetryPolicy policy;
+  private final Sleeper sleeper;
+  private final LongSupplier nanoTime;
+  // only used to resolve Retry-After dates, the time budget is measured with nanoTime.
+  private final LongSupplier currentTimeMillis;
+  private final DoubleSupplier random;
+  private final long deadlineNanos;
+
+  ExportRetry(RetryPolicy policy) {
+    this(
+        policy,
+        Thread::sleep,
+        System::nanoTime,
+        System::currentTimeMillis,
+        () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  @VisibleForTesting
+  ExportRetry(
+      RetryPolicy policy,
+      Sleeper sleeper,
+      LongSupplier nanoTime,
+      LongSupplier currentTimeMillis,
+      DoubleSupplier random) {
+    this.policy = policy;
+    this.sleeper = sleeper;
+    this.nanoTime = nanoTime;
+    this.currentTimeMillis = currentTimeMillis;
+    this.random = random;
+    this.deadlineNanos = nanoTime.getAsLong() + policy.getTimeBudget().toNanos();
+  }
+
+  boolean isRetryable(int statusCode) {
+    return policy.getRetryableStatusCodes().contains(statusCode);
+  }
+
+  /**
+   * Waits before the next attempt of a request.
+   *
+   * @param attempt the number of attempts made so far.
+   * @param retryAfter the value of the {@code Retry-After} header of the failed response, or null.
+   * @return false if the request must not be retried, because the maximum number of attempts is
+   *     reached, the time budget would be exceeded or the thread was interrupted.
+   */
+  boolean awaitRetry(int attempt, String retryAfter) {
+    if (attempt >= policy.getMaxAttempts()) {
+      logger.warning(() -> String.format("Giving up on request after %d attempts.", attempt));
+      return false;
+    }
+
+    long delayMillis = parseRetryAfterMillis(retryAfter, currentTimeMillis.getAsLong());
+    if (delayMillis < 0) {
+      delayMillis = getBackoffMillis(attempt);
+    }
+    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - nanoTime.getAsLong());
+    if (delayMillis > remainingMillis) {
+      long delay = delayMillis;
+      logger.warning(
+          () ->
+              String.format(
+                  "Giving up on request after %d attempts, retrying in %d ms would exceed the"
+                      + " time budget of %s.",
+                  attempt, delay, policy.getTimeBudget()));
+      return false;
+    }
+
+    long delay = delayMillis;
+    logger.fine(
+        () ->
+            String.format(
+                "Retrying request in %d ms (attempt %d of %d).",
+                delay, attempt + 1, policy.getMaxAttempts()));
+    try {
+      sleeper.sleep(delayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return true;
+  }
+
+  /** The exponential backoff after the given number of attempts, randomly shortened by jitter. */
+  @VisibleForTesting
+  long getBackoffMillis(int attempt) {
+    double backoff =
+        policy.getInitialBackoff().toMillis()
+            * Math.pow(policy.getBackoffMultiplier(), attempt - 1);
+    double capped = Math.min(backoff, policy.getMaxBackoff().toMillis());
+    return (long) (capped * (1.0 - JITTER * random.getAsDouble()));
+  }
+
+  /**
+   * Parses a {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+   *
+   * @return the number of milliseconds to wait, or -1 if the header is absent or invalid.
+   */
+  static long parseRetryAfterMillis(String retryAfter, long nowMillis) {
+    if (retryAfter == null) {
+      return -1;
+    }
+    String value = retryAfter.trim();
+    if (value.isEmpty()) {
+      return -1;
+    }
+    if (Character.isDigit(value.charAt(0))) {
+      try {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+      } catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+    try {
+      long dateMillis =
+          ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+              .toInstant()
+              .toEpochMilli();
+      return Math.max(0, dateMillis - nowMillis);
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses request bodies to the gzip format. In contrast to {@link
+ * java.util.zip.GZIPOutputStream}, the native {@link Deflater} and the output buffer are reused
+ * for every body, so compressing a request does not allocate native memory. Instances are not
+ * thread-safe.
+ */
+final class GzipCompressor {
+  private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+  // magic number, compression method (deflate), no flags, no modification time, no extra flags and
+  // OS, as written by java.util.zip.GZIPOutputStream.
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+  // nowrap: gzip uses raw deflate data with its own header and trailer.
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final CRC32 crc = new CRC32();
+  private final PayloadBuffer output = new PayloadBuffer(INITIAL_BUFFER_SIZE);
+  private final byte[] chunk = new byte[INITIAL_BUFFER_SIZE];
+
+  /**
+   * Compresses the first {@code length} bytes of {@code input}. The returned buffer is overwritten
+   * by the next call.
+   */
+  PayloadBuffer compress(byte[] input, int length) {
+    output.reset();
+    deflater.reset();
+    crc.reset();
+
+    output.write(HEADER, 0, HEADER.length);
+    deflater.setInput(input, 0, length);
+    deflater.finish();
+    while (!deflater.finished()) {
+      int written = deflater.deflate(chunk);
+      output.write(chunk, 0, written);
+    }
+
+    crc.update(input, 0, length);
+    writeIntLittleEndian((int) crc.getValue());
+    writeIntLittleEndian(length);
+    return output;
+  }
+
+  /** Releases the native resources of the deflater. */
+  void close() {
+    deflater.end();
+  }
+
+  private void writeIntLittleEndian(int value) {
+    output.write(value & 0xff);
+    output.write((value >>> 8) & 0xff);
+    output.write((value >>> 16) & 0xff);
+    output.write((value >>> 24) & 0xff);
+  }
+}
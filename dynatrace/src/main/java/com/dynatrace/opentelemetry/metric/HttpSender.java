@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Transport used to post metric line payloads to the Dynatrace metrics ingest API. Implementations
+ * are expected to be thread-safe and to keep connections to the endpoint alive between requests.
+ *
+ * <p>By default, the exporter posts with {@link java.net.HttpURLConnection}. A custom
+ * implementation, e.g. one based on the HTTP client an application already uses, can be set with
+ * {@link DynatraceMetricExporter.Builder#setHttpSender}. It is responsible for the endpoint URL and
+ * for authenticating with an API token, and has to send the body with {@code Content-Type:
+ * text/plain; charset=utf-8}.
+ */
+public interface HttpSender {
+  /**
+   * Posts the first {@code length} bytes of {@code body} to the ingest endpoint in a new request.
+   * The returned response has to be closed by the caller.
+   *
+   * @param contentEncoding the encoding of the body, e.g. {@code gzip}, or null if it is not
+   *     encoded.
+   */
+  Response send(byte[] body, int length, String contentEncoding) throws IOException;
+
+  /** The response of the ingest endpoint. Closing it allows the connection to be reused. */
+  interface Response extends Closeable {
+    int getStatusCode();
+
+    /** The response body, or an empty stream if the server did not send one. */
+    InputStream getBody();
+
+    /** The value of the response header with the given name, or null if it was not sent. */
+    default String getHeader(String name) {
+      return null;
+    }
+  }
+}
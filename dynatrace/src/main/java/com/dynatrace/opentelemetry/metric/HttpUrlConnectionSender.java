@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * {@link HttpSender} based on {@link HttpURLConnection}. Every request gets its own connection
+ * object, but the underlying sockets (and TLS sessions) are pooled by the JDK keep-alive cache, as
+ * long as response bodies are fully read and connections are never explicitly disconnected.
+ */
+final class HttpUrlConnectionSender implements HttpSender {
+  private static final InputStream EMPTY_BODY = new ByteArrayInputStream(new byte[0]);
+
+  @FunctionalInterface
+  interface ConnectionFactory {
+    HttpURLConnection open(URL url) throws IOException;
+  }
+
+  private final URL url;
+  private final String apiToken;
+  private final ConnectionFactory connectionFactory;
+
+  HttpUrlConnectionSender(URL url, String apiToken) {
+    this(url, apiToken, u -> (HttpURLConnection) u.openConnection());
+  }
+
+  @VisibleForTesting
+  HttpUrlConnectionSender(URL url, String apiToken, ConnectionFactory connectionFactory) {
+    this.url = url;
+    this.apiToken = apiToken;
+    this.connectionFactory = connectionFactory;
+  }
+
+  @Override
+  public Response send(byte[] body, int length, String contentEncoding) throws IOException {
+    HttpURLConnection connection = connectionFactory.open(url);
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Accept", "*/*; q=0");
+    if (this.apiToken != null) {
+      connection.setRequestProperty("Authorization", "Api-Token " + apiToken);
+    }
+    connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+    if (contentEncoding != null) {
+      connection.setRequestProperty("Content-Encoding", contentEncoding);
+    }
+    connection.setRequestProperty("User-Agent", "opentelemetry-metric-java");
+    connection.setDoOutput(true);
+    // Without a streaming mode, HttpURLConnection would copy the whole body into its own buffer.
+    connection.setFixedLengthStreamingMode(length);
+    try (final OutputStream outputStream = connection.getOutputStream()) {
+      outputStream.write(body, 0, length);
+    }
+
+    int code = connection.getResponseCode();
+    InputStream responseBody =
+        code < 400 ? connection.getInputStream() : connection.getErrorStream();
+    return new ConnectionResponse(connection, code, responseBody);
+  }
+
+  private static final class ConnectionResponse implements Response {
+    private final HttpURLConnection connection;
+    private final int statusCode;
+    private final InputStream body;
+
+    private ConnectionResponse(HttpURLConnection connection, int statusCode, InputStream body) {
+      this.connection = connection;
+      this.statusCode = statusCode;
+      this.body = body != null ? body : EMPTY_BODY;
+    }
+
+    @Override
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    @Override
+    public InputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return connection.getHeaderField(name);
+    }
+
+    @Override
+    public void close() throws IOException {
+      // The JDK only returns the socket to the keep-alive cache once the body has been consumed.
+      try (InputStream in = body) {
+        byte[] discard = new byte[512];
+        while (in.read(discard) != -1) {
+          // drain
+        }
+      }
+    }
+  }
+}
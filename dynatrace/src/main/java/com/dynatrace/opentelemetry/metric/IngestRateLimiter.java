@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of ingest requests and of the lines they contain, so that exporters do not run
+ * into the rate limits of the Dynatrace API. Each limit is a token bucket that holds a single
+ * request's worth of tokens: instead of allowing bursts, requests are paced evenly. A request
+ * reserves its tokens up front, which may put the bucket in debt, e.g. for a partition with more
+ * lines than are allowed per second, and the following requests wait until the debt is paid off.
+ *
+ * <p>If adaptive, requests that were throttled with status code 429 pause all requests for the
+ * time given in the {@code Retry-After} header and halve the rates, down to a tenth of the
+ * configured rates. Every successful request then recovers a small part of the configured rates.
+ */
+final class IngestRateLimiter {
+  private static final double MIN_RATE_FACTOR = 0.1;
+  private static final double RATE_FACTOR_RECOVERY = 0.05;
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final double maxRequestsPerSecond;
+  private final double maxLinesPerSecond;
+  private final boolean adaptive;
+  private final long maxWaitNanos;
+  private final ExportRetry.Sleeper sleeper;
+  private final LongSupplier nanoTime;
+
+  // the fraction of the configured rates that is currently allowed, below 1 only if adaptive.
+  private double rateFactor = 1.0;
+  // the times at which the buckets hold enough tokens for the next request.
+  private long nextRequestNanos;
+  private long nextLinesNanos;
+
+  /**
+   * @param maxRequestsPerSecond the maximum rate of requests, or 0 if requests are not limited.
+   * @param maxLinesPerSecond the maximum rate of metric lines, or 0 if lines are not limited.
+   * @param adaptive whether throttled requests pause and slow down all following requests.
+   * @param maxWaitNanos the longest a request waits for its turn before it is given up on.
+   */
+  IngestRateLimiter(
+      double maxRequestsPerSecond, double maxLinesPerSecond, boolean adaptive, long maxWaitNanos) {
+    this(
+        maxRequestsPerSecond,
+        maxLinesPerSecond,
+        adaptive,
+        maxWaitNanos,
+        Thread::sleep,
+        System::nanoTime);
+  }
+
+  @VisibleForTesting
+  IngestRateLimiter(
+      double maxRequestsPerSecond,
+      double maxLinesPerSecond,
+      boolean adaptive,
+      long maxWaitNanos,
+      ExportRetry.Sleeper sleeper,
+      LongSupplier nanoTime) {
+    this.maxRequestsPerSecond = maxRequestsPerSecond;
+    this.maxLinesPerSecond = maxLinesPerSecond;
+    this.adaptive = adaptive;
+    this.maxWaitNanos = maxWaitNanos;
+    this.sleeper = sleeper;
+    this.nanoTime = nanoTime;
+    long now = nanoTime.getAsLong();
+    this.nextRequestNanos = now;
+    this.nextLinesNanos = now;
+  }
+
+  /**
+   * Waits until a request with the given number of lines may be sent.
+   *
+   * @return false if the request would have to wait longer than the maximum wait time, in which
+   *     case it must not be sent.
+   */
+  boolean acquire(int lineCount) throws InterruptedException {
+    long waitNanos = reserve(lineCount, nanoTime.getAsLong());
+    if (waitNanos < 0) {
+      return false;
+    }
+    if (waitNanos > 0) {
+      // round up, so that the request is never sent too early.
+      long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos + NANOS_PER_MILLI - 1);
+      sleeper.sleep(waitMillis);
+    }
+    return true;
+  }
+
+  /**
+   * Takes the tokens of a request from the buckets.
+   *
+   * @return the nanoseconds to wait before the request may be sent, or -1 if that is longer than
+   *     the maximum wait time, in which case no tokens are taken.
+   */
+  private synchronized long reserve(int lineCount, long now) {
+    long start = Math.max(now, Math.max(nextRequestNanos, nextLinesNanos));
+    if (start - now > maxWaitNanos) {
+      return -1;
+    }
+    if (maxRequestsPerSecond > 0) {
+      nextRequestNanos = start + nanosFor(1, maxRequestsPerSecond);
+    }
+    if (maxLinesPerSecond > 0) {
+      nextLinesNanos = start + nanosFor(lineCount, maxLinesPerSecond);
+    }
+    return start - now;
+  }
+
+  private long nanosFor(long tokens, double tokensPerSecond) {
+    return (long) (tokens * NANOS_PER_SECOND / (tokensPerSecond * rateFactor));
+  }
+
+  /** Records a successful request, which recovers some of the rate if adaptive. */
+  synchronized void onSuccess() {
+    if (adaptive && rateFactor < 1.0) {
+      rateFactor = Math.min(1.0, rateFactor + RATE_FACTOR_RECOVERY);
+    }
+  }
+
+  /**
+   * Records a request that was throttled by the Dynatrace API, which pauses and slows down the
+   * following requests if adaptive.
+   *
+   * @param retryAfterMillis the time to pause all requests, or -1 if no time was given.
+   */
+  synchronized void onThrottled(long retryAfterMillis) {
+    if (!adaptive) {
+      return;
+    }
+    rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+    if (retryAfterMillis > 0) {
+      long resume = nanoTime.getAsLong() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+      nextRequestNanos = Math.max(nextRequestNanos, resume);
+      nextLinesNanos = Math.max(nextLinesNanos, resume);
+    }
+  }
+
+  @VisibleForTesting
+  synchronized double getRateFactor() {
+    return rateFactor;
+  }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The body of a response of the metrics ingest API, e.g. <code>
+ * {"linesOk": 1, "linesInvalid": 1, "error": {"code": 400, "message": "1 invalid line",
+ * "invalidLines": [{"line": 2, "error": "invalid value"}]}}</code>.
+ *
+ * <p>{@link #parse} reads the body straight from the stream. Only the fields above are extracted,
+ * everything else is skipped without being copied, so parsing a successful response does not
+ * allocate anything but the result.
+ */
+final class IngestResponse {
+  /** The value of the counters if they are missing in the response. */
+  static final long UNKNOWN = -1;
+  // bounds the memory used for responses to large partitions that are mostly invalid.
+  static final int MAX_INVALID_LINES = 100;
+  // JSON does not limit nesting, but skipping deeply nested values must not overflow the stack.
+  private static final int MAX_DEPTH = 64;
+
+  /** An invalid line listed in the error of the response. */
+  static final class InvalidLine {
+    private final long line;
+    private final String error;
+
+    InvalidLine(long line, String error) {
+      this.line = line;
+      this.error = error;
+    }
+
+    /** The 1-based number of the line in the request, or {@link #UNKNOWN}. */
+    long getLine() {
+      return line;
+    }
+
+    String getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return "line " + line + ": " + error;
+    }
+  }
+
+  private final long linesOk;
+  private final long linesInvalid;
+  private final boolean hasError;
+  private final long errorCode;
+  private final String errorMessage;
+  private final List<InvalidLine> invalidLines;
+
+  private IngestResponse(
+      long linesOk,
+      long linesInvalid,
+      boolean hasError,
+      long errorCode,
+      String errorMessage,
+      List<InvalidLine> invalidLines) {
+    this.linesOk = linesOk;
+    this.linesInvalid = linesInvalid;
+    this.hasError = hasError;
+    this.errorCode = errorCode;
+    this.errorMessage = errorMessage;
+    this.invalidLines = invalidLines;
+  }
+
+  long getLinesOk() {
+    return linesOk;
+  }
+
+  long getLinesInvalid() {
+    return linesInvalid;
+  }
+
+  /** Whether both counters are present, i.e. the response is an ingest response at all. */
+  boolean hasLineCounts() {
+    return linesOk != UNKNOWN && linesInvalid != UNKNOWN;
+  }
+
+  /** Whether the error field is present and not null. */
+  boolean hasError() {
+    return hasError;
+  }
+
+  long getErrorCode() {
+    return errorCode;
+  }
+
+  /** The message of the error, or null if there is none. */
+  String getErrorMessage() {
+    return errorMessage;
+  }
+
+  /** The invalid lines listed in the error, at most {@link #MAX_INVALID_LINES} of them. */
+  List<InvalidLine> getInvalidLines() {
+    return invalidLines;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("linesOk: ").append(linesOk);
+    sb.append(", linesInvalid: ").append(linesInvalid);
+    if (hasError) {
+      sb.append(", error: ").append(errorCode).append(' ').append(errorMessage);
+      if (!invalidLines.isEmpty()) {
+        sb.append(", invalidLines: ").append(invalidLines);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Parses the response, reading the stream up to the end of the top-level object.
+   *
+   * @throws IOException if the stream cannot be read or does not contain a JSON object.
+   */
+  static IngestResponse parse(InputStream in) throws IOException {
+    return new Parser(in).parseResponse();
+  }
+
+  /** A minimal pull parser for the subset of JSON that needs to be understood. */
+  private static final class Parser {
+    private final InputStream in;
+    private final byte[] buffer = new byte[256];
+    private int position;
+    private int limit;
+    // reused for all keys and extracted strings.
+    private final StringBuilder chars = new StringBuilder();
+
+    private Parser(InputStream in) {
+      this.in = in;
+    }
+
+    IngestResponse parseResponse() throws IOException {
+      long linesOk = UNKNOWN;
+      long linesInvalid = UNKNOWN;
+      boolean hasError = false;
+      long errorCode = UNKNOWN;
+      String errorMessage = null;
+      List<InvalidLine> invalidLines = Collections.emptyList();
+
+      expect('{');
+      if (!consumeIf('}')) {
+        do {
+          readKey();
+          if (keyIs("linesOk")) {
+            linesOk = readLong();
+          } else if (keyIs("linesInvalid")) {
+            linesInvalid = readLong();
+          } else if (keyIs("error") && peek() != 'n') {
+            hasError = true;
+            if (!consumeIf('{')) {
+              skipValue(0);
+            } else if (!consumeIf('}')) {
+              do {
+                readKey();
+                if (keyIs("code")) {
+                  errorCode = readLong();
+                } else if (keyIs("message") && peek() == '"') {
+                  errorMessage = readString();
+                } else if (keyIs("invalidLines") && peek() == '[') {
+                  invalidLines = readInvalidLines();
+                } else {
+                  skipValue(1);
+                }
+              } while (consumeSeparator('}'));
+            }
+          } else {
+            // also skips "error": null.
+            skipValue(0);
+          }
+        } while (consumeSeparator('}'));
+      }
+      return new IngestResponse(
+          linesOk, linesInvalid, hasError, errorCode, errorMessage, invalidLines);
+    }
+
+    private List<InvalidLine> readInvalidLines() throws IOException {
+      List<InvalidLine> invalidLines = new ArrayList<>();
+      expect('[');
+      if (consumeIf(']')) {
+        return invalidLines;
+      }
+      do {
+        if (peek() != '{' || invalidLines.size() >= MAX_INVALID_LINES) {
+          skipValue(2);
+          continue;
+        }
+        long line = UNKNOWN;
+        String error = null;
+        expect('{');
+        if (!consumeIf('}')) {
+          do {
+            readKey();
+            if (keyIs("line")) {
+              line = readLong();
+            } else if (keyIs("error") && peek() == '"') {
+              error = readString();
+            } else {
+              skipValue(3);
+            }
+          } while (consumeSeparator('}'));
+        }
+        invalidLines.add(new InvalidLine(line, error));
+      } while (consumeSeparator(']'));
+      return invalidLines;
+    }
+
+    /** Reads a key and the following colon, the key is left in {@link #chars}. */
+    private void readKey() throws IOException {
+      expect('"');
+      chars.setLength(0);
+      readStringContent(chars);
+      expect(':');
+    }
+
+    private boolean keyIs(String key) {
+      return key.contentEquals(chars);
+    }
+
+    private String readString() throws IOException {
+      expect('"');
+      chars.setLength(0);
+      readStringContent(chars);
+      return chars.toString();
+    }
+
+    /** Reads up to and including the closing quote, appending the content to out if not null. */
+    private void readStringContent(StringBuilder out) throws IOException {
+      while (true) {
+        int b = readByte();
+        if (b == '"') {
+          return;
+        }
+        if (b == '\\') {
+          char c = unescape(readByte());
+          if (out != null) {
+            out.append(c);
+          }
+        } else if (b < 0x80) {
+          if (b < 0x20) {
+            throw malformed("control character in string");
+          }
+          if (out != null) {
+            out.append((char) b);
+          }
+        } else {
+          int codePoint = readUtf8(b);
+          if (out != null) {
+            out.appendCodePoint(codePoint);
+          }
+        }
+      }
+    }
+
+    private char unescape(int b) throws IOException {
+      switch (b) {
+        case '"':
+        case '\\':
+        case '/':
+          return (char) b;
+        case 'b':
+          return '\b';
+        case 'f':
+          return '\f';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 't':
+          return '\t';
+        case 'u':
+          int c = 0;
+          for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(readByte(), 16);
+            if (digit < 0) {
+              throw malformed("invalid unicode escape");
+            }
+            c = (c << 4) | digit;
+          }
+          // surrogate pairs are appended as two chars, which yields the right code point.
+          return (char) c;
+        default:
+          throw malformed("invalid escape sequence");
+      }
+    }
+
+    /** Decodes the rest of a multi-byte UTF-8 sequence, replacing invalid ones with U+FFFD. */
+    private int readUtf8(int first) throws IOException {
+      int remaining;
+      int codePoint;
+      if ((first & 0xE0) == 0xC0) {
+        remaining = 1;
+        codePoint = first & 0x1F;
+      } else if ((first & 0xF0) == 0xE0) {
+        remaining = 2;
+        codePoint = first & 0x0F;
+      } else if ((first & 0xF8) == 0xF0) {
+        remaining = 3;
+        codePoint = first & 0x07;
+      } else {
+        return 0xFFFD;
+      }
+      for (int i = 0; i < remaining; i++) {
+        int next = peekByte();
+        if ((next & 0xC0) != 0x80) {
+          return 0xFFFD;
+        }
+        position++;
+        codePoint = (codePoint << 6) | (next & 0x3F);
+      }
+      return Character.isValidCodePoint(codePoint) ? codePoint : 0xFFFD;
+    }
+
+    /** Reads an integer, or skips the value and returns {@link #UNKNOWN} if it is none. */
+    private long readLong() throws IOException {
+      int b = peek();
+      if (b != '-' && (b < '0' || b > '9')) {
+        skipValue(0);
+        return UNKNOWN;
+      }
+      boolean negative = b == '-';
+      if (negative) {
+        position++;
+      }
+      long value = 0;
+      int digits = 0;
+      while (true) {
+        b = peekByte();
+        if (b < '0' || b > '9') {
+          break;
+        }
+        position++;
+        if (++digits > 18) {
+          throw malformed("number out of range");
+        }
+        value = value * 10 + (b - '0');
+      }
+      if (digits == 0) {
+        throw malformed("invalid number");
+      }
+      if (b == '.' || b == 'e' || b == 'E') {
+        // not an integer, ignore the fraction and exponent.
+        skipNumberRest();
+        return UNKNOWN;
+      }
+      return negative ? -value : value;
+    }
+
+    private void skipValue(int depth) throws IOException {
+      if (depth > MAX_DEPTH) {
+        throw malformed("nested too deeply");
+      }
+      int b = peek();
+      switch (b) {
+        case '{':
+          position++;
+          if (!consumeIf('}')) {
+            do {
+              expect('"');
+              readStringContent(null);
+              expect(':');
+              skipValue(depth + 1);
+            } while (consumeSeparator('}'));
+          }
+          return;
+        case '[':
+          position++;
+          if (!consumeIf(']')) {
+            do {
+              skipValue(depth + 1);
+            } while (consumeSeparator(']'));
+          }
+          return;
+        case '"':
+          position++;
+          readStringContent(null);
+          return;
+        case 't':
+          expectLiteral("true");
+          return;
+        case 'f':
+          expectLiteral("false");
+          return;
+        case 'n':
+          expectLiteral("null");
+          return;
+        default:
+          if (b == '-' || (b >= '0' && b <= '9')) {
+            position++;
+            skipNumberRest();
+            return;
+          }
+          throw malformed("unexpected character");
+      }
+    }
+
+    private void skipNumberRest() throws IOException {
+      while (true) {
+        int b = peekByte();
+        if ((b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+          position++;
+        } else {
+          return;
+        }
+      }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+      for (int i = 0; i < literal.length(); i++) {
+        if (readByte() != literal.charAt(i)) {
+          throw malformed("invalid literal");
+        }
+      }
+    }
+
+    /**
+     * Consumes the comma between two members or elements, or the closing bracket.
+     *
+     * @return true if another member or element follows.
+     */
+    private boolean consumeSeparator(char close) throws IOException {
+      int b = peek();
+      position++;
+      if (b == ',') {
+        return true;
+      }
+      if (b == close) {
+        return false;
+      }
+      throw malformed("expected ',' or '" + close + "'");
+    }
+
+    private void expect(char expected) throws IOException {
+      if (peek() != expected) {
+        throw malformed("expected '" + expected + "'");
+      }
+      position++;
+    }
+
+    private boolean consumeIf(char expected) throws IOException {
+      if (peek() == expected) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    /** Returns the next byte that is not whitespace without consuming it. */
+    private int peek() throws IOException {
+      while (true) {
+        int b = peekByte();
+        if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+          return b;
+        }
+        position++;
+      }
+    }
+
+    /** Returns the next byte without consuming it, or -1 at the end of the stream. */
+    private int peekByte() throws IOException {
+      if (position == limit) {
+        limit = in.read(buffer);
+        position = 0;
+        if (limit <= 0) {
+          limit = 0;
+          return -1;
+        }
+      }
+      return buffer[position] & 0xFF;
+    }
+
+    private int readByte() throws IOException {
+      int b = peekByte();
+      if (b < 0) {
+        throw malformed("unexpected end of response");
+      }
+      position++;
+      return b;
+    }
+
+    private IOException malformed(String reason) {
+      return new IOException("Malformed ingest response: " + reason);
+    }
+  }
+}
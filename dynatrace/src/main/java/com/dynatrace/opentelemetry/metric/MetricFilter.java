@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.dynatrace.metric.util.Dimension;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drops metrics by name and drops, renames and truncates dimensions before any line is created.
+ * Metrics are matched against name prefixes compiled into {@link PrefixTrie}s, and the result is
+ * kept per name. Dimensions are transformed by the {@link Serializer}, which keeps the result per
+ * {@link io.opentelemetry.api.common.Attributes} instance, so each is only transformed once.
+ */
+final class MetricFilter {
+  private static final int MAX_CACHED_NAMES = 1_000;
+
+  // null if all metrics are allowed.
+  private final PrefixTrie allowed;
+  // null if no metric is denied.
+  private final PrefixTrie denied;
+  private final Set<String> droppedDimensions;
+  private final Map<String, String> renamedDimensions;
+  private final int maxDimensionValueLength;
+  private final Cache<String, Boolean> exportedNames =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_NAMES).build();
+
+  /**
+   * @param allowedPrefixes the metric name prefixes to export, or null to export all metrics.
+   * @param deniedPrefixes the metric name prefixes to drop, even if they are allowed.
+   * @param droppedDimensions the keys of the dimensions to drop.
+   * @param renamedDimensions the new keys of dimensions, by their original key.
+   * @param maxDimensionValueLength the length dimension values are truncated to.
+   */
+  MetricFilter(
+      Collection<String> allowedPrefixes,
+      Collection<String> deniedPrefixes,
+      Collection<String> droppedDimensions,
+      Map<String, String> renamedDimensions,
+      int maxDimensionValueLength) {
+    this.allowed = allowedPrefixes != null ? PrefixTrie.compile(allowedPrefixes) : null;
+    this.denied = !deniedPrefixes.isEmpty() ? PrefixTrie.compile(deniedPrefixes) : null;
+    this.droppedDimensions = new HashSet<>(droppedDimensions);
+    this.renamedDimensions = new HashMap<>(renamedDimensions);
+    this.maxDimensionValueLength = maxDimensionValueLength;
+  }
+
+  /** Whether lines are created for the metric with the name. */
+  boolean isExported(String metricName) {
+    Boolean exported = exportedNames.getIfPresent(metricName);
+    if (exported == null) {
+      exported =
+          (allowed == null || allowed.matches(metricName))
+              && (denied == null || !denied.matches(metricName));
+      exportedNames.put(metricName, exported);
+    }
+    return exported;
+  }
+
+  /** Returns the metrics that are exported, which are the given ones if none is dropped. */
+  Collection<MetricData> filterMetrics(Collection<MetricData> metrics) {
+    List<MetricData> exported = new ArrayList<>(metrics.size());
+    for (MetricData metric : metrics) {
+      if (isExported(metric.getName())) {
+        exported.add(metric);
+      }
+    }
+    return exported.size() == metrics.size() ? metrics : exported;
+  }
+
+  /** Whether {@link #transformDimensions} changes any dimensions at all. */
+  boolean transformsDimensions() {
+    return !droppedDimensions.isEmpty()
+        || !renamedDimensions.isEmpty()
+        || maxDimensionValueLength < Integer.MAX_VALUE;
+  }
+
+  /** Drops, renames and truncates the dimensions of a data point. */
+  List<Dimension> transformDimensions(List<Dimension> dimensions) {
+    if (dimensions.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Dimension> transformed = new ArrayList<>(dimensions.size());
+    for (Dimension dimension : dimensions) {
+      String key = dimension.getKey();
+      if (droppedDimensions.contains(key)) {
+        continue;
+      }
+      String renamed = renamedDimensions.get(key);
+      String value = truncate(dimension.getValue());
+      if (renamed == null && value == dimension.getValue()) {
+        transformed.add(dimension);
+      } else {
+        transformed.add(Dimension.create(renamed != null ? renamed : key, value));
+      }
+    }
+    return transformed;
+  }
+
+  private String truncate(String value) {
+    if (value.length() <= maxDimensionValueLength) {
+      return value;
+    }
+    int end = maxDimensionValueLength;
+    // do not split a surrogate pair.
+    if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1))) {
+      end--;
+    }
+    return value.substring(0, end);
+  }
+}
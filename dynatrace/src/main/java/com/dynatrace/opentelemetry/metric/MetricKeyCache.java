@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import com.dynatrace.metric.util.MetricException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.logging.Logger;
+
+/**
+ * Resolves instrument names to the prefixed and normalized metric keys that end up in the metric
+ * lines. Keys are resolved once per instrument name and then reused across export cycles.
+ *
+ * <p>The cached keys are used to check metric names once per metric, to look up series and to
+ * write lines on the fast path of {@link Serializer}. Lines created by {@link
+ * com.dynatrace.metric.util.Metric.Builder} are not affected: the builder only takes the
+ * instrument name and normalizes it again for every line it serializes.
+ */
+final class MetricKeyCache {
+  private static final Logger logger = Logger.getLogger(MetricKeyCache.class.getName());
+  private static final int MAX_SIZE = 1_000;
+  // marks names that cannot be turned into a valid metric key, as the cache cannot hold null.
+  private static final String INVALID_KEY = "";
+
+  private final MetricBuilderFactory builderFactory;
+  private final Cache<String, String> keys =
+      CacheBuilder.newBuilder().maximumSize(MAX_SIZE).recordStats().build();
+
+  MetricKeyCache(MetricBuilderFactory builderFactory) {
+    this.builderFactory = builderFactory;
+  }
+
+  /**
+   * Returns the normalized metric key for the instrument name, including the configured prefix, or
+   * null if the name cannot be normalized to a valid metric key.
+   */
+  String getMetricKey(String instrumentName) {
+    String key = keys.getIfPresent(instrumentName);
+    if (key == null) {
+      key = resolve(instrumentName);
+      keys.put(instrumentName, key);
+    }
+    return key.isEmpty() ? null : key;
+  }
+
+  /** Hit and miss counts of the cache. */
+  CacheStats stats() {
+    return keys.stats();
+  }
+
+  private String resolve(String instrumentName) {
+    // The metric key is not exposed by the builder, so serialize a probe line and take everything
+    // up to the first dimension or the value. Normalized keys contain neither commas nor spaces.
+    String probe;
+    try {
+      probe = builderFactory.newMetricBuilder(instrumentName).setLongGaugeValue(0).serialize();
+    } catch (MetricException e) {
+      logger.warning(
+          () ->
+              String.format(
+                  "Could not create a metric key for instrument %s (%s).",
+                  instrumentName, e.getMessage()));
+      return INVALID_KEY;
+    }
+    int end = 0;
+    while (end < probe.length() && probe.charAt(end) != ',' && probe.charAt(end) != ' ') {
+      end++;
+    }
+    return probe.substring(0, end);
+  }
+}
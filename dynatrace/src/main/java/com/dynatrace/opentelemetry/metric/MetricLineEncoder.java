@@ -0,0 +1,266 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.dynatrace.metric.util.Metric;
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import com.dynatrace.metric.util.MetricException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Writes metric lines straight into a reusable byte array, without going through {@link
+ * com.dynatrace.metric.util.Metric.Builder}. The metric key and the serialized dimensions are
+ * produced by the builder once per metric and series and only the values and the timestamp are
+ * formatted here, so the resulting lines are identical to those of the builder.
+ *
+ * <p>Only values whose formatting is known to match the builder are encoded. For all other values,
+ * the {@code can*} methods return false and the builder has to be used instead. Instances are not
+ * thread-safe.
+ */
+final class MetricLineEncoder {
+  private static final Logger logger = Logger.getLogger(MetricLineEncoder.class.getName());
+
+  static final byte[] GAUGE = ascii(" gauge,");
+  static final byte[] COUNT_DELTA = ascii(" count,delta=");
+  private static final byte[] SUMMARY_MIN = ascii(" gauge,min=");
+  private static final byte[] SUMMARY_MAX = ascii(",max=");
+  private static final byte[] SUMMARY_SUM = ascii(",sum=");
+  private static final byte[] SUMMARY_COUNT = ascii(",count=");
+
+  // Double.toString only produces plain decimal notation in this range. Values outside of it use
+  // the scientific notation, which is left to the builder.
+  private static final double MIN_PLAIN_DOUBLE = 1e-3;
+  private static final double MAX_PLAIN_DOUBLE = 1e7;
+  // 2000-01-01 and 3000-01-01, timestamps outside of this range are left to the builder.
+  private static final long MIN_TIMESTAMP_MILLIS = 946_684_800_000L;
+  private static final long MAX_TIMESTAMP_MILLIS = 32_503_680_000_000L;
+
+  private final byte[] metricKey;
+  private byte[] buffer = new byte[256];
+  private int position = 0;
+
+  MetricLineEncoder(String metricKey) {
+    this.metricKey = metricKey.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Whether the formatting of this encoder matches the {@link MetricBuilderFactory} builders of
+   * the dynatrace-metric-utils version on the class path. Checked once, on first use.
+   */
+  static boolean isSupported() {
+    return FormatCheck.MATCHES_BUILDER;
+  }
+
+  static boolean canEncodeDouble(double value) {
+    if (Double.doubleToRawLongBits(value) == 0L) {
+      // positive zero, negative zero is left to the builder.
+      return true;
+    }
+    double abs = Math.abs(value);
+    return abs >= MIN_PLAIN_DOUBLE && abs < MAX_PLAIN_DOUBLE;
+  }
+
+  static boolean canEncodeTimestamp(long epochNanos) {
+    if (epochNanos <= 0) {
+      // no timestamp is written, the server uses the time of ingest.
+      return true;
+    }
+    long millis = TimeUnit.NANOSECONDS.toMillis(epochNanos);
+    return millis >= MIN_TIMESTAMP_MILLIS && millis < MAX_TIMESTAMP_MILLIS;
+  }
+
+  /** Starts a new line with the metric key and the given serialized dimensions. */
+  MetricLineEncoder beginLine(byte[] dimensions) {
+    position = 0;
+    append(metricKey);
+    append(dimensions);
+    return this;
+  }
+
+  MetricLineEncoder summary(double min, double max, double sum, long count) {
+    append(SUMMARY_MIN);
+    appendDouble(min);
+    append(SUMMARY_MAX);
+    appendDouble(max);
+    append(SUMMARY_SUM);
+    appendDouble(sum);
+    append(SUMMARY_COUNT);
+    appendLong(count);
+    return this;
+  }
+
+  MetricLineEncoder append(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+    return this;
+  }
+
+  MetricLineEncoder appendLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      // cannot be negated.
+      return appendAscii(Long.toString(value));
+    }
+    ensureCapacity(20);
+    if (value < 0) {
+      buffer[position++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+      digits++;
+    }
+    int index = position + digits;
+    do {
+      buffer[--index] = (byte) ('0' + (value % 10));
+      value /= 10;
+    } while (value > 0);
+    position += digits;
+    return this;
+  }
+
+  /**
+   * Only valid for values where {@link #canEncodeDouble} returns true. Integral values are written
+   * digit by digit, other values are formatted with {@link Double#toString(double)}, which creates
+   * a short-lived string per value. Writing their shortest representation directly would have to
+   * reproduce the exact digits of {@code Double.toString}, which differ between JDK versions.
+   */
+  MetricLineEncoder appendDouble(double value) {
+    long integral = (long) value;
+    if (integral == value) {
+      // plain range only, so the value always fits into a long and Double.toString ends in ".0".
+      appendLong(integral);
+      ensureCapacity(2);
+      buffer[position++] = '.';
+      buffer[position++] = '0';
+      return this;
+    }
+    return appendAscii(Double.toString(value));
+  }
+
+  /** Appends the timestamp in milliseconds, or nothing if the point has no timestamp. */
+  MetricLineEncoder appendTimestamp(long epochNanos) {
+    if (epochNanos > 0) {
+      ensureCapacity(1);
+      buffer[position++] = ' ';
+      appendLong(TimeUnit.NANOSECONDS.toMillis(epochNanos));
+    }
+    return this;
+  }
+
+  void writeTo(MetricLineSink sink) {
+    sink.accept(buffer, 0, position);
+  }
+
+  private MetricLineEncoder appendAscii(String value) {
+    int length = value.length();
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      buffer[position++] = (byte) value.charAt(i);
+    }
+    return this;
+  }
+
+  private void ensureCapacity(int additional) {
+    if (position + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+    }
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /** Compares the output of the encoder with the builder for values of every supported kind. */
+  private static final class FormatCheck {
+    private static final String KEY = "probe";
+    private static final double[] DOUBLES = {
+      0.0, 1.0, -1.0, 194.0, 123.7, -3.25, 0.001, 0.0025, 0.1234567, 100.0 / 3, 1.0 / 3, 9999999.5,
+      1234567.891, 9999999.0, -4096.0
+    };
+    private static final long[] LONGS = {0, 1, -1, 42, -123456789, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    static final boolean MATCHES_BUILDER = check();
+
+    private static boolean check() {
+      MetricBuilderFactory factory = MetricBuilderFactory.builder().build();
+      try {
+        for (double value : DOUBLES) {
+          if (!matches(
+              factory.newMetricBuilder(KEY).setDoubleGaugeValue(value),
+              probe().append(GAUGE).appendDouble(value))) {
+            return mismatch("double gauge " + value);
+          }
+          if (value >= 0
+              && !matches(
+                  factory.newMetricBuilder(KEY).setDoubleCounterValueDelta(value),
+                  probe().append(COUNT_DELTA).appendDouble(value))) {
+            return mismatch("double counter " + value);
+          }
+        }
+        for (long value : LONGS) {
+          if (!matches(
+              factory.newMetricBuilder(KEY).setLongGaugeValue(value),
+              probe().append(GAUGE).appendLong(value))) {
+            return mismatch("long gauge " + value);
+          }
+          if (value >= 0
+              && !matches(
+                  factory.newMetricBuilder(KEY).setLongCounterValueDelta(value),
+                  probe().append(COUNT_DELTA).appendLong(value))) {
+            return mismatch("long counter " + value);
+          }
+        }
+        long timestamp = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        if (!matches(
+            factory
+                .newMetricBuilder(KEY)
+                .setDoubleSummaryValue(0.25, 123.7, 250.5, 7)
+                .setTimestamp(Instant.ofEpochMilli(TimeUnit.NANOSECONDS.toMillis(timestamp))),
+            probe().summary(0.25, 123.7, 250.5, 7).appendTimestamp(timestamp))) {
+          return mismatch("summary");
+        }
+      } catch (MetricException e) {
+        return mismatch(e.getMessage());
+      }
+      return true;
+    }
+
+    private static MetricLineEncoder probe() {
+      return new MetricLineEncoder(KEY).beginLine(new byte[0]);
+    }
+
+    private static boolean matches(Metric.Builder builder, MetricLineEncoder encoder)
+        throws MetricException {
+      return builder
+          .serialize()
+          .equals(new String(encoder.buffer, 0, encoder.position, StandardCharsets.UTF_8));
+    }
+
+    private static boolean mismatch(String what) {
+      logger.info(
+          () ->
+              String.format(
+                  "Fast path serialization is disabled, as its output does not match the metric"
+                      + " builder (%s).",
+                  what));
+      return false;
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.util.logging.Logger;
+
+/**
+ * Encodes metric lines as UTF-8 into a reusable request body and hands the body off as soon as the
+ * line limit or the byte limit is reached, whichever comes first. Only one partition is held in
+ * memory at a time, no matter how many lines are exported.
+ */
+final class MetricLinePartitioner implements MetricLineSink {
+  private static final Logger logger = Logger.getLogger(MetricLinePartitioner.class.getName());
+  private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+  @FunctionalInterface
+  interface PartitionHandler {
+    /**
+     * Called with every completed partition. The body is reused for the next partition once this
+     * method returns.
+     *
+     * @return false if the export failed and no further partitions should be sent.
+     */
+    boolean handle(PayloadBuffer body, int lineCount);
+  }
+
+  private final PayloadBuffer body;
+  private final int linesLimit;
+  private final int maxBytes;
+  private final PartitionHandler handler;
+  private final UnchangedGaugeFilter.RememberedPoints rememberedGauges;
+
+  private int lineCount = 0;
+  private boolean failed = false;
+  // across all partitions.
+  private long totalLines = 0;
+  private long droppedLines = 0;
+
+  /**
+   * @param linesLimit the maximum number of lines per partition.
+   * @param maxBytes the maximum size of a partition in bytes, including line separators.
+   * @param handler receives every completed partition.
+   */
+  MetricLinePartitioner(int linesLimit, int maxBytes, PartitionHandler handler) {
+    this(linesLimit, maxBytes, handler, null);
+  }
+
+  /**
+   * @param rememberedGauges collects the points whose values the {@link UnchangedGaugeFilter}
+   *     remembered, or null if they are not needed.
+   */
+  MetricLinePartitioner(
+      int linesLimit,
+      int maxBytes,
+      PartitionHandler handler,
+      UnchangedGaugeFilter.RememberedPoints rememberedGauges) {
+    this.body = new PayloadBuffer(Math.min(INITIAL_BUFFER_SIZE, maxBytes));
+    this.linesLimit = linesLimit;
+    this.maxBytes = maxBytes;
+    this.handler = handler;
+    this.rememberedGauges = rememberedGauges;
+  }
+
+  @Override
+  public void accept(String line) {
+    if (!prepareLine(utf8Length(line))) {
+      return;
+    }
+    writeUtf8(line, body);
+    completeLine();
+  }
+
+  @Override
+  public void accept(byte[] line, int offset, int length) {
+    if (!prepareLine(length)) {
+      return;
+    }
+    body.write(line, offset, length);
+    completeLine();
+  }
+
+  /**
+   * Makes room for a line of the given size, starting a new partition if necessary.
+   *
+   * @return false if the line must not be written.
+   */
+  private boolean prepareLine(int encodedLength) {
+    if (failed) {
+      return false;
+    }
+    if (encodedLength > maxBytes) {
+      droppedLines++;
+      // this line would be rejected by the server anyway, and would fail the whole request.
+      logger.warning(
+          () ->
+              String.format(
+                  "Dropping metric line of %d bytes, which exceeds the payload limit of %d bytes.",
+                  encodedLength, maxBytes));
+      return false;
+    }
+    if (lineCount > 0 && body.size() + 1 + encodedLength > maxBytes) {
+      // the line does not fit into the current partition anymore, so start a new one.
+      if (!flush()) {
+        return false;
+      }
+    }
+
+    if (lineCount > 0) {
+      body.write('\n');
+    }
+    return true;
+  }
+
+  private void completeLine() {
+    lineCount++;
+    totalLines++;
+
+    if (lineCount >= linesLimit) {
+      flush();
+    }
+  }
+
+  /**
+   * Hands off the lines collected so far, if there are any.
+   *
+   * @return false if this or any earlier partition could not be exported.
+   */
+  boolean flush() {
+    if (failed || lineCount == 0) {
+      return !failed;
+    }
+    failed = !handler.handle(body, lineCount);
+    body.reset();
+    lineCount = 0;
+    return !failed;
+  }
+
+  @Override
+  public void lineDropped() {
+    droppedLines++;
+  }
+
+  @Override
+  public void gaugeRemembered(long fingerprint, long epochNanos) {
+    if (rememberedGauges != null) {
+      rememberedGauges.add(fingerprint, epochNanos);
+    }
+  }
+
+  boolean hasFailed() {
+    return failed;
+  }
+
+  /** The number of lines written to all partitions so far. */
+  long getTotalLines() {
+    return totalLines;
+  }
+
+  /** The number of lines dropped so far, by the serializer or because they were too long. */
+  long getDroppedLines() {
+    return droppedLines;
+  }
+
+  /** The number of bytes {@link #writeUtf8} will write for the line. */
+  static int utf8Length(String line) {
+    int length = line.length();
+    int encodedLength = length;
+    for (int i = 0; i < length; i++) {
+      char c = line.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          encodedLength += 1;
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < length
+            && Character.isLowSurrogate(line.charAt(i + 1))) {
+          // a surrogate pair (two chars) is encoded as four bytes.
+          encodedLength += 2;
+          i++;
+        } else if (Character.isSurrogate(c)) {
+          // unpaired surrogates are replaced by '?', like String.getBytes does.
+        } else {
+          encodedLength += 2;
+        }
+      }
+    }
+    return encodedLength;
+  }
+
+  /** Encodes the line into the buffer, without creating an intermediate byte array. */
+  static void writeUtf8(String line, PayloadBuffer body) {
+    int length = line.length();
+    for (int i = 0; i < length; i++) {
+      char c = line.charAt(i);
+      if (c < 0x80) {
+        body.write(c);
+      } else if (c < 0x800) {
+        body.write(0xc0 | (c >> 6));
+        body.write(0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < length
+          && Character.isLowSurrogate(line.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, line.charAt(++i));
+        body.write(0xf0 | (codePoint >> 18));
+        body.write(0x80 | ((codePoint >> 12) & 0x3f));
+        body.write(0x80 | ((codePoint >> 6) & 0x3f));
+        body.write(0x80 | (codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        body.write('?');
+      } else {
+        body.write(0xe0 | (c >> 12));
+        body.write(0x80 | ((c >> 6) & 0x3f));
+        body.write(0x80 | (c & 0x3f));
+      }
+    }
+  }
+}
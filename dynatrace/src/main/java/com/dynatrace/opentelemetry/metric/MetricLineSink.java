@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.nio.charset.StandardCharsets;
+
+/** Receives metric lines from the {@link Serializer} as soon as they are created. */
+@FunctionalInterface
+interface MetricLineSink {
+  void accept(String line);
+
+  /**
+   * Receives a line that is already encoded as UTF-8. The bytes are only valid for the duration of
+   * the call. Sinks that write bytes anyway should override this to avoid decoding the line.
+   */
+  default void accept(byte[] line, int offset, int length) {
+    accept(new String(line, offset, length, StandardCharsets.UTF_8));
+  }
+
+  /** Called for every point no line could be created for, e.g. because its value is invalid. */
+  default void lineDropped() {}
+
+  /**
+   * Called for every point whose value the {@link UnchangedGaugeFilter} remembered as exported,
+   * before its line is created. Sinks that know whether their lines are sent keep the points, so
+   * that they can be forgotten if they are not.
+   */
+  default void gaugeRemembered(long fingerprint, long epochNanos) {}
+}
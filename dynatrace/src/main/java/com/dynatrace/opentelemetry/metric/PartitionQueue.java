@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Buffers serialized partitions between the threads that export metrics and the threads that send
+ * them, bounded by the total size of the bodies and the total number of lines. When the queue is
+ * full, the {@link QueueOverflowPolicy} decides which partitions are dropped. The result of a
+ * dropped partition is failed.
+ */
+final class PartitionQueue {
+  private static final Logger logger = Logger.getLogger(PartitionQueue.class.getName());
+
+  /** A partition waiting to be sent. */
+  static final class Entry {
+    final byte[] body;
+    final int lineCount;
+    final CompletableResultCode result;
+
+    Entry(byte[] body, int lineCount, CompletableResultCode result) {
+      this.body = body;
+      this.lineCount = lineCount;
+      this.result = result;
+    }
+  }
+
+  private final long maxBytes;
+  private final long maxLines;
+  private final QueueOverflowPolicy overflowPolicy;
+  private final long blockTimeoutNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+  // all guarded by lock.
+  private long queuedBytes = 0;
+  private long queuedLines = 0;
+  private long enqueuedLines = 0;
+  private long droppedLines = 0;
+  private long sentLines = 0;
+  private long failedLines = 0;
+  private boolean closed = false;
+
+  PartitionQueue(
+      long maxBytes, long maxLines, QueueOverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+    this.maxBytes = maxBytes;
+    this.maxLines = maxLines;
+    this.overflowPolicy = overflowPolicy;
+    this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+  }
+
+  /**
+   * Adds the partition to the queue. The body is not copied, so it must not be changed afterwards.
+   *
+   * @return false if the partition was dropped.
+   */
+  boolean offer(Entry entry) throws InterruptedException {
+    if (entry.body.length > maxBytes || entry.lineCount > maxLines) {
+      // would never fit, no matter how many partitions are dropped.
+      drop(entry, "it exceeds the capacity of the queue");
+      return false;
+    }
+
+    List<Entry> evicted = new ArrayList<>(0);
+    String dropReason;
+    lock.lockInterruptibly();
+    try {
+      dropReason = enqueueLocked(entry, evicted);
+      if (dropReason != null) {
+        droppedLines += entry.lineCount;
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (Entry oldest : evicted) {
+      failDropped(oldest, "the queue is full");
+    }
+    if (dropReason != null) {
+      failDropped(entry, dropReason);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Adds the partition unless the overflow policy drops it. The results of dropped partitions are
+   * left to the caller, to be failed once the lock is released.
+   *
+   * @param evicted receives the queued partitions dropped to make room for this one, which are
+   *     already counted as dropped.
+   * @return why the partition was dropped, or null if it was queued.
+   */
+  private String enqueueLocked(Entry entry, List<Entry> evicted) throws InterruptedException {
+    if (closed) {
+      return "the exporter has been shut down";
+    }
+    switch (overflowPolicy) {
+      case DROP_OLDEST:
+        while (!fits(entry)) {
+          Entry oldest = entries.pollFirst();
+          dequeued(oldest);
+          droppedLines += oldest.lineCount;
+          evicted.add(oldest);
+        }
+        break;
+      case DROP_NEWEST:
+        if (!fits(entry)) {
+          return "the queue is full";
+        }
+        break;
+      case BLOCK:
+        long remainingNanos = blockTimeoutNanos;
+        while (!fits(entry) && !closed) {
+          if (remainingNanos <= 0) {
+            return "the queue stayed full for the whole block timeout";
+          }
+          remainingNanos = notFull.awaitNanos(remainingNanos);
+        }
+        if (closed) {
+          return "the exporter has been shut down";
+        }
+        break;
+    }
+
+    entries.addLast(entry);
+    queuedBytes += entry.body.length;
+    queuedLines += entry.lineCount;
+    enqueuedLines += entry.lineCount;
+    notEmpty.signal();
+    return null;
+  }
+
+  /**
+   * Takes the oldest partition from the queue, waiting for one to arrive if necessary.
+   *
+   * @return null if the queue has been closed and is empty.
+   */
+  Entry take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (entries.isEmpty()) {
+        if (closed) {
+          return null;
+        }
+        notEmpty.await();
+      }
+      Entry entry = entries.pollFirst();
+      dequeued(entry);
+      return entry;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Records the outcome of sending a partition taken from the queue and completes its result. */
+  void completed(Entry entry, boolean sent) {
+    lock.lock();
+    try {
+      if (sent) {
+        sentLines += entry.lineCount;
+      } else {
+        failedLines += entry.lineCount;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (sent) {
+      entry.result.succeed();
+    } else {
+      entry.result.fail();
+    }
+  }
+
+  boolean isEmpty() {
+    lock.lock();
+    try {
+      return entries.isEmpty();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops accepting new partitions. Partitions that are already queued can still be taken, and
+   * {@link #take()} returns null once all of them are gone.
+   */
+  void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Fails all partitions that are still queued. */
+  void failRemaining() {
+    List<Entry> remaining = new ArrayList<>();
+    lock.lock();
+    try {
+      Entry entry;
+      while ((entry = entries.pollFirst()) != null) {
+        dequeued(entry);
+        droppedLines += entry.lineCount;
+        remaining.add(entry);
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (Entry entry : remaining) {
+      failDropped(entry, "the exporter has been shut down");
+    }
+  }
+
+  ExportQueueStats stats() {
+    lock.lock();
+    try {
+      return new ExportQueueStats(
+          enqueuedLines, droppedLines, sentLines, failedLines, queuedLines, queuedBytes);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean fits(Entry entry) {
+    return queuedBytes + entry.body.length <= maxBytes && queuedLines + entry.lineCount <= maxLines;
+  }
+
+  private void dequeued(Entry entry) {
+    queuedBytes -= entry.body.length;
+    queuedLines -= entry.lineCount;
+    notFull.signalAll();
+  }
+
+  private void drop(Entry entry, String reason) {
+    lock.lock();
+    try {
+      droppedLines += entry.lineCount;
+    } finally {
+      lock.unlock();
+    }
+    failDropped(entry, reason);
+  }
+
+  /**
+   * Logs the dropped partition and fails its result. Never called under the lock, as the result
+   * may run callbacks of the exporter.
+   */
+  private static void failDropped(Entry entry, String reason) {
+    logger.warning(
+        () ->
+            String.format(
+                "Dropping %d metric lines from the export queue, as %s.",
+                entry.lineCount, reason));
+    entry.result.fail();
+  }
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Persists payload partitions that could not be sent, so they can be sent once the endpoint is
+ * available again. Partitions are appended to segment files in a directory and read back in the
+ * order they were written.
+ *
+ * <p>Every record carries a checksum. A record that was only partially written, e.g. because the
+ * process crashed, is detected and discarded when the spool is opened again. The position of the
+ * next record to read is persisted as well, so sent partitions are not sent again after a restart,
+ * except for the last one if the process crashed right after sending it.
+ *
+ * <p>The spool is bounded in size: when appending a record would exceed the maximum size, the
+ * oldest segments are deleted. Records older than the maximum age are skipped when reading.
+ */
+final class PartitionSpool implements Closeable {
+  private static final Logger logger = Logger.getLogger(PartitionSpool.class.getName());
+
+  private static final int MAGIC = 0x44545350;
+  // magic, payload length, line count, flags, creation time, checksum of the payload
+  private static final int HEADER_SIZE = 4 + 4 + 4 + 1 + 8 + 4;
+  private static final byte FLAG_GZIP = 1;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".spool";
+  private static final String CURSOR_FILE = "cursor";
+  private static final long MAX_SEGMENT_BYTES = 8 * 1024 * 1024;
+
+  /** A spooled partition. */
+  static final class Record {
+    final byte[] body;
+    final int lineCount;
+    final boolean gzip;
+    final long createdMillis;
+    private final long segment;
+    private final long nextOffset;
+
+    private Record(
+        byte[] body,
+        int lineCount,
+        boolean gzip,
+        long createdMillis,
+        long segment,
+        long nextOffset) {
+      this.body = body;
+      this.lineCount = lineCount;
+      this.gzip = gzip;
+      this.createdMillis = createdMillis;
+      this.segment = segment;
+      this.nextOffset = nextOffset;
+    }
+  }
+
+  private static final class Segment {
+    final long sequence;
+    final Path path;
+    long size;
+
+    Segment(long sequence, Path path, long size) {
+      this.sequence = sequence;
+      this.path = path;
+      this.size = size;
+    }
+  }
+
+  private final Path directory;
+  private final long maxBytes;
+  private final long maxAgeMillis;
+  private final long segmentBytes;
+  private final LongSupplier clock;
+  private final LinkedList<Segment> segments = new LinkedList<>();
+  private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+  private final CRC32 crc = new CRC32();
+
+  private FileChannel writer;
+  private long readSegment;
+  private long readOffset;
+  private boolean closed;
+
+  private PartitionSpool(Path directory, long maxBytes, Duration maxAge, LongSupplier clock) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.maxAgeMillis = maxAge.toMillis();
+    this.segmentBytes = Math.max(HEADER_SIZE, Math.min(MAX_SEGMENT_BYTES, maxBytes / 4));
+    this.clock = clock;
+  }
+
+  /**
+   * Opens the spool in the directory, creating it if necessary, and recovers records written by a
+   * previous process.
+   */
+  static PartitionSpool open(Path directory, long maxBytes, Duration maxAge) throws IOException {
+    return open(directory, maxBytes, maxAge, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  static PartitionSpool open(Path directory, long maxBytes, Duration maxAge, LongSupplier clock)
+      throws IOException {
+    Files.createDirectories(directory);
+    PartitionSpool spool = new PartitionSpool(directory, maxBytes, maxAge, clock);
+    spool.recover();
+    return spool;
+  }
+
+  /**
+   * Appends a partition to the spool, evicting the oldest segments if the spool would grow beyond
+   * its maximum size.
+   *
+   * @return false if the partition could not be written, e.g. because the spool is closed.
+   */
+  synchronized boolean append(byte[] body, int length, int lineCount, boolean gzip) {
+    if (closed) {
+      logger.fine(() -> String.format("Not spooling %d lines, the spool is closed.", lineCount));
+      return false;
+    }
+    long recordSize = HEADER_SIZE + (long) length;
+    if (recordSize > maxBytes) {
+      logger.warning(
+          () ->
+              String.format(
+                  "Dropping partition of %d bytes, which exceeds the spool size of %d bytes.",
+                  length, maxBytes));
+      return false;
+    }
+    try {
+      while (!segments.isEmpty() && totalBytes() + recordSize > maxBytes) {
+        evictOldestSegment();
+      }
+      Segment segment = segments.peekLast();
+      if (writer == null || segment == null || segment.size + recordSize > segmentBytes) {
+        segment = startSegment();
+      }
+
+      crc.reset();
+      crc.update(body, 0, length);
+      header.clear();
+      header
+          .putInt(MAGIC)
+          .putInt(length)
+          .putInt(lineCount)
+          .put(gzip ? FLAG_GZIP : 0)
+          .putLong(clock.getAsLong())
+          .putInt((int) crc.getValue())
+          .flip();
+      ByteBuffer payload = ByteBuffer.wrap(body, 0, length);
+      writer.position(segment.size);
+      while (header.hasRemaining() || payload.hasRemaining()) {
+        writer.write(new ByteBuffer[] {header, payload});
+      }
+      writer.force(false);
+      segment.size += recordSize;
+      return true;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not write partition to the spool", e);
+      return false;
+    }
+  }
+
+  /**
+   * Returns the oldest record that has not been committed yet, or null if there is none. Records
+   * that are older than the maximum age or that are corrupt are skipped. A closed spool returns
+   * null.
+   */
+  synchronized Record peek() {
+    if (closed) {
+      return null;
+    }
+    while (true) {
+      Segment segment = currentReadSegment();
+      if (segment == null) {
+        return null;
+      }
+      if (readOffset >= segment.size) {
+        if (segment == segments.peekLast()) {
+          return null;
+        }
+        moveToNextSegment(segment);
+        continue;
+      }
+
+      Record record;
+      try {
+        record = read(segment, readOffset);
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Could not read from the spool", e);
+        return null;
+      }
+      if (record == null) {
+        logger.warning(
+            () ->
+                String.format(
+                    "Skipping corrupt data at offset %d of spool segment %s.",
+                    readOffset, segment.path));
+        readOffset = segment.size;
+        continue;
+      }
+      if (clock.getAsLong() - record.createdMillis > maxAgeMillis) {
+        logger.fine(
+            () ->
+                String.format(
+                    "Dropping spooled partition of %d lines, which is older than %d ms.",
+                    record.lineCount, maxAgeMillis));
+        readOffset = record.nextOffset;
+        continue;
+      }
+      return record;
+    }
+  }
+
+  /** Marks the record as sent, so it is not returned by {@link #peek()} again. */
+  synchronized void commit(Record record) {
+    if (record.segment != readSegment) {
+      // the segment has been evicted in the meantime.
+      return;
+    }
+    readOffset = record.nextOffset;
+    try {
+      writeCursor();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not persist the spool position", e);
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    Segment last = segments.peekLast();
+    return last == null || (readSegment == last.sequence && readOffset >= last.size);
+  }
+
+  /** The number of bytes the spool takes on disk, including records that were already sent. */
+  synchronized long totalBytes() {
+    long total = 0;
+    for (Segment segment : segments) {
+      total += segment.size;
+    }
+    return total;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  private Segment currentReadSegment() {
+    for (Segment segment : segments) {
+      if (segment.sequence >= readSegment) {
+        if (segment.sequence != readSegment) {
+          readSegment = segment.sequence;
+          readOffset = 0;
+        }
+        return segment;
+      }
+    }
+    return null;
+  }
+
+  /** Deletes the fully read segment and continues with the next one. */
+  private void moveToNextSegment(Segment segment) {
+    segments.remove(segment);
+    deleteQuietly(segment.path);
+    readSegment = segment.sequence + 1;
+    readOffset = 0;
+    try {
+      writeCursor();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not persist the spool position", e);
+    }
+  }
+
+  private void evictOldestSegment() throws IOException {
+    Segment oldest = segments.removeFirst();
+    if (segments.isEmpty()) {
+      // the oldest segment was also the one being written to.
+      closeWriter();
+    }
+    deleteQuietly(oldest.path);
+    logger.warning(
+        () ->
+            String.format(
+                "Spool exceeds its maximum size of %d bytes, dropped segment %s.",
+                maxBytes, oldest.path.getFileName()));
+  }
+
+  private Segment startSegment() throws IOException {
+    closeWriter();
+    Segment last = segments.peekLast();
+    // never reuse the number of the segment being read, its read position would not fit.
+    long sequence = Math.max(last != null ? last.sequence : 0, readSegment) + 1;
+    Path path = directory.resolve(SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+    writer =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    writer.truncate(0);
+    Segment segment = new Segment(sequence, path, 0);
+    segments.addLast(segment);
+    return segment;
+  }
+
+  private void closeWriter() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  /** Reads the record at the offset, or returns null if it is incomplete or corrupt. */
+  private Record read(Segment segment, long offset) throws IOException {
+    if (segment.size - offset < HEADER_SIZE) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+      ByteBuffer recordHeader = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, recordHeader, offset);
+      recordHeader.flip();
+      if (recordHeader.getInt() != MAGIC) {
+        return null;
+      }
+      int length = recordHeader.getInt();
+      int lineCount = recordHeader.getInt();
+      byte flags = recordHeader.get();
+      long createdMillis = recordHeader.getLong();
+      int checksum = recordHeader.getInt();
+      if (length < 0 || offset + HEADER_SIZE + length > segment.size) {
+        return null;
+      }
+
+      byte[] body = new byte[length];
+      readFully(channel, ByteBuffer.wrap(body), offset + HEADER_SIZE);
+      CRC32 bodyCrc = new CRC32();
+      bodyCrc.update(body, 0, length);
+      if ((int) bodyCrc.getValue() != checksum) {
+        return null;
+      }
+      return new Record(
+          body,
+          lineCount,
+          (flags & FLAG_GZIP) != 0,
+          createdMillis,
+          segment.sequence,
+          offset + HEADER_SIZE + length);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        throw new IOException("Unexpected end of spool segment");
+      }
+    }
+  }
+
+  /**
+   * Loads the segments and the read position left by a previous process. A partially written
+   * record at the end of the last segment is cut off, so new records are appended after the last
+   * complete one.
+   */
+  private void recover() throws IOException {
+    List<Segment> found = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        String name = path.getFileName().toString();
+        String number =
+            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        try {
+          found.add(new Segment(Long.parseLong(number), path, Files.size(path)));
+        } catch (NumberFormatException e) {
+          // not a segment of the spool, leave it alone.
+        }
+      }
+    }
+    found.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+    segments.addAll(found);
+    readCursor();
+
+    Segment last = segments.peekLast();
+    if (last != null) {
+      long validSize = 0;
+      Record record;
+      while (validSize < last.size && (record = read(last, validSize)) != null) {
+        validSize = record.nextOffset;
+      }
+      if (validSize < last.size) {
+        long discarded = last.size - validSize;
+        logger.warning(
+            () ->
+                String.format(
+                    "Discarding %d bytes of incomplete data at the end of spool segment %s.",
+                    discarded, last.path.getFileName()));
+        try (FileChannel channel = FileChannel.open(last.path, StandardOpenOption.WRITE)) {
+          channel.truncate(validSize);
+        }
+        last.size = validSize;
+      }
+      writer = FileChannel.open(last.path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+  }
+
+  private void readCursor() {
+    Path cursor = directory.resolve(CURSOR_FILE);
+    Segment first = segments.peekFirst();
+    readSegment = first != null ? first.sequence : 0;
+    readOffset = 0;
+    if (!Files.exists(cursor)) {
+      return;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cursor));
+      long segment = buffer.getLong();
+      long offset = buffer.getLong();
+      if (segment >= readSegment) {
+        readSegment = segment;
+        readOffset = offset;
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Could not read the spool position, reading from the start", e);
+    }
+  }
+
+  private void writeCursor() throws IOException {
+    Path temp = directory.resolve(CURSOR_FILE + ".tmp");
+    ByteBuffer buffer = ByteBuffer.allocate(16).putLong(readSegment).putLong(readOffset);
+    Files.write(temp, buffer.array());
+    Files.move(
+        temp,
+        directory.resolve(CURSOR_FILE),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not delete spool segment " + path, e);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.io.ByteArrayOutputStream;
+
+/** A reusable byte buffer that gives senders direct access to its contents without copying. */
+final class PayloadBuffer extends ByteArrayOutputStream {
+  PayloadBuffer(int initialSize) {
+    super(initialSize);
+  }
+
+  /** The backing array. Only the first {@link #size()} bytes are valid. */
+  byte[] array() {
+    return buf;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A set of prefixes that is compiled into a trie, so that checking a name against all prefixes
+ * takes a single pass over the name, no matter how many prefixes there are. The children of a node
+ * are kept in sorted arrays and looked up by binary search. Prefixes that start with another
+ * prefix are dropped while compiling, as they cannot change the result.
+ */
+final class PrefixTrie {
+  private static final char[] NO_CHARS = new char[0];
+  private static final PrefixTrie[] NO_CHILDREN = new PrefixTrie[0];
+
+  private final boolean terminal;
+  private final char[] chars;
+  private final PrefixTrie[] children;
+
+  private PrefixTrie(boolean terminal, char[] chars, PrefixTrie[] children) {
+    this.terminal = terminal;
+    this.chars = chars;
+    this.children = children;
+  }
+
+  static PrefixTrie compile(Collection<String> prefixes) {
+    Builder root = new Builder();
+    for (String prefix : prefixes) {
+      Builder node = root;
+      for (int i = 0; i < prefix.length() && !node.terminal; i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+      }
+      node.terminal = true;
+    }
+    return root.build();
+  }
+
+  /** Whether any of the prefixes is a prefix of the name, or the name itself. */
+  boolean matches(String name) {
+    PrefixTrie node = this;
+    for (int i = 0; !node.terminal; i++) {
+      if (i == name.length()) {
+        return false;
+      }
+      int child = Arrays.binarySearch(node.chars, name.charAt(i));
+      if (child < 0) {
+        return false;
+      }
+      node = node.children[child];
+    }
+    return true;
+  }
+
+  private static final class Builder {
+    private final TreeMap<Character, Builder> children = new TreeMap<>();
+    private boolean terminal;
+
+    PrefixTrie build() {
+      // nothing below a terminal node can change the result.
+      if (terminal || children.isEmpty()) {
+        return new PrefixTrie(terminal, NO_CHARS, NO_CHILDREN);
+      }
+      char[] chars = new char[children.size()];
+      PrefixTrie[] nodes = new PrefixTrie[children.size()];
+      int i = 0;
+      for (Map.Entry<Character, Builder> child : children.entrySet()) {
+        chars[i] = child.getKey();
+        nodes[i] = child.getValue().build();
+        i++;
+      }
+      return new PrefixTrie(false, chars, nodes);
+    }
+  }
+}
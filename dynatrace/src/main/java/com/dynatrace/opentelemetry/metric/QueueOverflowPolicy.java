@@ -0,0 +1,31 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+/**
+ * Decides what happens to metrics that are exported while the export queue of the {@link
+ * DynatraceMetricExporter} is full.
+ */
+public enum QueueOverflowPolicy {
+  /** Drops the oldest queued metrics to make room for the new ones. */
+  DROP_OLDEST,
+  /** Drops the new metrics, keeping the ones that are already queued. */
+  DROP_NEWEST,
+  /**
+   * Blocks the exporting thread until there is room in the queue, or drops the new metrics if
+   * there is still no room after the block timeout.
+   */
+  BLOCK
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Remembers series whose lines the ingest API rejected as invalid, so that the {@link Serializer}
+ * can skip them in the following exports instead of formatting and sending lines that will be
+ * rejected again. A series is identified by the start of its lines up to the value, i.e. the
+ * metric key and the serialized dimensions. Entries expire, so series that become valid again,
+ * e.g. after a change of the metric metadata, are eventually exported again.
+ *
+ * <p>Only lines rejected because of their metric key or dimensions are remembered. Lines rejected
+ * because of their value or timestamp say nothing about the next point of the same series.
+ */
+final class RejectedSeriesCache {
+  private static final Logger logger = Logger.getLogger(RejectedSeriesCache.class.getName());
+  // parts of the error of an invalid line that identify errors of the series and of the point.
+  private static final String[] SERIES_ERRORS = {"metric key", "dimension"};
+  private static final String[] POINT_ERRORS = {"timestamp", "range"};
+
+  private final Cache<String, Boolean> series;
+  // the metric keys of the rejected series, so that metrics without any rejected series are not
+  // looked up point by point. Entries might outlive their series, which only costs lookups.
+  private final Cache<String, Boolean> metricKeys;
+
+  RejectedSeriesCache(int maxSize, Duration expiry) {
+    this.series =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expiry.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+    this.metricKeys =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expiry.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+  }
+
+  /** Whether any series of the metric might have been rejected. */
+  boolean hasRejectedSeries(String metricKey) {
+    return metricKeys.getIfPresent(metricKey) != null;
+  }
+
+  /**
+   * @param dimensions the serialized dimensions, including the leading comma, see {@link
+   *     Serializer}.
+   */
+  boolean isRejected(String metricKey, String dimensions) {
+    return series.getIfPresent(metricKey.concat(dimensions)) != null;
+  }
+
+  /** Rejects the series of the line, which may but need not include the value and timestamp. */
+  void reject(String line) {
+    int end = seriesEnd(line);
+    String seriesKey = line.substring(0, end);
+    int keyEnd = 0;
+    while (keyEnd < end && line.charAt(keyEnd) != ',') {
+      keyEnd++;
+    }
+    series.put(seriesKey, Boolean.TRUE);
+    metricKeys.put(line.substring(0, keyEnd), Boolean.TRUE);
+  }
+
+  /**
+   * Whether the error reported for an invalid line means that its series is invalid, e.g. {@code
+   * "invalid dimension key"}, as opposed to its value or timestamp, e.g. {@code "timestamp out of
+   * range"}. Unknown errors are not attributed to the series.
+   */
+  static boolean isSeriesError(String error) {
+    if (error == null) {
+      return false;
+    }
+    String lowerCase = error.toLowerCase(Locale.ROOT);
+    for (String pointError : POINT_ERRORS) {
+      if (lowerCase.contains(pointError)) {
+        return false;
+      }
+    }
+    for (String seriesError : SERIES_ERRORS) {
+      if (lowerCase.contains(seriesError)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Rejects the series of the invalid lines reported for a request whose error is a {@link
+   * #isSeriesError series error}.
+   *
+   * @param body the request body, which is only read during the call.
+   * @param gzip whether the body is compressed with gzip.
+   * @return the number of series that were rejected.
+   */
+  int rejectLines(byte[] body, int length, boolean gzip, List<IngestResponse.InvalidLine> lines)
+      throws IOException {
+    long[] lineNumbers = new long[lines.size()];
+    int count = 0;
+    for (IngestResponse.InvalidLine line : lines) {
+      // line numbers start at 1.
+      if (line.getLine() > 0 && isSeriesError(line.getError())) {
+        lineNumbers[count++] = line.getLine();
+      }
+    }
+    if (count == 0) {
+      return 0;
+    }
+    Arrays.sort(lineNumbers, 0, count);
+
+    InputStream in = new ByteArrayInputStream(body, 0, length);
+    if (gzip) {
+      in = new GZIPInputStream(in);
+    }
+    int rejected = 0;
+    try (InputStream lineStream = new BufferedInputStream(in)) {
+      ByteArrayOutputStream current = new ByteArrayOutputStream();
+      long lineNumber = 1;
+      int next = 0;
+      while (next < count) {
+        int b = lineStream.read();
+        if (b == '\n' || b == -1) {
+          if (lineNumber == lineNumbers[next]) {
+            reject(new String(current.toByteArray(), StandardCharsets.UTF_8));
+            rejected++;
+            // the same line might be listed more than once.
+            while (next < count && lineNumbers[next] == lineNumber) {
+              next++;
+            }
+          }
+          if (b == -1) {
+            break;
+          }
+          lineNumber++;
+          current.reset();
+        } else if (lineNumber == lineNumbers[next]) {
+          current.write(b);
+        }
+      }
+    }
+    int rejectedSeries = rejected;
+    logger.warning(
+        () ->
+            String.format(
+                "%d series were rejected as invalid and are skipped in the following exports.",
+                rejectedSeries));
+    return rejected;
+  }
+
+  /**
+   * The index of the first space in the line that is neither escaped nor quoted, or its length if
+   * there is none.
+   */
+  private static int seriesEnd(String line) {
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\') {
+        // skip the escaped character, e.g. a space in a dimension value.
+        i++;
+      } else if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ' ' && !quoted) {
+        return i;
+      }
+    }
+    return line.length();
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Configures how the {@link DynatraceMetricExporter} retries requests that failed for a transient
+ * reason: the server responded with one of the retryable status codes or the request failed with
+ * an I/O error. Retries wait for an exponentially growing, jittered backoff, or for as long as the
+ * server asks for in a {@code Retry-After} header.
+ *
+ * <p>Since counters and histograms are exported as deltas, a batch that cannot be sent is lost.
+ * Retrying bridges short outages, but all retries of an export have to finish within the time
+ * budget, which should be well below the interval of the metric reader.
+ */
+public final class RetryPolicy {
+  private static final RetryPolicy DEFAULT = builder().build();
+
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final double backoffMultiplier;
+  private final Duration timeBudget;
+  private final Set<Integer> retryableStatusCodes;
+
+  private RetryPolicy(Builder builder) {
+    this.maxAttempts = builder.maxAttempts;
+    this.initialBackoff = builder.initialBackoff;
+    this.maxBackoff = builder.maxBackoff;
+    this.backoffMultiplier = builder.backoffMultiplier;
+    this.timeBudget = builder.timeBudget;
+    this.retryableStatusCodes = builder.retryableStatusCodes;
+  }
+
+  /**
+   * Returns a policy with up to 5 attempts, a backoff starting at 1 second and doubling up to 10
+   * seconds, a time budget of 30 seconds, and retries for the status codes 429, 502, 503 and 504.
+   */
+  public static RetryPolicy getDefault() {
+    return DEFAULT;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public double getBackoffMultiplier() {
+    return backoffMultiplier;
+  }
+
+  public Duration getTimeBudget() {
+    return timeBudget;
+  }
+
+  public Set<Integer> getRetryableStatusCodes() {
+    return retryableStatusCodes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "RetryPolicy{maxAttempts=%d, initialBackoff=%s, maxBackoff=%s, backoffMultiplier=%s,"
+            + " timeBudget=%s, retryableStatusCodes=%s}",
+        maxAttempts,
+        initialBackoff,
+        maxBackoff,
+        backoffMultiplier,
+        timeBudget,
+        retryableStatusCodes);
+  }
+
+  public static final class Builder {
+    private int maxAttempts = 5;
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofSeconds(10);
+    private double backoffMultiplier = 2.0;
+    private Duration timeBudget = Duration.ofSeconds(30);
+    private Set<Integer> retryableStatusCodes = ImmutableSet.of(429, 502, 503, 504);
+
+    private Builder() {}
+
+    /** Sets the maximum number of attempts per request, including the first one. */
+    public Builder setMaxAttempts(int maxAttempts) {
+      Preconditions.checkArgument(maxAttempts > 0, "maxAttempts must be greater than zero");
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /** Sets the backoff before the first retry. */
+    public Builder setInitialBackoff(Duration initialBackoff) {
+      Preconditions.checkArgument(
+          !initialBackoff.isNegative() && !initialBackoff.isZero(),
+          "initialBackoff must be positive");
+      this.initialBackoff = initialBackoff;
+      return this;
+    }
+
+    /** Sets the upper limit for the backoff, no matter how many retries were made. */
+    public Builder setMaxBackoff(Duration maxBackoff) {
+      Preconditions.checkArgument(
+          !maxBackoff.isNegative() && !maxBackoff.isZero(), "maxBackoff must be positive");
+      this.maxBackoff = maxBackoff;
+      return this;
+    }
+
+    /** Sets the factor the backoff grows by with every retry. */
+    public Builder setBackoffMultiplier(double backoffMultiplier) {
+      Preconditions.checkArgument(
+          backoffMultiplier >= 1.0, "backoffMultiplier must be at least 1.0");
+      this.backoffMultiplier = backoffMultiplier;
+      return this;
+    }
+
+    /**
+     * Sets the time an export may take in total, including all retries. A retry that would start
+     * after the budget is used up is not made, and the export fails instead. Should be well below
+     * the export interval of the metric reader, so retries do not delay the next collection.
+     */
+    public Builder setTimeBudget(Duration timeBudget) {
+      Preconditions.checkArgument(
+          !timeBudget.isNegative() && !timeBudget.isZero(), "timeBudget must be positive");
+      this.timeBudget = timeBudget;
+      return this;
+    }
+
+    /**
+     * Sets the HTTP status codes of responses that are retried. Requests that fail with an I/O
+     * error are always retried.
+     */
+    public Builder setRetryableStatusCodes(Collection<Integer> retryableStatusCodes) {
+      this.retryableStatusCodes = ImmutableSet.copyOf(retryableStatusCodes);
+      return this;
+    }
+
+    public RetryPolicy build() {
+      Preconditions.checkArgument(
+          maxBackoff.compareTo(initialBackoff) >= 0,
+          "maxBackoff must not be smaller than initialBackoff");
+      return new RetryPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts what the exporter does, e.g. how many lines it creates and how many requests it sends.
+ * Recording mostly increments {@link LongAdder}s, which scale with concurrent exports. The counters
+ * are reported through asynchronous instruments of a {@link Meter}, which read them whenever the
+ * metrics of that meter are collected. Only the duration of each request is recorded in a
+ * histogram, so that the distribution of the request latency can be observed.
+ */
+final class SelfMetrics {
+  private static final Logger logger = Logger.getLogger(SelfMetrics.class.getName());
+
+  /**
+   * The instrumentation scope of the instruments. Metrics of this scope are not recorded when they
+   * are exported, so that exporting the metrics of the exporter with the exporter itself does not
+   * keep changing them.
+   */
+  static final String INSTRUMENTATION_SCOPE = "com.dynatrace.opentelemetry.metric";
+
+  private static final String PREFIX = "dynatrace.exporter.";
+  private static final AttributeKey<String> METRIC_TYPE = AttributeKey.stringKey("metric.type");
+  private static final AttributeKey<String> METRIC_NAME = AttributeKey.stringKey("metric.name");
+  private static final AttributeKey<String> CIRCUIT_STATE = AttributeKey.stringKey("state");
+  private static final AttributeKey<Long> STATUS_CODE = AttributeKey.longKey("http.status_code");
+  private static final Attributes NO_RESPONSE = Attributes.of(STATUS_CODE, 0L);
+  // bounds the number of series of the dropped lines, as metric names are not known upfront.
+  private static final int MAX_DROPPED_METRIC_NAMES = 1_000;
+  private static final String OTHER_METRIC_NAME = "other";
+
+  private final MetricDataType[] types = MetricDataType.values();
+  private final Attributes[] typeAttributes = new Attributes[types.length];
+  private final CircuitBreakerPolicy.State[] circuitStates = CircuitBreakerPolicy.State.values();
+  private final Attributes[] circuitStateAttributes = new Attributes[circuitStates.length];
+  private final LongAdder[] serializedMetrics = newAdders(types.length);
+  private final LongAdder[] serializationNanos = newAdders(types.length);
+  private final LongAdder[] lines = newAdders(types.length);
+  private final Map<String, LongAdder> droppedLines = new ConcurrentHashMap<>();
+  private final LongAdder partitions = new LongAdder();
+  private final LongAdder bytesSent = new LongAdder();
+  private final Map<Integer, LongAdder> requests = new ConcurrentHashMap<>();
+  private final LongAdder requestsWithoutResponse = new LongAdder();
+  private final Map<Integer, Attributes> statusCodeAttributes = new ConcurrentHashMap<>();
+  // only set while the instruments are registered.
+  private volatile DoubleHistogram requestDuration;
+  private final LongAdder retries = new LongAdder();
+
+  private final List<AutoCloseable> instruments = new ArrayList<>();
+
+  SelfMetrics() {
+    for (int i = 0; i < types.length; i++) {
+      typeAttributes[i] = Attributes.of(METRIC_TYPE, types[i].name());
+    }
+    for (int i = 0; i < circuitStates.length; i++) {
+      circuitStateAttributes[i] = Attributes.of(CIRCUIT_STATE, circuitStates[i].name());
+    }
+  }
+
+  private static LongAdder[] newAdders(int count) {
+    LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  /**
+   * Records the serialization of a single metric.
+   *
+   * @param droppedLines the number of points no line could be created for.
+   */
+  void recordSerialization(
+      MetricDataType type, String metricName, long nanos, long lineCount, long droppedLines) {
+    int index = type.ordinal();
+    serializedMetrics[index].increment();
+    serializationNanos[index].add(nanos);
+    lines[index].add(lineCount);
+    if (droppedLines > 0) {
+      droppedLineCounter(metricName).add(droppedLines);
+    }
+  }
+
+  private LongAdder droppedLineCounter(String metricName) {
+    LongAdder counter = droppedLines.get(metricName);
+    if (counter != null) {
+      return counter;
+    }
+    String key = droppedLines.size() < MAX_DROPPED_METRIC_NAMES ? metricName : OTHER_METRIC_NAME;
+    return droppedLines.computeIfAbsent(key, k -> new LongAdder());
+  }
+
+  void recordPartition() {
+    partitions.increment();
+  }
+
+  /**
+   * Records a request that received a response.
+   *
+   * @param bytes the size of the request body, only counted if the request was successful.
+   */
+  void recordRequest(int statusCode, long nanos, long bytes) {
+    requests.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+    recordRequestDuration(
+        nanos,
+        statusCodeAttributes.computeIfAbsent(
+            statusCode, code -> Attributes.of(STATUS_CODE, (long) code)));
+    if (statusCode < 400) {
+      bytesSent.add(bytes);
+    }
+  }
+
+  /** Records a request that failed before a response was received. */
+  void recordRequestWithoutResponse(long nanos) {
+    requestsWithoutResponse.increment();
+    recordRequestDuration(nanos, NO_RESPONSE);
+  }
+
+  private void recordRequestDuration(long nanos, Attributes attributes) {
+    DoubleHistogram histogram = requestDuration;
+    if (histogram != null) {
+      histogram.record(toSeconds(nanos), attributes);
+    }
+  }
+
+  void recordRetry() {
+    retries.increment();
+  }
+
+  /**
+   * Creates the instruments that report the counters.
+   *
+   * @param queueStats the statistics of the export queue, or null if there is no queue.
+   * @param limitedPoints the number of points dropped by the cardinality limit, or null if series
+   *     are not limited.
+   * @param circuitBreaker the circuit breaker in front of the endpoint, or null if there is none.
+   */
+  void register(
+      MeterProvider meterProvider,
+      Supplier<ExportQueueStats> queueStats,
+      LongSupplier limitedPoints,
+      CircuitBreaker circuitBreaker) {
+    Meter meter = meterProvider.get(INSTRUMENTATION_SCOPE);
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "metrics")
+            .setDescription("The number of metrics that were serialized.")
+            .buildWithCallback(
+                measurement -> {
+                  for (int i = 0; i < types.length; i++) {
+                    measurement.record(serializedMetrics[i].sum(), typeAttributes[i]);
+                  }
+                }));
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "serialization.duration")
+            .ofDoubles()
+            .setDescription("The time spent serializing metrics to lines.")
+            .setUnit("s")
+            .buildWithCallback(
+                measurement -> {
+                  for (int i = 0; i < types.length; i++) {
+                    measurement.record(toSeconds(serializationNanos[i].sum()), typeAttributes[i]);
+                  }
+                }));
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "lines")
+            .setDescription("The number of metric lines that were created.")
+            .buildWithCallback(
+                measurement -> {
+                  for (int i = 0; i < types.length; i++) {
+                    measurement.record(lines[i].sum(), typeAttributes[i]);
+                  }
+                }));
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "lines.dropped")
+            .setDescription("The number of points no valid metric line could be created for.")
+            .buildWithCallback(
+                measurement ->
+                    droppedLines.forEach(
+                        (name, count) ->
+                            measurement.record(count.sum(), Attributes.of(METRIC_NAME, name)))));
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "partitions")
+            .setDescription("The number of request bodies the metric lines were split into.")
+            .buildWithCallback(measurement -> measurement.record(partitions.sum())));
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "bytes.sent")
+            .setDescription("The size of the request bodies that were accepted.")
+            .setUnit("By")
+            .buildWithCallback(measurement -> measurement.record(bytesSent.sum())));
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "requests")
+            .setDescription(
+                "The number of requests by status code, 0 for requests that got no response.")
+            .buildWithCallback(
+                measurement -> {
+                  requests.forEach(
+                      (code, count) ->
+                          measurement.record(count.sum(), Attributes.of(STATUS_CODE, (long) code)));
+                  measurement.record(requestsWithoutResponse.sum(), NO_RESPONSE);
+                }));
+    requestDuration =
+        meter
+            .histogramBuilder(PREFIX + "request.duration")
+            .setDescription(
+                "The duration of requests by status code, 0 for requests that got no response.")
+            .setUnit("s")
+            .build();
+    instruments.add(
+        meter
+            .counterBuilder(PREFIX + "retries")
+            .setDescription("The number of requests that were retried.")
+            .buildWithCallback(measurement -> measurement.record(retries.sum())));
+    if (limitedPoints != null) {
+      instruments.add(
+          meter
+              .counterBuilder(PREFIX + "points.limited")
+              .setDescription(
+                  "The number of points dropped because their metric exceeded its series limit.")
+              .buildWithCallback(measurement -> measurement.record(limitedPoints.getAsLong())));
+    }
+    if (circuitBreaker != null) {
+      instruments.add(
+          meter
+              .gaugeBuilder(PREFIX + "circuit.state")
+              .ofLongs()
+              .setDescription("1 for the current state of the circuit breaker, 0 for the others.")
+              .buildWithCallback(
+                  measurement -> {
+                    CircuitBreakerPolicy.State current = circuitBreaker.getState();
+                    for (int i = 0; i < circuitStates.length; i++) {
+                      measurement.record(
+                          circuitStates[i] == current ? 1 : 0, circuitStateAttributes[i]);
+                    }
+                  }));
+      instruments.add(
+          meter
+              .counterBuilder(PREFIX + "circuit.transitions")
+              .setDescription("The number of times the circuit breaker changed into a state.")
+              .buildWithCallback(
+                  measurement -> {
+                    for (int i = 0; i < circuitStates.length; i++) {
+                      measurement.record(
+                          circuitBreaker.getTransitions(circuitStates[i]),
+                          circuitStateAttributes[i]);
+                    }
+                  }));
+      instruments.add(
+          meter
+              .counterBuilder(PREFIX + "circuit.rejected")
+              .setDescription(
+                  "The number of requests and exports that failed because the circuit breaker was"
+                      + " open.")
+              .buildWithCallback(measurement -> measurement.record(circuitBreaker.getRejected())));
+    }
+    if (queueStats != null) {
+      instruments.add(
+          meter
+              .gaugeBuilder(PREFIX + "queue.lines")
+              .ofLongs()
+              .setDescription("The number of metric lines waiting in the export queue.")
+              .buildWithCallback(
+                  measurement -> measurement.record(queueStats.get().getQueuedLines())));
+      instruments.add(
+          meter
+              .gaugeBuilder(PREFIX + "queue.bytes")
+              .ofLongs()
+              .setDescription("The size of the request bodies waiting in the export queue.")
+              .setUnit("By")
+              .buildWithCallback(
+                  measurement -> measurement.record(queueStats.get().getQueuedBytes())));
+    }
+  }
+
+  /** Removes the instruments, so that the counters are not reported anymore. */
+  void close() {
+    // synchronous instruments cannot be removed, they are just not recorded to anymore.
+    requestDuration = null;
+    for (AutoCloseable instrument : instruments) {
+      try {
+        instrument.close();
+      } catch (Exception e) {
+        logger.log(Level.FINE, "Could not remove instrument", e);
+      }
+    }
+    instruments.clear();
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+
+  @VisibleForTesting
+  long getLines(MetricDataType type) {
+    return lines[type.ordinal()].sum();
+  }
+
+  @VisibleForTesting
+  long getDroppedLines(String metricName) {
+    LongAdder counter = droppedLines.get(metricName);
+    return counter != null ? counter.sum() : 0;
+  }
+
+  @VisibleForTesting
+  long getPartitions() {
+    return partitions.sum();
+  }
+
+  @VisibleForTesting
+  long getBytesSent() {
+    return bytesSent.sum();
+  }
+
+  @VisibleForTesting
+  long getRequests(int statusCode) {
+    LongAdder counter = requests.get(statusCode);
+    return counter != null ? counter.sum() : 0;
+  }
+
+  @VisibleForTesting
+  long getRequestsWithoutResponse() {
+    return requestsWithoutResponse.sum();
+  }
+
+  @VisibleForTesting
+  long getRetries() {
+    return retries.sum();
+  }
+}
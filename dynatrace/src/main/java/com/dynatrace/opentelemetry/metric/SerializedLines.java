@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import java.util.Arrays;
+
+/**
+ * Collects the lines of some metrics in memory, so that they can be created on another thread and
+ * passed on to a {@link MetricLinePartitioner} later, in the same order. Instances are not
+ * thread-safe.
+ */
+final class SerializedLines implements MetricLineSink {
+  private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+  private static final int INITIAL_LINES = 128;
+
+  private final PayloadBuffer lines = new PayloadBuffer(INITIAL_BUFFER_SIZE);
+  // the end offset of every line in the buffer, lines are not separated otherwise.
+  private int[] lineEnds = new int[INITIAL_LINES];
+  private int lineCount = 0;
+  private long droppedLines = 0;
+  private final UnchangedGaugeFilter.RememberedPoints rememberedGauges =
+      new UnchangedGaugeFilter.RememberedPoints();
+
+  @Override
+  public void accept(String line) {
+    MetricLinePartitioner.writeUtf8(line, lines);
+    completeLine();
+  }
+
+  @Override
+  public void accept(byte[] line, int offset, int length) {
+    lines.write(line, offset, length);
+    completeLine();
+  }
+
+  @Override
+  public void lineDropped() {
+    droppedLines++;
+  }
+
+  @Override
+  public void gaugeRemembered(long fingerprint, long epochNanos) {
+    rememberedGauges.add(fingerprint, epochNanos);
+  }
+
+  private void completeLine() {
+    if (lineCount == lineEnds.length) {
+      lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+    }
+    lineEnds[lineCount++] = lines.size();
+  }
+
+  long getTotalLines() {
+    return lineCount;
+  }
+
+  long getDroppedLines() {
+    return droppedLines;
+  }
+
+  /** Passes all lines, dropped lines and remembered gauges on to the sink, in their order. */
+  void writeTo(MetricLineSink sink) {
+    byte[] array = lines.array();
+    int start = 0;
+    for (int i = 0; i < lineCount; i++) {
+      sink.accept(array, start, lineEnds[i] - start);
+      start = lineEnds[i];
+    }
+    for (long i = 0; i < droppedLines; i++) {
+      sink.lineDropped();
+    }
+    rememberedGauges.forEach(sink::gaugeRemembered);
+  }
+}
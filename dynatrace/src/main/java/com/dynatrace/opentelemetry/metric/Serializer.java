@@ -16,9 +16,13 @@ package com.dynatrace.opentelemetry.metric;
 
 import com.dynatrace.metric.util.*;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.opentelemetry.api.common.AttributeType;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.metrics.data.*;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,6 +32,9 @@ import java.util.logging.Logger;
 
 final class Serializer {
   private static final Logger logger = Logger.getLogger(Serializer.class.getName());
+  // null if the SDK on the classpath does not provide the exponential histogram data types.
+  private static final ExponentialHistogramSupport EXPONENTIAL_HISTOGRAMS =
+      ExponentialHistogramSupport.load();
 
   // the precision used to identify whether a percentile is the 0% (min) or 100% (max) percentile.
   private static final double PERCENTILE_PRECISION = 0.0001;
@@ -38,25 +45,183 @@ final class Serializer {
   private static final String TEMPLATE_MSG_UNSUPPORTED_ATTRIBUTE_TYPE =
       "Skipping unsupported dimension with value type '%s'";
 
+  // The SDK hands out the same Attributes for a series in every collection, so the normalized
+  // dimensions are kept around for a while instead of being rebuilt for every single point.
+  private static final int DIMENSION_CACHE_MAX_SIZE = 10_000;
+  private static final long DIMENSION_CACHE_EXPIRY_MINUTES = 10;
+
+  // Lines with very long dimensions are left to the builder, which enforces the line length limit.
+  private static final int MAX_ENCODED_DIMENSIONS_LENGTH = 8 * 1024;
+  // Mark dimensions that cannot be used on the fast path. Compared by identity, as the serialized
+  // dimensions of a series without any dimensions are empty as well.
+  private static final String NOT_SERIALIZABLE = new String();
+  private static final byte[] NOT_ENCODABLE = new byte[0];
+  private static final String PROBE_VALUE_SUFFIX = " gauge,0";
+
   private final MetricBuilderFactory builderFactory;
+  private final MetricKeyCache metricKeyCache;
+  private final Cache<Attributes, SeriesDimensions> dimensionCache;
+  private final boolean fastPath;
+  // only set if series rejected by the server are skipped.
+  private final RejectedSeriesCache rejectedSeries;
+  // only set if gauge lines with unchanged values are skipped.
+  private final UnchangedGaugeFilter unchangedGauges;
+  // only set if the number of series per metric is limited.
+  private final CardinalityLimiter cardinalityLimiter;
+  // only set if metrics or dimensions are filtered before serialization.
+  private final MetricFilter metricFilter;
+
+  /**
+   * What is resolved once per metric and reused for all of its points: the metric key and its hash,
+   * the encoder, the builder and which of the checks of {@link #shouldSkip} the points go through.
+   */
+  private final class MetricContext {
+    final MetricData metric;
+    final String metricKey;
+    // part of the fingerprint of every series of the metric.
+    final long metricKeyHash;
+    // null if the fast path is disabled.
+    final MetricLineEncoder encoder;
+    // only true for metrics with rejected series, so that other metrics are not slowed down.
+    final boolean checkRejected;
+    // null if the series are not limited.
+    final CardinalityLimiter.SeriesBudget budget;
+    final boolean checkUnchanged;
+    // created for the first line that is left to the builder and reused for all others.
+    private Metric.Builder builder;
+
+    /** @param gauge whether the lines of the metric are gauge lines. */
+    MetricContext(MetricData metric, String metricKey, boolean gauge) {
+      this.metric = metric;
+      this.metricKey = metricKey;
+      this.metricKeyHash = SeriesFingerprint.hash(metricKey);
+      this.encoder = fastPath ? new MetricLineEncoder(metricKey) : null;
+      this.checkRejected = rejectedSeries != null && rejectedSeries.hasRejectedSeries(metricKey);
+      this.budget = cardinalityLimiter != null ? cardinalityLimiter.getBudget(metricKey) : null;
+      this.checkUnchanged = gauge && unchangedGauges != null;
+    }
+
+    Metric.Builder getBuilder() {
+      if (builder == null) {
+        builder = builderFactory.newMetricBuilder(metric.getName());
+      }
+      return builder;
+    }
+  }
+
+  /** The normalized dimensions of a series and, once needed, their serialized form. */
+  private static final class SeriesDimensions {
+    final DimensionList dimensions;
+    volatile String serialized;
+    volatile byte[] encoded;
+    // the hash of the serialized dimensions, 0 until needed.
+    volatile long hash;
+
+    SeriesDimensions(DimensionList dimensions) {
+      this.dimensions = dimensions;
+    }
+  }
 
   Serializer(MetricBuilderFactory builderFactory) {
-    this.builderFactory = builderFactory;
+    this(builder(builderFactory));
   }
 
-  private Metric.Builder createMetricBuilder(MetricData metric, PointData point) {
-    Metric.Builder builder =
-        builderFactory
-            .newMetricBuilder(metric.getName())
-            .setDimensions(fromAttributes(point.getAttributes()));
+  private Serializer(Builder builder) {
+    this.builderFactory = builder.builderFactory;
+    this.metricKeyCache = new MetricKeyCache(builderFactory);
+    this.fastPath = builder.fastPath && MetricLineEncoder.isSupported();
+    this.rejectedSeries = builder.rejectedSeries;
+    this.unchangedGauges = builder.unchangedGauges;
+    this.cardinalityLimiter = builder.cardinalityLimiter;
+    this.metricFilter = builder.metricFilter;
+    this.dimensionCache =
+        CacheBuilder.newBuilder()
+            .maximumSize(builder.dimensionCacheMaxSize)
+            .expireAfterAccess(DIMENSION_CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .build();
+  }
+
+  static Builder builder(MetricBuilderFactory builderFactory) {
+    return new Builder(builderFactory);
+  }
+
+  /** Sets up the optional steps of a {@link Serializer}, all of which are disabled by default. */
+  static final class Builder {
+    private final MetricBuilderFactory builderFactory;
+    private int dimensionCacheMaxSize = DIMENSION_CACHE_MAX_SIZE;
+    private boolean fastPath;
+    private RejectedSeriesCache rejectedSeries;
+    private UnchangedGaugeFilter unchangedGauges;
+    private CardinalityLimiter cardinalityLimiter;
+    private MetricFilter metricFilter;
+
+    private Builder(MetricBuilderFactory builderFactory) {
+      this.builderFactory = Preconditions.checkNotNull(builderFactory);
+    }
+
+    @VisibleForTesting
+    Builder setDimensionCacheMaxSize(int dimensionCacheMaxSize) {
+      Preconditions.checkArgument(
+          dimensionCacheMaxSize > 0, "dimensionCacheMaxSize must be greater than zero");
+      this.dimensionCacheMaxSize = dimensionCacheMaxSize;
+      return this;
+    }
+
+    /**
+     * Sets whether gauge, counter and summary lines are written by the {@link MetricLineEncoder}
+     * instead of the metric builder, where possible.
+     */
+    Builder setFastPath(boolean fastPath) {
+      this.fastPath = fastPath;
+      return this;
+    }
+
+    /** Sets the series to skip, or null if all series are serialized. */
+    Builder setRejectedSeries(RejectedSeriesCache rejectedSeries) {
+      this.rejectedSeries = rejectedSeries;
+      return this;
+    }
+
+    /** Sets the filter for unchanged gauges, or null if all lines are created. */
+    Builder setUnchangedGauges(UnchangedGaugeFilter unchangedGauges) {
+      this.unchangedGauges = unchangedGauges;
+      return this;
+    }
+
+    /** Sets the limiter of series per metric, or null if the series are not limited. */
+    Builder setCardinalityLimiter(CardinalityLimiter cardinalityLimiter) {
+      this.cardinalityLimiter = cardinalityLimiter;
+      return this;
+    }
+
+    /** Sets the filter applied before serialization, or null if none is applied. */
+    Builder setMetricFilter(MetricFilter metricFilter) {
+      this.metricFilter = metricFilter;
+      return this;
+    }
+
+    Serializer build() {
+      return new Serializer(this);
+    }
+  }
 
+  /**
+   * Returns the builder of the metric, set up for the point. The builder cannot take the cached
+   * metric key, it normalizes the name for every line, but it is only created once per metric.
+   */
+  private Metric.Builder createMetricBuilder(MetricContext context, PointData point) {
+    DimensionList dimensions = getDimensions(point.getAttributes());
     long epochNanos = point.getEpochNanos();
     // Only set a timestamp if it is available for the PointData.
-    // If it is missing, the server will use the current time at ingest.
-    if (epochNanos > 0) {
-      builder.setTimestamp(Instant.ofEpochMilli(TimeUnit.NANOSECONDS.toMillis(epochNanos)));
+    // If it is missing, the server will use the current time at ingest. A timestamp cannot be
+    // removed from a builder, so such points get a builder of their own.
+    if (epochNanos <= 0) {
+      return builderFactory.newMetricBuilder(context.metric.getName()).setDimensions(dimensions);
     }
-    return builder;
+    return context
+        .getBuilder()
+        .setDimensions(dimensions)
+        .setTimestamp(Instant.ofEpochMilli(TimeUnit.NANOSECONDS.toMillis(epochNanos)));
   }
 
   static List<Dimension> toListOfDimensions(Attributes attributes) {
@@ -79,132 +244,504 @@ final class Serializer {
     return DimensionList.fromCollection(toListOfDimensions(attributes));
   }
 
+  /**
+   * Resolves the metric key once per metric instead of once per point. If the metric name cannot be
+   * normalized, no line of this metric can be created, so the points are not looked at at all.
+   *
+   * @param gauge whether the lines of the metric are gauge lines.
+   * @return the context for the points of the metric, or null if its name is invalid.
+   */
+  private MetricContext newContext(MetricData metric, boolean gauge) {
+    String metricKey = metricKeyCache.getMetricKey(metric.getName());
+    if (metricKey == null) {
+      logger.fine(
+          () ->
+              String.format(
+                  "Skipping %d points of metric %s, which has an invalid name.",
+                  metric.getData().getPoints().size(), metric.getName()));
+      return null;
+    }
+    return new MetricContext(metric, metricKey, gauge);
+  }
+
+  @VisibleForTesting
+  MetricKeyCache getMetricKeyCache() {
+    return metricKeyCache;
+  }
+
+  /** Returns the normalized dimensions for the attributes, reusing them if possible. */
+  @VisibleForTesting
+  DimensionList getDimensions(Attributes attributes) {
+    return getSeriesDimensions(attributes).dimensions;
+  }
+
+  private SeriesDimensions getSeriesDimensions(Attributes attributes) {
+    SeriesDimensions series = dimensionCache.getIfPresent(attributes);
+    if (series == null) {
+      series = new SeriesDimensions(toDimensionList(attributes));
+      dimensionCache.put(attributes, series);
+    }
+    return series;
+  }
+
+  /** Converts the attributes to dimensions, applying the transformations of the metric filter. */
+  private DimensionList toDimensionList(Attributes attributes) {
+    if (metricFilter == null || !metricFilter.transformsDimensions()) {
+      return fromAttributes(attributes);
+    }
+    return DimensionList.fromCollection(
+        metricFilter.transformDimensions(toListOfDimensions(attributes)));
+  }
+
+  /** Returns the metrics to serialize, which are all of them unless some are filtered. */
+  Collection<MetricData> filterMetrics(Collection<MetricData> metrics) {
+    return metricFilter != null ? metricFilter.filterMetrics(metrics) : metrics;
+  }
+
+  @VisibleForTesting
+  boolean isFastPathEnabled() {
+    return fastPath;
+  }
+
+  /** Returns the series that are skipped, or null if all series are serialized. */
+  RejectedSeriesCache getRejectedSeries() {
+    return rejectedSeries;
+  }
+
+  /**
+   * Whether no line is created for the point, as its series was rejected, does not fit into the
+   * budget of its metric or is a gauge whose value did not change.
+   *
+   * @param value the value of a gauge point, or the raw bits of a double value. Not used for points
+   *     of other metrics.
+   * @param sink is told about the point if its value is remembered as exported.
+   */
+  private boolean shouldSkip(
+      MetricContext context, PointData point, long value, MetricLineSink sink) {
+    if (!context.checkRejected && context.budget == null && !context.checkUnchanged) {
+      return false;
+    }
+    SeriesDimensions series = getSeriesDimensions(point.getAttributes());
+    if (context.checkRejected && isRejected(context, series)) {
+      return true;
+    }
+    if (context.budget == null && !context.checkUnchanged) {
+      return false;
+    }
+    // shared by both checks, so that the series is only hashed once per point.
+    long fingerprint = getFingerprint(context, point.getAttributes(), series);
+    if (context.budget != null && !isAdmitted(context.budget, fingerprint)) {
+      return true;
+    }
+    return context.checkUnchanged && isUnchanged(fingerprint, point, value, sink);
+  }
+
+  /** Whether the series was rejected, checked before its line is created. */
+  private boolean isRejected(MetricContext context, SeriesDimensions series) {
+    String dimensions = getSerializedDimensions(context, series);
+    // series with dimensions that are too long are never remembered.
+    return dimensions != null && rejectedSeries.isRejected(context.metricKey, dimensions);
+  }
+
+  /** Returns the limiter of series per metric, or null if the series are not limited. */
+  CardinalityLimiter getCardinalityLimiter() {
+    return cardinalityLimiter;
+  }
+
+  /** Returns the filter for unchanged gauges, or null if all lines are created. */
+  UnchangedGaugeFilter getUnchangedGauges() {
+    return unchangedGauges;
+  }
+
+  /** Whether the series fits into the budget of its metric. */
+  private static boolean isAdmitted(CardinalityLimiter.SeriesBudget budget, long fingerprint) {
+    return budget.admit(fingerprint);
+  }
+
+  /**
+   * Whether the gauge line of the point can be skipped, as the last exported line of its series had
+   * the same value, see {@link UnchangedGaugeFilter}.
+   *
+   * @param value the value, or the raw bits of a double value.
+   * @param sink is told about the point if its value is remembered as exported.
+   */
+  private boolean isUnchanged(long fingerprint, PointData point, long value, MetricLineSink sink) {
+    if (unchangedGauges.isUnchanged(fingerprint, value, point.getEpochNanos())) {
+      return true;
+    }
+    sink.gaugeRemembered(fingerprint, point.getEpochNanos());
+    return false;
+  }
+
+  /**
+   * Returns the {@link SeriesFingerprint} of the series. Series with dimensions that cannot be
+   * serialized, such as very long ones, are told apart by their attributes instead, so that they
+   * still count against the cardinality limit.
+   */
+  private long getFingerprint(
+      MetricContext context, Attributes attributes, SeriesDimensions series) {
+    long dimensionsHash = series.hash;
+    if (dimensionsHash == 0) {
+      String dimensions = getSerializedDimensions(context, series);
+      dimensionsHash =
+          SeriesFingerprint.hash(dimensions != null ? dimensions : attributes.toString());
+      series.hash = dimensionsHash;
+    }
+    return SeriesFingerprint.of(context.metricKeyHash, dimensionsHash);
+  }
+
+  /**
+   * Returns the dimensions of the point exactly as the builder serializes them, including the
+   * leading comma, or null if the line has to be created by the builder. The builder is only asked
+   * once per series, with a line that carries a fixed value, which is then cut off.
+   */
+  private byte[] getEncodedDimensions(MetricContext context, PointData point) {
+    if (!MetricLineEncoder.canEncodeTimestamp(point.getEpochNanos())) {
+      return null;
+    }
+    SeriesDimensions series = getSeriesDimensions(point.getAttributes());
+    byte[] encoded = series.encoded;
+    if (encoded == null) {
+      String serialized = getSerializedDimensions(context, series);
+      encoded = serialized != null ? serialized.getBytes(StandardCharsets.UTF_8) : NOT_ENCODABLE;
+      series.encoded = encoded;
+    }
+    return encoded == NOT_ENCODABLE ? null : encoded;
+  }
+
+  /** See {@link #getEncodedDimensions}. */
+  private String getSerializedDimensions(MetricContext context, SeriesDimensions series) {
+    String serialized = series.serialized;
+    if (serialized == null) {
+      serialized = serializeDimensions(context, series.dimensions);
+      series.serialized = serialized;
+    }
+    return serialized == NOT_SERIALIZABLE ? null : serialized;
+  }
+
+  private String serializeDimensions(MetricContext context, DimensionList dimensions) {
+    String metricKey = context.metricKey;
+    String probe;
+    try {
+      probe =
+          builderFactory
+              .newMetricBuilder(context.metric.getName())
+              .setDimensions(dimensions)
+              .setLongGaugeValue(0)
+              .serialize();
+    } catch (MetricException e) {
+      return NOT_SERIALIZABLE;
+    }
+    if (!probe.startsWith(metricKey)
+        || !probe.endsWith(PROBE_VALUE_SUFFIX)
+        || probe.length() - PROBE_VALUE_SUFFIX.length() - metricKey.length()
+            > MAX_ENCODED_DIMENSIONS_LENGTH) {
+      return NOT_SERIALIZABLE;
+    }
+    return probe.substring(metricKey.length(), probe.length() - PROBE_VALUE_SUFFIX.length());
+  }
+
+  /**
+   * Writes a line with a long value on the fast path. Negative deltas are left to the builder,
+   * which decides whether they are valid.
+   *
+   * @return false if the line has to be created by the builder instead.
+   */
+  private boolean encodeLongLine(
+      MetricContext context,
+      PointData point,
+      byte[] valuePrefix,
+      long value,
+      MetricLineSink sink) {
+    MetricLineEncoder encoder = context.encoder;
+    if (encoder == null || (valuePrefix == MetricLineEncoder.COUNT_DELTA && value < 0)) {
+      return false;
+    }
+    byte[] dimensions = getEncodedDimensions(context, point);
+    if (dimensions == null) {
+      return false;
+    }
+    encoder
+        .beginLine(dimensions)
+        .append(valuePrefix)
+        .appendLong(value)
+        .appendTimestamp(point.getEpochNanos())
+        .writeTo(sink);
+    return true;
+  }
+
+  /** See {@link #encodeLongLine}. */
+  private boolean encodeDoubleLine(
+      MetricContext context,
+      PointData point,
+      byte[] valuePrefix,
+      double value,
+      MetricLineSink sink) {
+    MetricLineEncoder encoder = context.encoder;
+    if (encoder == null
+        || !MetricLineEncoder.canEncodeDouble(value)
+        || (valuePrefix == MetricLineEncoder.COUNT_DELTA && value < 0)) {
+      return false;
+    }
+    byte[] dimensions = getEncodedDimensions(context, point);
+    if (dimensions == null) {
+      return false;
+    }
+    encoder
+        .beginLine(dimensions)
+        .append(valuePrefix)
+        .appendDouble(value)
+        .appendTimestamp(point.getEpochNanos())
+        .writeTo(sink);
+    return true;
+  }
+
+  /** See {@link #encodeLongLine}. */
+  private boolean encodeSummaryLine(
+      MetricContext context,
+      PointData point,
+      double min,
+      double max,
+      double sum,
+      long count,
+      MetricLineSink sink) {
+    MetricLineEncoder encoder = context.encoder;
+    if (encoder == null
+        || !MetricLineEncoder.canEncodeDouble(min)
+        || !MetricLineEncoder.canEncodeDouble(max)
+        || !MetricLineEncoder.canEncodeDouble(sum)
+        || min > max
+        || count <= 0) {
+      return false;
+    }
+    byte[] dimensions = getEncodedDimensions(context, point);
+    if (dimensions == null) {
+      return false;
+    }
+    encoder
+        .beginLine(dimensions)
+        .summary(min, max, sum, count)
+        .appendTimestamp(point.getEpochNanos())
+        .writeTo(sink);
+    return true;
+  }
+
   List<String> createLongSumLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createLongSumLines(metric, lines::add);
+    return lines;
+  }
+
+  void createLongSumLines(MetricData metric, MetricLineSink sink) {
     SumData<LongPointData> data = metric.getLongSumData();
     Collection<LongPointData> points = data.getPoints();
-    List<String> lines = new ArrayList<>(points.size());
     boolean isMonotonic = data.isMonotonic();
+    MetricContext context = newContext(metric, !isMonotonic);
+    if (context == null) {
+      return;
+    }
     if (isMonotonic) {
-      createLinesFromMonotonicLongSum(metric, lines, points);
+      createLinesFromMonotonicLongSum(context, sink, points);
     } else {
-      createLinesFromNonMonotonicLongSum(metric, lines, points);
+      createLinesFromNonMonotonicLongSum(context, sink, points);
     }
-    return lines;
   }
 
   private void createLinesFromMonotonicLongSum(
-      MetricData metric, List<String> lines, Collection<LongPointData> points) {
+      MetricContext context, MetricLineSink sink, Collection<LongPointData> points) {
+    MetricData metric = context.metric;
     for (LongPointData point : points) {
+      if (shouldSkip(context, point, 0, sink)) {
+        continue;
+      }
+      if (encodeLongLine(context, point, MetricLineEncoder.COUNT_DELTA, point.getValue(), sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point)
+        sink.accept(
+            createMetricBuilder(context, point)
                 // We always expect monotonic sums as deltas, which will be exported as delta
                 .setLongCounterValueDelta(point.getValue())
                 .serialize());
       } catch (MetricException me) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
   }
 
   private void createLinesFromNonMonotonicLongSum(
-      MetricData metric, List<String> lines, Collection<LongPointData> points) {
+      MetricContext context, MetricLineSink sink, Collection<LongPointData> points) {
+    MetricData metric = context.metric;
     for (LongPointData point : points) {
+      if (shouldSkip(context, point, point.getValue(), sink)) {
+        continue;
+      }
+      if (encodeLongLine(context, point, MetricLineEncoder.GAUGE, point.getValue(), sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point)
+        sink.accept(
+            createMetricBuilder(context, point)
                 // non-monotonic sums are exported as gauge.
                 .setLongGaugeValue(point.getValue())
                 .serialize());
       } catch (MetricException e) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), e.getMessage()));
+        sink.lineDropped();
       }
     }
   }
 
   List<String> createLongGaugeLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createLongGaugeLines(metric, lines::add);
+    return lines;
+  }
+
+  void createLongGaugeLines(MetricData metric, MetricLineSink sink) {
     Collection<LongPointData> points = metric.getLongGaugeData().getPoints();
-    List<String> lines = new ArrayList<>(points.size());
+    MetricContext context = newContext(metric, true);
+    if (context == null) {
+      return;
+    }
     for (LongPointData point : points) {
+      if (shouldSkip(context, point, point.getValue(), sink)) {
+        continue;
+      }
+      if (encodeLongLine(context, point, MetricLineEncoder.GAUGE, point.getValue(), sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point).setLongGaugeValue(point.getValue()).serialize());
+        sink.accept(
+            createMetricBuilder(context, point).setLongGaugeValue(point.getValue()).serialize());
       } catch (MetricException me) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
-    return lines;
   }
 
   List<String> createDoubleGaugeLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createDoubleGaugeLines(metric, lines::add);
+    return lines;
+  }
+
+  void createDoubleGaugeLines(MetricData metric, MetricLineSink sink) {
     Collection<DoublePointData> points = metric.getDoubleGaugeData().getPoints();
-    List<String> lines = new ArrayList<>(points.size());
+    MetricContext context = newContext(metric, true);
+    if (context == null) {
+      return;
+    }
     for (DoublePointData point : points) {
+      if (shouldSkip(context, point, Double.doubleToLongBits(point.getValue()), sink)) {
+        continue;
+      }
+      if (encodeDoubleLine(context, point, MetricLineEncoder.GAUGE, point.getValue(), sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point).setDoubleGaugeValue(point.getValue()).serialize());
+        sink.accept(
+            createMetricBuilder(context, point).setDoubleGaugeValue(point.getValue()).serialize());
       } catch (MetricException me) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
-    return lines;
   }
 
   List<String> createDoubleSumLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createDoubleSumLines(metric, lines::add);
+    return lines;
+  }
+
+  void createDoubleSumLines(MetricData metric, MetricLineSink sink) {
     SumData<DoublePointData> data = metric.getDoubleSumData();
     Collection<DoublePointData> points = data.getPoints();
-    List<String> lines = new ArrayList<>(points.size());
     boolean isMonotonic = data.isMonotonic();
+    MetricContext context = newContext(metric, !isMonotonic);
+    if (context == null) {
+      return;
+    }
     if (isMonotonic) {
-      createLinesFromMonotonicDoubleSum(metric, lines, points);
+      createLinesFromMonotonicDoubleSum(context, sink, points);
     } else {
-      createLinesFromNonMonotonicDoubleSum(metric, lines, points);
+      createLinesFromNonMonotonicDoubleSum(context, sink, points);
     }
-    return lines;
   }
 
   private void createLinesFromMonotonicDoubleSum(
-      MetricData metric, List<String> lines, Collection<DoublePointData> points) {
+      MetricContext context, MetricLineSink sink, Collection<DoublePointData> points) {
+    MetricData metric = context.metric;
     for (DoublePointData point : points) {
+      if (shouldSkip(context, point, 0, sink)) {
+        continue;
+      }
+      if (encodeDoubleLine(context, point, MetricLineEncoder.COUNT_DELTA, point.getValue(), sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point)
+        sink.accept(
+            createMetricBuilder(context, point)
                 // We always expect monotonic sums as deltas, which will be exported as they are
                 .setDoubleCounterValueDelta(point.getValue())
                 .serialize());
       } catch (MetricException me) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
   }
 
   private void createLinesFromNonMonotonicDoubleSum(
-      MetricData metric, List<String> lines, Collection<DoublePointData> points) {
+      MetricContext context, MetricLineSink sink, Collection<DoublePointData> points) {
+    MetricData metric = context.metric;
     // We always expect UpDownCounters to be exported as cumulative values, which will be serialized
     // as gauge.
     for (DoublePointData point : points) {
+      if (shouldSkip(context, point, Double.doubleToLongBits(point.getValue()), sink)) {
+        continue;
+      }
+      if (encodeDoubleLine(context, point, MetricLineEncoder.GAUGE, point.getValue(), sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point)
+        sink.accept(
+            createMetricBuilder(context, point)
                 // non-monotonic sums are exported as gauge.
                 .setDoubleGaugeValue(point.getValue())
                 .serialize());
       } catch (MetricException e) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), e.getMessage()));
+        sink.lineDropped();
       }
     }
   }
 
   List<String> createDoubleSummaryLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createDoubleSummaryLines(metric, lines::add);
+    return lines;
+  }
+
+  void createDoubleSummaryLines(MetricData metric, MetricLineSink sink) {
     Collection<SummaryPointData> points = metric.getSummaryData().getPoints();
-    List<String> lines = new ArrayList<>(points.size());
+    MetricContext context = newContext(metric, false);
+    if (context == null) {
+      return;
+    }
     for (SummaryPointData point : points) {
+      if (shouldSkip(context, point, 0, sink)) {
+        continue;
+      }
       double min = Double.NaN;
       double max = Double.NaN;
       double sum = point.getSum();
@@ -229,105 +766,219 @@ final class Serializer {
         max = mean;
       }
 
+      if (encodeSummaryLine(context, point, min, max, sum, count, sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point)
+        sink.accept(
+            createMetricBuilder(context, point)
                 .setDoubleSummaryValue(min, max, sum, count)
                 .serialize());
       } catch (MetricException me) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
-    return lines;
   }
 
   List<String> createDoubleHistogramLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createDoubleHistogramLines(metric, lines::add);
+    return lines;
+  }
+
+  void createDoubleHistogramLines(MetricData metric, MetricLineSink sink) {
     // We always expect histograms as deltas.
     Collection<HistogramPointData> points = metric.getHistogramData().getPoints();
-    List<String> lines = new ArrayList<>(points.size());
+    MetricContext context = newContext(metric, false);
+    if (context == null) {
+      return;
+    }
     for (HistogramPointData point : points) {
-      double min = point.hasMin() ? point.getMin() : getMinFromBoundaries(point);
-      double max = point.hasMax() ? point.getMax() : getMaxFromBoundaries(point);
+      if (shouldSkip(context, point, 0, sink)) {
+        continue;
+      }
+      double min;
+      double max;
+      if (point.hasMin() && point.hasMax()) {
+        min = point.getMin();
+        max = point.getMax();
+      } else {
+        // the buckets are only searched once, for both estimates.
+        List<Long> counts = point.getCounts();
+        int first = firstNonEmptyBucket(counts);
+        min = point.hasMin() ? point.getMin() : estimateMin(point, first);
+        max =
+            point.hasMax() ? point.getMax() : estimateMax(point, lastNonEmptyBucket(counts, first));
+      }
       double sum = point.getSum();
       long count = point.getCount();
 
+      if (encodeSummaryLine(context, point, min, max, sum, count, sink)) {
+        continue;
+      }
       try {
-        lines.add(
-            createMetricBuilder(metric, point)
+        sink.accept(
+            createMetricBuilder(context, point)
                 .setDoubleSummaryValue(min, max, sum, count)
                 .serialize());
       } catch (MetricException me) {
         logger.warning(
             () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
+  }
+
+  List<String> createExponentialHistogramLines(MetricData metric) {
+    List<String> lines = new ArrayList<>();
+    createExponentialHistogramLines(metric, lines::add);
     return lines;
   }
 
-  @VisibleForTesting
-  static double getMinFromBoundaries(HistogramPointData pointData) {
-    if (pointData.getCounts().size() == 1) {
-      // In this case, only one bucket exists: (-Inf, Inf). If there were any boundaries, there
-      // would be more counts.
-      if (pointData.getCounts().get(0) > 0) {
-        // in case the single bucket contains something, use the mean as min.
-        return pointData.getSum() / pointData.getCount();
-      }
-      // otherwise, the histogram has no data. Use the sum as the min and max, respectively.
-      return pointData.getSum();
+  void createExponentialHistogramLines(MetricData metric, MetricLineSink sink) {
+    // We always expect histograms as deltas.
+    MetricContext context = newContext(metric, false);
+    if (context == null) {
+      return;
+    }
+    ExponentialHistogramSupport support = EXPONENTIAL_HISTOGRAMS;
+    if (support == null) {
+      logger.warning(
+          () ->
+              String.format(
+                  "Exponential histogram %s is not exported, it requires OpenTelemetry SDK 1.23+.",
+                  metric.getName()));
+      return;
     }
+    Collection<? extends PointData> points = support.getPoints(metric);
+    for (PointData point : points) {
+      if (shouldSkip(context, point, 0, sink)) {
+        continue;
+      }
+      double min = support.getMin(point);
+      double max = support.getMax(point);
+      double sum = support.getSum(point);
+      long count = support.getCount(point);
 
-    // iterate all buckets to find the first bucket with count > 0
-    for (int i = 0; i < pointData.getCounts().size(); i++) {
-      if (pointData.getCounts().get(i) > 0) {
-        // the current bucket contains something.
-        if (i == 0) {
-          // In the first bucket, (-Inf, firstBound], use firstBound (this is the lowest specified
-          // bound overall). This is not quite correct but the best approximation we can get at this
-          // point. However, this might lead to a min bigger than the mean, thus choose the minimum
-          // of the following:
-          // - The lowest boundary
-          // - The average of the histogram (histogram sum / sum of counts)
-          return Math.min(
-              pointData.getBoundaries().get(i), pointData.getSum() / pointData.getCount());
-        }
-        // In all other buckets (lowerBound, upperBound] use the lowerBound to estimate min.
-        return pointData.getBoundaries().get(i - 1);
+      if (encodeSummaryLine(context, point, min, max, sum, count, sink)) {
+        continue;
+      }
+      try {
+        sink.accept(
+            createMetricBuilder(context, point)
+                .setDoubleSummaryValue(min, max, sum, count)
+                .serialize());
+      } catch (MetricException me) {
+        logger.warning(
+            () -> String.format(TEMPLATE_ERR_METRIC_LINE, metric.getName(), me.getMessage()));
+        sink.lineDropped();
       }
     }
+  }
 
-    // there are no counts > 0, so calculating a mean would result in a division by 0. By returning
-    // the sum, we can let the backend decide what to do with the value (with a count of 0)
-    return pointData.getSum();
+  @VisibleForTesting
+  static double getMinFromBoundaries(HistogramPointData pointData) {
+    return estimateMin(pointData, firstNonEmptyBucket(pointData.getCounts()));
   }
 
   @VisibleForTesting
   static double getMaxFromBoundaries(HistogramPointData pointData) {
-    // see getMinFromBoundaries for a very similar method that is annotated.
-    if (pointData.getCounts().size() == 1) {
-      if (pointData.getCounts().get(0) > 0) {
-        return pointData.getSum() / pointData.getCount();
+    List<Long> counts = pointData.getCounts();
+    return estimateMax(pointData, lastNonEmptyBucket(counts, firstNonEmptyBucket(counts)));
+  }
+
+  /**
+   * The index of the first bucket with a count > 0, or -1 if all buckets are empty.
+   *
+   * <p>The counts are read through {@code List<Long>}, as that is the only way the public API of
+   * any supported SDK version exposes them, including that of exponential histogram buckets. The
+   * SDK backs them with a {@code long[]}, but the class doing so lives in an internal package that
+   * may change with every release. Instead of reading them more than once, each count is read at
+   * most once per point, see {@link #lastNonEmptyBucket}.
+   */
+  static int firstNonEmptyBucket(List<Long> counts) {
+    int size = counts.size();
+    for (int i = 0; i < size; i++) {
+      if (counts.get(i) > 0) {
+        return i;
       }
-      return pointData.getSum();
     }
+    return -1;
+  }
 
-    int lastElemIdx = pointData.getCounts().size() - 1;
-    // loop over counts in reverse
-    for (int i = lastElemIdx; i >= 0; i--) {
-      if (pointData.getCounts().get(i) > 0) {
-        if (i == lastElemIdx) {
-          // use the last bound in the bounds array. This can only be the case if there is a count >
-          // 0 in the last bucket (lastBound, Inf). In some cases, the mean of the histogram is
-          // larger than this bound, thus use the maximum of the estimated bound and the mean.
-          return Math.max(
-              pointData.getBoundaries().get(i - 1), pointData.getSum() / pointData.getCount());
-        }
-        // In any other bucket (lowerBound, upperBound], use the upperBound.
-        return pointData.getBoundaries().get(i);
+  /**
+   * The index of the last bucket with a count > 0, or -1 if all buckets are empty. Searches
+   * backwards down to the first non-empty bucket only, so finding both reads every count at most
+   * once, apart from the first non-empty one.
+   *
+   * @param first the index of the first non-empty bucket, see {@link #firstNonEmptyBucket}.
+   */
+  static int lastNonEmptyBucket(List<Long> counts, int first) {
+    if (first < 0) {
+      return -1;
+    }
+    for (int i = counts.size() - 1; i > first; i--) {
+      if (counts.get(i) > 0) {
+        return i;
       }
     }
+    return first;
+  }
 
-    return pointData.getSum();
+  /**
+   * Estimates the min of a histogram without recorded min from its boundaries.
+   *
+   * @param first the index of the first non-empty bucket, see {@link #firstNonEmptyBucket}.
+   */
+  static double estimateMin(HistogramPointData pointData, int first) {
+    if (first < 0) {
+      // there are no counts > 0, so calculating a mean would result in a division by 0. By
+      // returning the sum, we can let the backend decide what to do with the value (with a count
+      // of 0)
+      return pointData.getSum();
+    }
+    if (pointData.getCounts().size() == 1) {
+      // In this case, only one bucket exists: (-Inf, Inf). If there were any boundaries, there
+      // would be more counts. As the single bucket contains something, use the mean as min.
+      return pointData.getSum() / pointData.getCount();
+    }
+    if (first == 0) {
+      // In the first bucket, (-Inf, firstBound], use firstBound (this is the lowest specified
+      // bound overall). This is not quite correct but the best approximation we can get at this
+      // point. However, this might lead to a min bigger than the mean, thus choose the minimum
+      // of the following:
+      // - The lowest boundary
+      // - The average of the histogram (histogram sum / sum of counts)
+      return Math.min(pointData.getBoundaries().get(0), pointData.getSum() / pointData.getCount());
+    }
+    // In all other buckets (lowerBound, upperBound] use the lowerBound to estimate min.
+    return pointData.getBoundaries().get(first - 1);
+  }
+
+  /**
+   * Estimates the max of a histogram without recorded max from its boundaries, see {@link
+   * #estimateMin} for a very similar method that is annotated.
+   *
+   * @param last the index of the last non-empty bucket, see {@link #lastNonEmptyBucket}.
+   */
+  static double estimateMax(HistogramPointData pointData, int last) {
+    if (last < 0) {
+      return pointData.getSum();
+    }
+    int lastBucket = pointData.getCounts().size() - 1;
+    if (lastBucket == 0) {
+      return pointData.getSum() / pointData.getCount();
+    }
+    if (last == lastBucket) {
+      // use the last bound in the bounds array. This can only be the case if there is a count > 0
+      // in the last bucket (lastBound, Inf). In some cases, the mean of the histogram is larger
+      // than this bound, thus use the maximum of the estimated bound and the mean.
+      return Math.max(
+          pointData.getBoundaries().get(last - 1), pointData.getSum() / pointData.getCount());
+    }
+    // In any other bucket (lowerBound, upperBound], use the upperBound.
+    return pointData.getBoundaries().get(last);
   }
 }
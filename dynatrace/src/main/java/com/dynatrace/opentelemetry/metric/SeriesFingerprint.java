@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+/**
+ * Identifies a series by a 64-bit hash of its metric key and serialized dimensions, so that series
+ * can be kept in primitive arrays. Different series might share a fingerprint, which is very
+ * unlikely at the number of series a single exporter sees. 0 is never used as a fingerprint, so
+ * that it can mark empty slots.
+ */
+final class SeriesFingerprint {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private SeriesFingerprint() {}
+
+  /** The FNV-1a hash of the characters of the string. */
+  static long hash(String value) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Combines the hashes of the metric key and the dimensions into the fingerprint of a series.
+   * FNV-1a spreads the last characters poorly over the upper bits, so the result is mixed with the
+   * finalizer of MurmurHash3.
+   */
+  static long of(long metricKeyHash, long dimensionsHash) {
+    long hash = metricKeyHash * FNV_PRIME + dimensionsHash;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash != 0 ? hash : 1;
+  }
+}
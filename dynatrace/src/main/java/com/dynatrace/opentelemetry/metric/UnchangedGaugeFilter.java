@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Remembers the last exported value of gauge series, so that the {@link Serializer} can skip lines
+ * of series whose value did not change. A series is identified by its {@link SeriesFingerprint}
+ * and the value is kept as raw bits, so the series are held in primitive arrays instead of boxed
+ * map entries. A line is only skipped for a limited time after the last line of its series was
+ * exported, so the backend still receives a line every once in a while.
+ *
+ * <p>The series are spread over a fixed number of segments that are locked separately, as lines
+ * might be created on several threads at once. Once a segment is full, series that would be
+ * exported anyway are removed from it. If that is not enough, the segment is cleared, which only
+ * means that the lines of its series are exported once more.
+ *
+ * <p>Values are remembered while the lines are created, before they are sent. The exporter
+ * collects the {@link RememberedPoints} of an export and {@link #forget forgets} them if the
+ * export fails, so the same values are not skipped in the next export.
+ */
+final class UnchangedGaugeFilter {
+  // the upper bits of a fingerprint select the segment, the lower bits the slot within it.
+  private static final int SEGMENT_BITS = 4;
+  private static final int INITIAL_SEGMENT_CAPACITY = 64;
+  // the export time of series whose last line was not exported after all.
+  private static final long NOT_EXPORTED = Long.MIN_VALUE;
+
+  private final long maxSuppressionNanos;
+  private final Segment[] segments;
+
+  /**
+   * @param maxSuppression the time after which a line is exported even if its value did not
+   *     change.
+   * @param maxSeries the approximate number of series that are remembered.
+   */
+  UnchangedGaugeFilter(Duration maxSuppression, int maxSeries) {
+    this.maxSuppressionNanos = maxSuppression.toNanos();
+    int segmentCount = 1 << SEGMENT_BITS;
+    // slots are only filled up to half of the capacity, to keep probe sequences short.
+    int maxCapacity =
+        Math.max(
+            INITIAL_SEGMENT_CAPACITY,
+            Integer.highestOneBit(Math.max(1, maxSeries / segmentCount) - 1) << 2);
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(maxCapacity);
+    }
+  }
+
+  /**
+   * Whether the line of a series can be skipped, which is the case if the last exported line of
+   * the series had the same value and is not older than the maximum suppression time. Otherwise,
+   * the value is remembered as exported.
+   *
+   * @param fingerprint see {@link SeriesFingerprint}.
+   * @param value the value, or the raw bits of a double value.
+   * @param epochNanos the timestamp of the point, which is used as the clock.
+   */
+  boolean isUnchanged(long fingerprint, long value, long epochNanos) {
+    Segment segment = segments[(int) (fingerprint >>> (Long.SIZE - SEGMENT_BITS))];
+    synchronized (segment) {
+      return segment.isUnchanged(fingerprint, value, epochNanos, maxSuppressionNanos);
+    }
+  }
+
+  /**
+   * Forgets the values remembered for the points, as their lines were not exported after all. A
+   * series is left alone if a later point of it has been remembered since.
+   */
+  void forget(RememberedPoints points) {
+    for (int i = 0; i < points.size; i++) {
+      long fingerprint = points.fingerprints[i];
+      Segment segment = segments[(int) (fingerprint >>> (Long.SIZE - SEGMENT_BITS))];
+      synchronized (segment) {
+        segment.forget(fingerprint, points.timestamps[i]);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * The points whose values were remembered as exported while the lines of an export were created.
+   * Instances are not thread-safe.
+   */
+  static final class RememberedPoints {
+    @FunctionalInterface
+    interface PointConsumer {
+      void accept(long fingerprint, long epochNanos);
+    }
+
+    private long[] fingerprints = new long[0];
+    private long[] timestamps = new long[0];
+    private int size;
+
+    void add(long fingerprint, long epochNanos) {
+      if (size == fingerprints.length) {
+        int capacity = Math.max(16, size * 2);
+        fingerprints = Arrays.copyOf(fingerprints, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+      }
+      fingerprints[size] = fingerprint;
+      timestamps[size] = epochNanos;
+      size++;
+    }
+
+    /** Passes the fingerprint and timestamp of every point to the consumer, in insertion order. */
+    void forEach(PointConsumer consumer) {
+      for (int i = 0; i < size; i++) {
+        consumer.accept(fingerprints[i], timestamps[i]);
+      }
+    }
+
+    int size() {
+      return size;
+    }
+  }
+
+  /** An open addressing hash table with linear probing, keyed by fingerprint. */
+  private static final class Segment {
+    private final int maxCapacity;
+    private long[] fingerprints;
+    private long[] values;
+    private long[] exportedNanos;
+    private int size;
+
+    Segment(int maxCapacity) {
+      this.maxCapacity = maxCapacity;
+      allocate(INITIAL_SEGMENT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+      fingerprints = new long[capacity];
+      values = new long[capacity];
+      exportedNanos = new long[capacity];
+      size = 0;
+    }
+
+    boolean isUnchanged(long fingerprint, long value, long epochNanos, long maxSuppressionNanos) {
+      int mask = fingerprints.length - 1;
+      int slot = (int) fingerprint & mask;
+      while (true) {
+        long current = fingerprints[slot];
+        if (current == fingerprint) {
+          if (values[slot] == value
+              && isSuppressed(exportedNanos[slot], epochNanos, maxSuppressionNanos)) {
+            return true;
+          }
+          values[slot] = value;
+          exportedNanos[slot] = epochNanos;
+          return false;
+        }
+        if (current == 0) {
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (2 * (size + 1) > fingerprints.length) {
+        rebuild(epochNanos, maxSuppressionNanos);
+      }
+      insert(fingerprint, value, epochNanos);
+      return false;
+    }
+
+    /**
+     * Grows the table, or, once it has reached its maximum capacity, removes the series that would
+     * not be suppressed anymore. Clears the table if that does not free enough slots.
+     */
+    private void rebuild(long epochNanos, long maxSuppressionNanos) {
+      long[] oldFingerprints = fingerprints;
+      long[] oldValues = values;
+      long[] oldExportedNanos = exportedNanos;
+      boolean grow = oldFingerprints.length < maxCapacity;
+      allocate(grow ? oldFingerprints.length * 2 : oldFingerprints.length);
+      for (int i = 0; i < oldFingerprints.length; i++) {
+        if (oldFingerprints[i] == 0) {
+          continue;
+        }
+        if (grow || isSuppressed(oldExportedNanos[i], epochNanos, maxSuppressionNanos)) {
+          insert(oldFingerprints[i], oldValues[i], oldExportedNanos[i]);
+        }
+      }
+      if (2 * (size + 1) > fingerprints.length) {
+        allocate(fingerprints.length);
+      }
+    }
+
+    void forget(long fingerprint, long epochNanos) {
+      int mask = fingerprints.length - 1;
+      int slot = (int) fingerprint & mask;
+      long current;
+      while ((current = fingerprints[slot]) != 0) {
+        if (current == fingerprint) {
+          if (exportedNanos[slot] == epochNanos) {
+            // keeps the slot, removing it would break the probe sequences of other series.
+            exportedNanos[slot] = NOT_EXPORTED;
+          }
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    private static boolean isSuppressed(
+        long exportedNanos, long epochNanos, long maxSuppressionNanos) {
+      if (exportedNanos == NOT_EXPORTED) {
+        return false;
+      }
+      long elapsed = epochNanos - exportedNanos;
+      return elapsed >= 0 && elapsed < maxSuppressionNanos;
+    }
+
+    private void insert(long fingerprint, long value, long epochNanos) {
+      int mask = fingerprints.length - 1;
+      int slot = (int) fingerprint & mask;
+      while (fingerprints[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      fingerprints[slot] = fingerprint;
+      values[slot] = value;
+      exportedNanos[slot] = epochNanos;
+      size++;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class CardinalityLimiterTest {
+  private final CardinalityLimiter limiter = new CardinalityLimiter(3, Duration.ofHours(1), 10);
+
+  private static long fingerprint(String metricKey, String dimensions) {
+    return SeriesFingerprint.of(
+        SeriesFingerprint.hash(metricKey), SeriesFingerprint.hash(dimensions));
+  }
+
+  @Test
+  void admitsSeriesUpToBudget() {
+    CardinalityLimiter.SeriesBudget budget = limiter.getBudget("my.metric");
+
+    assertThat(budget.admit(fingerprint("my.metric", ",id=1"))).isTrue();
+    assertThat(budget.admit(fingerprint("my.metric", ",id=2"))).isTrue();
+    assertThat(budget.admit(fingerprint("my.metric", ",id=3"))).isTrue();
+    assertThat(budget.admit(fingerprint("my.metric", ",id=4"))).isFalse();
+    assertThat(budget.admit(fingerprint("my.metric", ",id=5"))).isFalse();
+    // admitted series stay admitted.
+    assertThat(budget.admit(fingerprint("my.metric", ",id=1"))).isTrue();
+
+    assertThat(budget.size()).isEqualTo(3);
+    assertThat(budget.getLimitedPoints()).isEqualTo(2);
+    assertThat(limiter.getLimitedPoints()).isEqualTo(2);
+  }
+
+  @Test
+  void limitsMetricsSeparately() {
+    CardinalityLimiter.SeriesBudget first = limiter.getBudget("first.metric");
+    CardinalityLimiter.SeriesBudget second = limiter.getBudget("second.metric");
+    for (int i = 0; i < 3; i++) {
+      assertThat(first.admit(fingerprint("first.metric", ",id=" + i))).isTrue();
+    }
+
+    assertThat(first.admit(fingerprint("first.metric", ",id=3"))).isFalse();
+    assertThat(second.admit(fingerprint("second.metric", ",id=3"))).isTrue();
+    assertThat(limiter.getBudget("first.metric")).isSameAs(first);
+  }
+
+  @Test
+  void growsUpToLargeBudgets() {
+    CardinalityLimiter large = new CardinalityLimiter(10_000, Duration.ofHours(1), 10);
+    CardinalityLimiter.SeriesBudget budget = large.getBudget("my.metric");
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(budget.admit(fingerprint("my.metric", ",id=" + i))).isTrue();
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(budget.admit(fingerprint("my.metric", ",id=" + i))).isTrue();
+    }
+
+    assertThat(budget.admit(fingerprint("my.metric", ",id=10000"))).isFalse();
+    assertThat(budget.size()).isEqualTo(10_000);
+  }
+}
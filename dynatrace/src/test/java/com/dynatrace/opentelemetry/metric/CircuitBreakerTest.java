@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dynatrace.opentelemetry.metric.CircuitBreakerPolicy.State;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final List<String> stateChanges = new ArrayList<>();
+
+  private CircuitBreaker newBreaker(CircuitBreakerPolicy.Builder policy) {
+    return new CircuitBreaker(
+        policy
+            .setWindowSize(4)
+            .setMinimumRequests(4)
+            .setSlowRequestDuration(Duration.ofSeconds(1))
+            .setOpenDuration(Duration.ofSeconds(30))
+            .setStateListener((from, to) -> stateChanges.add(from + "->" + to))
+            .build(),
+        nanoTime::get);
+  }
+
+  private static void send(CircuitBreaker breaker, boolean failed, long nanos) {
+    long permit = breaker.tryAcquire();
+    assertThat(permit).isNotEqualTo(CircuitBreaker.NO_PERMIT);
+    breaker.onResult(permit, failed, nanos);
+  }
+
+  @Test
+  void opensAtFailureRate() {
+    CircuitBreaker breaker = newBreaker(CircuitBreakerPolicy.builder());
+
+    send(breaker, true, FAST);
+    send(breaker, true, FAST);
+    send(breaker, false, FAST);
+    // not enough requests yet.
+    assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    send(breaker, false, FAST);
+    assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+    assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.NO_PERMIT);
+    assertThat(breaker.rejectsExport()).isTrue();
+    assertThat(breaker.getRejected()).isEqualTo(2);
+    assertThat(stateChanges).containsExactly("CLOSED->OPEN");
+  }
+
+  @Test
+  void forgetsRequestsOutsideWindow() {
+    CircuitBreaker breaker = newBreaker(CircuitBreakerPolicy.builder());
+
+    send(breaker, true, FAST);
+    for (int i = 0; i < 4; i++) {
+      send(breaker, false, FAST);
+    }
+    send(breaker, true, FAST);
+    // only one of the last four requests failed.
+    assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void opensAtSlowRequestRate() {
+    CircuitBreaker breaker =
+        newBreaker(CircuitBreakerPolicy.builder().setSlowRequestRateThreshold(0.75));
+
+    send(breaker, false, SLOW);
+    send(breaker, false, FAST);
+    send(breaker, false, SLOW);
+    send(breaker, false, SLOW);
+    assertThat(breaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void closesAfterSuccessfulProbes() {
+    CircuitBreaker breaker = newBreaker(CircuitBreakerPolicy.builder().setProbeRequests(2));
+    for (int i = 0; i < 4; i++) {
+      send(breaker, true, FAST);
+    }
+    assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    assertThat(breaker.rejectsExport()).isFalse();
+    long first = breaker.tryAcquire();
+    assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    long second = breaker.tryAcquire();
+    assertThat(second).isEqualTo(first).isNotEqualTo(CircuitBreaker.NO_PERMIT);
+    // only two probes are allowed at a time.
+    assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.NO_PERMIT);
+
+    breaker.onResult(first, false, FAST);
+    assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    breaker.onResult(second, false, FAST);
+    assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    assertThat(stateChanges)
+        .containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+
+    // the requests before opening are forgotten.
+    send(breaker, true, FAST);
+    assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void reopensAfterFailedProbe() {
+    CircuitBreaker breaker = newBreaker(CircuitBreakerPolicy.builder());
+    for (int i = 0; i < 4; i++) {
+      send(breaker, true, FAST);
+    }
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    send(breaker, false, SLOW);
+    assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.NO_PERMIT);
+    assertThat(breaker.getTransitions(State.OPEN)).isEqualTo(2);
+    assertThat(breaker.getTransitions(State.HALF_OPEN)).isEqualTo(1);
+  }
+
+  @Test
+  void ignoresResultsOfEarlierStates() {
+    CircuitBreaker breaker = newBreaker(CircuitBreakerPolicy.builder());
+    // sent while closed, answered only after the breaker opened.
+    long late = breaker.tryAcquire();
+    for (int i = 0; i < 4; i++) {
+      send(breaker, true, FAST);
+    }
+    assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    long probe = breaker.tryAcquire();
+    assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    // neither reopens nor closes the half-open breaker.
+    breaker.onResult(late, true, SLOW);
+    assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    breaker.onResult(late, false, FAST);
+    assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+    breaker.onResult(probe, false, FAST);
+    assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPartitionSenderTest {
+  private static final byte[] BODY = "my.metric 1".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void completesResultOfSuccessfulPartitions() {
+    ConcurrentPartitionSender sender = new ConcurrentPartitionSender(2);
+    ConcurrentPartitionSender.Upload upload = sender.newUpload((body, length, lineCount) -> true);
+
+    assertThat(upload.send(BODY, BODY.length, 1)).isTrue();
+    assertThat(upload.send(BODY, BODY.length, 1)).isTrue();
+    assertThat(upload.result().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    sender.shutdown();
+  }
+
+  @Test
+  void failsResultIfSenderThrows() {
+    ConcurrentPartitionSender sender = new ConcurrentPartitionSender(2);
+    ConcurrentPartitionSender.Upload upload =
+        sender.newUpload(
+            (body, length, lineCount) -> {
+              throw new IllegalStateException("broken spool");
+            });
+
+    upload.send(BODY, BODY.length, 1);
+    CompletableResultCode result = upload.result().join(10, TimeUnit.SECONDS);
+    assertThat(result.isDone()).isTrue();
+    assertThat(result.isSuccess()).isFalse();
+    // the permit was released, so later partitions are not blocked.
+    assertThat(upload.send(BODY, BODY.length, 1)).isFalse();
+    sender.shutdown();
+  }
+}
@@ -21,24 +21,43 @@ import static org.mockito.Mockito.*;
 
 import com.dynatrace.metric.util.Dimension;
 import com.dynatrace.metric.util.DimensionList;
+import com.dynatrace.metric.util.DynatraceMetricApiConstants;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
 import io.opentelemetry.sdk.metrics.data.MetricData;
 import io.opentelemetry.sdk.metrics.data.MetricDataType;
 import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
 import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
 import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.ProtocolException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -64,9 +83,10 @@ class DynatraceMetricExporterTest {
             .setEnrichWithOneAgentMetaData(false)
             .setApiToken("mytoken")
             .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
             .build();
 
-    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md), connection);
+    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
 
     assertExportRequestSuccess(
         connection,
@@ -93,9 +113,10 @@ class DynatraceMetricExporterTest {
             .setEnrichWithOneAgentMetaData(false)
             .setApiToken("mytoken")
             .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
             .build();
 
-    assertThat(metricExporter.doExport(Collections.singleton(md), connection))
+    assertThat(metricExporter.doExport(Collections.singleton(md)))
         .isEqualTo(CompletableResultCode.ofFailure());
   }
 
@@ -111,9 +132,10 @@ class DynatraceMetricExporterTest {
             .setEnrichWithOneAgentMetaData(false)
             .setApiToken("mytoken")
             .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
             .build();
 
-    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md), connection);
+    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
 
     assertEquals(CompletableResultCode.ofFailure(), result);
   }
@@ -134,10 +156,11 @@ class DynatraceMetricExporterTest {
             .setEnrichWithOneAgentMetaData(false)
             .setApiToken("mytoken")
             .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
             .setPrefix("prefix")
             .build();
 
-    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md), connection);
+    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
 
     assertExportRequestSuccess(
         connection,
@@ -148,6 +171,46 @@ class DynatraceMetricExporterTest {
         result);
   }
 
+  @Test
+  void testExportWithGzipCompression() throws IOException {
+    MetricData md = generateValidDoubleSumData();
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ByteArrayInputStream bis =
+        new ByteArrayInputStream(
+            "{\n\"linesOk\": 1,\n\"linesInvalid\": 0,\n  \"error\": null\n}".getBytes());
+
+    HttpURLConnection connection = setUpMockConnection(202, bos, bis);
+
+    DynatraceMetricExporter metricExporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setApiToken("mytoken")
+            .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
+            .setGzipCompression(true)
+            .build();
+
+    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
+
+    assertEquals(CompletableResultCode.ofSuccess(), result);
+    assertRequestProperties(connection);
+    verify(connection).setRequestProperty("Content-Encoding", "gzip");
+
+    ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        decompressed.write(buffer, 0, read);
+      }
+    }
+    assertEquals(
+        String.format(
+            "%s,dt.metrics.source=opentelemetry count,delta=194.0 %d", DEFAULT_NAME, MILLIS_TS_2),
+        decompressed.toString());
+  }
+
   @Test
   void addDefaultDimensions() throws IOException {
     MetricData md = generateValidDoubleSumData();
@@ -164,10 +227,11 @@ class DynatraceMetricExporterTest {
             .setEnrichWithOneAgentMetaData(false)
             .setApiToken("mytoken")
             .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
             .setDefaultDimensions(Attributes.of(AttributeKey.stringKey("default"), "value"))
             .build();
 
-    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md), connection);
+    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
 
     assertExportRequestSuccess(
         connection,
@@ -195,9 +259,10 @@ class DynatraceMetricExporterTest {
             .setEnrichWithOneAgentMetaData(false)
             .setApiToken("mytoken")
             .setUrl(connection.getURL())
+            .setHttpSender(senderFor(connection))
             .build();
 
-    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md), connection);
+    CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
 
     assertRequestProperties(connection);
 
@@ -247,9 +312,10 @@ class DynatraceMetricExporterTest {
               .setEnrichWithOneAgentMetaData(true) // trigger retrieval of DynatraceMetadata
               .setApiToken("mytoken")
               .setUrl(connection.getURL())
+              .setHttpSender(senderFor(connection))
               .build();
 
-      CompletableResultCode result = metricExporter.doExport(Collections.singleton(md), connection);
+      CompletableResultCode result = metricExporter.doExport(Collections.singleton(md));
       assertThat(result).isEqualTo(CompletableResultCode.ofSuccess());
       assertThat(bos.toString())
           .contains("dt.metadata.one=value_one")
@@ -262,6 +328,10 @@ class DynatraceMetricExporterTest {
     }
   }
 
+  private static HttpSender senderFor(HttpURLConnection connection) {
+    return new HttpUrlConnectionSender(connection.getURL(), "mytoken", url -> connection);
+  }
+
   private HttpURLConnection setUpMockConnection(
       int statusCode, ByteArrayOutputStream outputStream, ByteArrayInputStream response)
       throws IOException {
@@ -288,7 +358,7 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.LONG_SUM);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    verify(serializerMock).createLongSumLines(metricData);
+    verify(serializerMock).createLongSumLines(eq(metricData), any(MetricLineSink.class));
   }
 
   @Test
@@ -300,7 +370,7 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.LONG_GAUGE);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    verify(serializerMock).createLongGaugeLines(metricData);
+    verify(serializerMock).createLongGaugeLines(eq(metricData), any(MetricLineSink.class));
   }
 
   @Test
@@ -312,7 +382,7 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.DOUBLE_SUM);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    verify(serializerMock).createDoubleSumLines(metricData);
+    verify(serializerMock).createDoubleSumLines(eq(metricData), any(MetricLineSink.class));
   }
 
   @Test
@@ -324,7 +394,7 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.DOUBLE_GAUGE);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    verify(serializerMock).createDoubleGaugeLines(metricData);
+    verify(serializerMock).createDoubleGaugeLines(eq(metricData), any(MetricLineSink.class));
   }
 
   @Test
@@ -336,7 +406,7 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.SUMMARY);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    verify(serializerMock).createDoubleSummaryLines(metricData);
+    verify(serializerMock).createDoubleSummaryLines(eq(metricData), any(MetricLineSink.class));
   }
 
   @Test
@@ -348,7 +418,7 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.HISTOGRAM);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    verify(serializerMock).createDoubleHistogramLines(metricData);
+    verify(serializerMock).createDoubleHistogramLines(eq(metricData), any(MetricLineSink.class));
   }
 
   @Test
@@ -360,9 +430,8 @@ class DynatraceMetricExporterTest {
 
     when(metricData.getType()).thenReturn(MetricDataType.EXPONENTIAL_HISTOGRAM);
     exporter.serializeToMetricLines(Collections.singletonList(metricData));
-    // no interactions should have occurred with the mock, as we don't deal with Exponential
-    // Histogram yet.
-    verifyNoInteractions(serializerMock);
+    verify(serializerMock)
+        .createExponentialHistogramLines(eq(metricData), any(MetricLineSink.class));
   }
 
   private static Stream<Arguments> provideInstrumentTypes() {
@@ -388,10 +457,10 @@ class DynatraceMetricExporterTest {
     URL urlMock = mock(URL.class);
     when(urlMock.openConnection()).thenThrow(new IOException("mocked exception"));
 
-    // the serializer is not used, as the exception is thrown much earlier.
     DynatraceMetricExporter exporter =
-        new DynatraceMetricExporter(urlMock, "test", mock(Serializer.class));
-    assertThat(exporter.export(Mockito.any())).isEqualTo(CompletableResultCode.ofFailure());
+        new DynatraceMetricExporter(urlMock, "test", serializerMockReturning("a gauge,3"));
+    assertThat(exporter.export(Collections.singletonList(longGaugeMetricDataMock())))
+        .isEqualTo(CompletableResultCode.ofFailure());
   }
 
   @Test
@@ -411,22 +480,762 @@ class DynatraceMetricExporterTest {
   void testConnectionThrowsException() throws IOException {
     URL urlMock = mock(URL.class);
     HttpURLConnection connectionMock = mock(HttpURLConnection.class);
-    Serializer serializerMock = mock(Serializer.class);
-    MetricData metricDataMock = mock(MetricData.class);
 
-    when(urlMock.openConnection()).thenReturn(mock(HttpURLConnection.class));
     doThrow(new ProtocolException("mocked ex"))
         .when(connectionMock)
         .setRequestMethod(Mockito.anyString());
-    when(metricDataMock.getType()).thenReturn(MetricDataType.LONG_GAUGE);
-    when(serializerMock.createLongGaugeLines(Mockito.any(MetricData.class)))
-        .thenReturn(Collections.singletonList("a gauge,3"));
 
-    DynatraceMetricExporter exporter = new DynatraceMetricExporter(urlMock, "test", serializerMock);
-    assertThat(exporter.doExport(Collections.singletonList(metricDataMock), connectionMock))
+    DynatraceMetricExporter exporter =
+        new DynatraceMetricExporter(
+            new HttpUrlConnectionSender(urlMock, "test", url -> connectionMock),
+            serializerMockReturning("a gauge,3"));
+    assertThat(exporter.doExport(Collections.singletonList(longGaugeMetricDataMock())))
+        .isEqualTo(CompletableResultCode.ofFailure());
+  }
+
+  @Test
+  void testExportOpensNewRequestPerPartition() throws IOException {
+    int linesLimit = DynatraceMetricApiConstants.getPayloadLinesLimit();
+    List<HttpURLConnection> connections = new ArrayList<>();
+    List<ByteArrayOutputStream> bodies = new ArrayList<>();
+    HttpUrlConnectionSender.ConnectionFactory connectionFactory =
+        url -> {
+          ByteArrayOutputStream bos = new ByteArrayOutputStream();
+          HttpURLConnection connection =
+              setUpMockConnection(
+                  202,
+                  bos,
+                  new ByteArrayInputStream(
+                      "{\n\"linesOk\": 1,\n\"linesInvalid\": 0,\n  \"error\": null\n}".getBytes()));
+          connections.add(connection);
+          bodies.add(bos);
+          return connection;
+        };
+
+    Serializer serializerMock = mock(Serializer.class);
+    doAnswer(
+            invocation -> {
+              MetricLineSink sink = invocation.getArgument(1);
+              for (int i = 0; i <= linesLimit; i++) {
+                sink.accept("a gauge," + i);
+              }
+              return null;
+            })
+        .when(serializerMock)
+        .createLongGaugeLines(Mockito.any(MetricData.class), Mockito.any(MetricLineSink.class));
+
+    DynatraceMetricExporter exporter =
+        new DynatraceMetricExporter(
+            new HttpUrlConnectionSender(new URL("http://localhost"), "mytoken", connectionFactory),
+            serializerMock);
+
+    assertThat(exporter.export(Collections.singletonList(longGaugeMetricDataMock())))
+        .isEqualTo(CompletableResultCode.ofSuccess());
+
+    // one full partition and one partition with the remaining line.
+    assertThat(connections).hasSize(2);
+    for (HttpURLConnection connection : connections) {
+      assertRequestProperties(connection);
+      // the connection is never disconnected, so the JDK can keep the socket alive.
+      verify(connection, never()).disconnect();
+    }
+    assertThat(bodies.get(0).toString().split("\n")).hasSize(linesLimit);
+    assertThat(bodies.get(1).toString()).isEqualTo("a gauge," + linesLimit);
+  }
+
+  @Test
+  void testConcurrentExportLimitsRequestsInFlight() {
+    int linesLimit = DynatraceMetricApiConstants.getPayloadLinesLimit();
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          int current = inFlight.incrementAndGet();
+          maxInFlight.accumulateAndGet(current, Math::max);
+          requests.incrementAndGet();
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          inFlight.decrementAndGet();
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setMaxConcurrentRequests(2)
+            .build();
+
+    MetricData md = generateValidDoubleSumData();
+    List<MetricData> metrics = Collections.nCopies(linesLimit * 5, md);
+    CompletableResultCode result = exporter.export(metrics).join(10, TimeUnit.SECONDS);
+
+    assertThat(result.isSuccess()).isTrue();
+    assertThat(requests.get()).isEqualTo(5);
+    assertThat(maxInFlight.get()).isBetween(1, 2);
+    exporter.shutdown();
+  }
+
+  @Test
+  void testConcurrentExportFailsIfAnyPartitionFails() {
+    int linesLimit = DynatraceMetricApiConstants.getPayloadLinesLimit();
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          if (requests.incrementAndGet() == 2) {
+            return response(400, "");
+          }
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setMaxConcurrentRequests(4)
+            .build();
+
+    List<MetricData> metrics = Collections.nCopies(linesLimit * 3, generateValidDoubleSumData());
+    CompletableResultCode result = exporter.export(metrics).join(10, TimeUnit.SECONDS);
+
+    assertThat(result.isDone()).isTrue();
+    assertThat(result.isSuccess()).isFalse();
+    exporter.shutdown();
+  }
+
+  @Test
+  void testAsyncExportReturnsBeforeRequestCompletes() throws InterruptedException {
+    CountDownLatch requestStarted = new CountDownLatch(1);
+    CountDownLatch releaseRequest = new CountDownLatch(1);
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requestStarted.countDown();
+          try {
+            releaseRequest.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setAsyncExport(true)
+            .build();
+
+    CompletableResultCode result =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    assertThat(requestStarted.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(result.isDone()).isFalse();
+
+    CompletableResultCode flushResult = exporter.flush();
+    assertThat(flushResult.isDone()).isFalse();
+
+    releaseRequest.countDown();
+    assertThat(flushResult.join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(result.isDone()).isTrue();
+    assertThat(result.isSuccess()).isTrue();
+    assertThat(exporter.shutdown()).isEqualTo(CompletableResultCode.ofSuccess());
+  }
+
+  @Test
+  void testShutdownDrainsPendingAsyncExports() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          try {
+            Thread.sleep(50);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          requests.incrementAndGet();
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setAsyncExport(true)
+            .build();
+
+    CompletableResultCode first =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    CompletableResultCode second =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+
+    assertThat(exporter.shutdown()).isEqualTo(CompletableResultCode.ofSuccess());
+    assertThat(first.isSuccess()).isTrue();
+    assertThat(second.isSuccess()).isTrue();
+    assertThat(requests.get()).isEqualTo(2);
+
+    // no exports are accepted after shutdown.
+    assertThat(exporter.export(Collections.singleton(generateValidDoubleSumData())))
         .isEqualTo(CompletableResultCode.ofFailure());
   }
 
+  @Test
+  void testExportJitterDelaysRequests() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setExportJitter(Duration.ofMillis(200))
+            .build();
+
+    CompletableResultCode result =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    assertThat(result.join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(requests.get()).isEqualTo(1);
+    assertThat(exporter.shutdown()).isEqualTo(CompletableResultCode.ofSuccess());
+  }
+
+  @Test
+  void testShutdownSendsExportsWaitingForJitter() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setExportJitter(Duration.ofHours(1))
+            .build();
+
+    CompletableResultCode result =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    assertThat(result.isDone()).isFalse();
+    assertThat(requests.get()).isZero();
+
+    assertThat(exporter.shutdown()).isEqualTo(CompletableResultCode.ofSuccess());
+    assertThat(result.isSuccess()).isTrue();
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testOpenCircuitBreakerFailsExportsWithoutRequest() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(503, "");
+        };
+    List<String> stateChanges = Collections.synchronizedList(new ArrayList<>());
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setCircuitBreaker(
+                CircuitBreakerPolicy.builder()
+                    .setWindowSize(2)
+                    .setMinimumRequests(2)
+                    .setStateListener((from, to) -> stateChanges.add(from + "->" + to))
+                    .build())
+            .build();
+
+    Collection<MetricData> metrics = Collections.singleton(generateValidDoubleSumData());
+    assertThat(exporter.export(metrics).isSuccess()).isFalse();
+    assertThat(exporter.export(metrics).isSuccess()).isFalse();
+    assertThat(requests.get()).isEqualTo(2);
+    assertThat(stateChanges).containsExactly("CLOSED->OPEN");
+
+    assertThat(exporter.export(metrics).isSuccess()).isFalse();
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testRetriesTransientFailures() {
+    List<Integer> statusCodes = Collections.synchronizedList(new ArrayList<>());
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          if (statusCodes.size() < 2) {
+            statusCodes.add(503);
+            return response(503, "");
+          }
+          statusCodes.add(202);
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setRetryPolicy(fastRetryPolicy(5))
+            .build();
+
+    CompletableResultCode result =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+
+    assertThat(result.isSuccess()).isTrue();
+    assertThat(statusCodes).containsExactly(503, 503, 202);
+  }
+
+  @Test
+  void testRetriesIoErrors() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          if (requests.incrementAndGet() == 1) {
+            throw new IOException("connection reset");
+          }
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setRetryPolicy(fastRetryPolicy(5))
+            .build();
+
+    assertThat(exporter.export(Collections.singleton(generateValidDoubleSumData())).isSuccess())
+        .isTrue();
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testDoesNotRetryNonRetryableStatus() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(400, "");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setRetryPolicy(fastRetryPolicy(5))
+            .build();
+
+    assertThat(exporter.export(Collections.singleton(generateValidDoubleSumData())).isSuccess())
+        .isFalse();
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testGivesUpAfterMaxAttempts() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(429, "", "0");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setRetryPolicy(fastRetryPolicy(3))
+            .build();
+
+    assertThat(exporter.export(Collections.singleton(generateValidDoubleSumData())).isSuccess())
+        .isFalse();
+    assertThat(requests.get()).isEqualTo(3);
+  }
+
+  @Test
+  void testDoesNotRetryWithoutPolicy() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(503, "");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .build();
+
+    assertThat(exporter.export(Collections.singleton(generateValidDoubleSumData())).isSuccess())
+        .isFalse();
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testQueuedExportReturnsBeforeRequestCompletes() throws InterruptedException {
+    CountDownLatch requestStarted = new CountDownLatch(1);
+    CountDownLatch releaseRequest = new CountDownLatch(1);
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requestStarted.countDown();
+          try {
+            releaseRequest.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setQueueCapacity(1024 * 1024, 1000)
+            .build();
+
+    CompletableResultCode result =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    assertThat(requestStarted.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(result.isDone()).isFalse();
+
+    releaseRequest.countDown();
+    assertThat(result.join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    ExportQueueStats stats = exporter.getQueueStats();
+    assertThat(stats.getEnqueuedLines()).isEqualTo(1);
+    assertThat(stats.getSentLines()).isEqualTo(1);
+    assertThat(stats.getDroppedLines()).isZero();
+    assertThat(exporter.shutdown()).isEqualTo(CompletableResultCode.ofSuccess());
+  }
+
+  @Test
+  void testQueueDropsNewestWhenFull() throws InterruptedException {
+    CountDownLatch releaseRequest = new CountDownLatch(1);
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          try {
+            releaseRequest.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setQueueCapacity(1024 * 1024, 1)
+            .setQueueOverflowPolicy(QueueOverflowPolicy.DROP_NEWEST)
+            .build();
+
+    // the first export is taken by the sender thread, the second one waits in the queue.
+    CompletableResultCode first =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    CompletableResultCode second;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (exporter.getQueueStats().getQueuedLines() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    second = exporter.export(Collections.singleton(generateValidDoubleSumData()));
+    CompletableResultCode dropped =
+        exporter.export(Collections.singleton(generateValidDoubleSumData()));
+
+    assertThat(dropped.isDone()).isTrue();
+    assertThat(dropped.isSuccess()).isFalse();
+    releaseRequest.countDown();
+    assertThat(first.join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(second.join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(exporter.getQueueStats().getDroppedLines()).isEqualTo(1);
+    exporter.shutdown();
+  }
+
+  @Test
+  void testSkipsSeriesRejectedAsInvalid() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          requests.incrementAndGet();
+          return response(
+              400,
+              "{\"linesOk\": 0, \"linesInvalid\": 1, \"error\": {\"code\": 400, "
+                  + "\"message\": \"1 invalid line\", "
+                  + "\"invalidLines\": [{\"line\": 1, \"error\": \"invalid dimension key\"}]}}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setRejectedSeriesExpiry(Duration.ofMinutes(10))
+            .build();
+    Collection<MetricData> metrics = Collections.singleton(generateValidDoubleSumData());
+
+    assertThat(exporter.export(metrics).isSuccess()).isFalse();
+    assertThat(requests.get()).isEqualTo(1);
+
+    // the only series was rejected, so there is nothing left to send.
+    assertThat(exporter.export(metrics).isSuccess()).isTrue();
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testResendsUnchangedGaugeAfterFailedExport() {
+    List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+    HttpSender sender =
+        (body, length, contentEncoding) -> {
+          bodies.add(new String(body, 0, length, StandardCharsets.UTF_8));
+          // only the first request fails.
+          return bodies.size() == 1
+              ? response(503, "")
+              : response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+        };
+
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setMaxGaugeSuppression(Duration.ofMinutes(10))
+            .build();
+
+    assertThat(exporter.export(longGauge(NANOS_TS_1, 42)).isSuccess()).isFalse();
+    // the value was not exported, so it must not be skipped.
+    assertThat(exporter.export(longGauge(NANOS_TS_2, 42)).isSuccess()).isTrue();
+    assertThat(bodies).hasSize(2);
+    assertThat(bodies.get(1)).endsWith(String.format(" gauge,42 %d", MILLIS_TS_2));
+
+    // now it was, so it is skipped.
+    assertThat(exporter.export(longGauge(NANOS_TS_3, 42)).isSuccess()).isTrue();
+    assertThat(bodies).hasSize(2);
+  }
+
+  private static Collection<MetricData> longGauge(long epochNanos, long value) {
+    return Collections.singleton(
+        ImmutableMetricData.createLongGauge(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            DEFAULT_NAME,
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableGaugeData.create(
+                Collections.singletonList(
+                    ImmutableLongPointData.create(0, epochNanos, EMPTY_ATTRIBUTES, value)))));
+  }
+
+  @Test
+  void testReportsSelfMetrics() {
+    InMemoryMetricReader reader = InMemoryMetricReader.create();
+    SdkMeterProvider meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(reader).build();
+    HttpSender sender =
+        (body, length, contentEncoding) ->
+            response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+    DynatraceMetricExporter exporter =
+        DynatraceMetricExporter.builder()
+            .setEnrichWithOneAgentMetaData(false)
+            .setHttpSender(sender)
+            .setMeterProvider(meterProvider)
+            .build();
+
+    assertThat(exporter.export(Collections.singleton(generateValidDoubleSumData())).isSuccess())
+        .isTrue();
+
+    Collection<MetricData> selfMetrics = reader.collectAllMetrics();
+    assertThat(selfMetrics)
+        .allSatisfy(
+            metric ->
+                assertThat(metric.getInstrumentationScopeInfo().getName())
+                    .isEqualTo("com.dynatrace.opentelemetry.metric"));
+    assertThat(sumOf(selfMetrics, "dynatrace.exporter.lines", "metric.type", "DOUBLE_SUM"))
+        .isEqualTo(1);
+    assertThat(sumOf(selfMetrics, "dynatrace.exporter.partitions", null, null)).isEqualTo(1);
+    assertThat(sumOf(selfMetrics, "dynatrace.exporter.requests", "http.status_code", 202L))
+        .isEqualTo(1);
+    assertThat(sumOf(selfMetrics, "dynatrace.exporter.bytes.sent", null, null)).isPositive();
+    List<HistogramPointData> durations =
+        selfMetrics.stream()
+            .filter(metric -> metric.getName().equals("dynatrace.exporter.request.duration"))
+            .flatMap(metric -> metric.getHistogramData().getPoints().stream())
+            .collect(Collectors.toList());
+    assertThat(durations).hasSize(1);
+    assertThat(durations.get(0).getCount()).isEqualTo(1);
+    assertThat(durations.get(0).getAttributes().get(AttributeKey.longKey("http.status_code")))
+        .isEqualTo(202L);
+
+    // exporting the metrics of the exporter does not change them.
+    assertThat(exporter.export(selfMetrics).isSuccess()).isTrue();
+    Collection<MetricData> afterSelfExport = reader.collectAllMetrics();
+    assertThat(sumOf(afterSelfExport, "dynatrace.exporter.lines", "metric.type", "DOUBLE_SUM"))
+        .isEqualTo(1);
+    assertThat(sumOf(afterSelfExport, "dynatrace.exporter.lines", "metric.type", "LONG_SUM"))
+        .isZero();
+
+    exporter.shutdown();
+    meterProvider.shutdown();
+  }
+
+  /** The value of the long sum with the given attribute, or of its only point if key is null. */
+  private static long sumOf(
+      Collection<MetricData> metrics, String name, String key, Object attributeValue) {
+    return metrics.stream()
+        .filter(metric -> metric.getName().equals(name))
+        .flatMap(metric -> metric.getLongSumData().getPoints().stream())
+        .filter(
+            point ->
+                key == null
+                    || point.getAttributes().asMap().entrySet().stream()
+                        .anyMatch(
+                            e ->
+                                e.getKey().getKey().equals(key)
+                                    && e.getValue().equals(attributeValue)))
+        .mapToLong(LongPointData::getValue)
+        .sum();
+  }
+
+  @Test
+  void testParallelSerializationSendsSameRequests() {
+    List<MetricData> metrics = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      metrics.add(
+          generateValidDoubleSumData(Attributes.of(AttributeKey.stringKey("series"), "s" + i)));
+    }
+
+    List<String> sequential = exportAndCaptureBodies(DynatraceMetricExporter.builder(), metrics);
+    List<String> parallel =
+        exportAndCaptureBodies(
+            DynatraceMetricExporter.builder().setParallelSerialization(4, 0), metrics);
+
+    assertThat(sequential).hasSizeGreaterThan(1);
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  @Test
+  void testFiltersMetricsAndDimensions() {
+    List<MetricData> metrics =
+        Collections.singletonList(
+            generateValidDoubleSumData(
+                Attributes.builder()
+                    .put("request.id", "7f3a9c")
+                    .put("http.route", "/users")
+                    .build()));
+
+    List<String> bodies =
+        exportAndCaptureBodies(
+            DynatraceMetricExporter.builder()
+                .setDroppedDimensions(Collections.singletonList("request.id"))
+                .setRenamedDimensions(Collections.singletonMap("http.route", "route")),
+            metrics);
+    assertThat(bodies).hasSize(1);
+    assertThat(bodies.get(0))
+        .contains("route=/users")
+        .doesNotContain("http.route")
+        .doesNotContain("request.id");
+
+    assertThat(
+            exportAndCaptureBodies(
+                DynatraceMetricExporter.builder()
+                    .setDeniedMetricPrefixes(Collections.singletonList(DEFAULT_NAME)),
+                metrics))
+        .isEmpty();
+    assertThat(
+            exportAndCaptureBodies(
+                DynatraceMetricExporter.builder()
+                    .setAllowedMetricPrefixes(Collections.singletonList("other.")),
+                metrics))
+        .isEmpty();
+  }
+
+  /** Exports the metrics with a small payload limit and returns the request bodies in order. */
+  private static List<String> exportAndCaptureBodies(
+      DynatraceMetricExporter.Builder builder, List<MetricData> metrics) {
+    List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+    DynatraceMetricExporter exporter =
+        builder
+            .setEnrichWithOneAgentMetaData(false)
+            .setMaxPayloadBytes(2048)
+            .setHttpSender(
+                (body, length, contentEncoding) -> {
+                  bodies.add(new String(body, 0, length, StandardCharsets.UTF_8));
+                  return response(202, "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}");
+                })
+            .build();
+
+    assertThat(exporter.export(metrics).isSuccess()).isTrue();
+    exporter.shutdown();
+    return bodies;
+  }
+
+  private static RetryPolicy fastRetryPolicy(int maxAttempts) {
+    return RetryPolicy.builder()
+        .setMaxAttempts(maxAttempts)
+        .setInitialBackoff(Duration.ofMillis(1))
+        .setMaxBackoff(Duration.ofMillis(5))
+        .setRetryableStatusCodes(Arrays.asList(429, 503))
+        .build();
+  }
+
+  private static HttpSender.Response response(int statusCode, String body, String retryAfter) {
+    HttpSender.Response response = response(statusCode, body);
+    return new HttpSender.Response() {
+      @Override
+      public int getStatusCode() {
+        return response.getStatusCode();
+      }
+
+      @Override
+      public InputStream getBody() {
+        return response.getBody();
+      }
+
+      @Override
+      public String getHeader(String name) {
+        return ExportRetry.RETRY_AFTER_HEADER.equals(name) ? retryAfter : null;
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
+  private static HttpSender.Response response(int statusCode, String body) {
+    return new HttpSender.Response() {
+      private final InputStream stream =
+          new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+
+      @Override
+      public int getStatusCode() {
+        return statusCode;
+      }
+
+      @Override
+      public InputStream getBody() {
+        return stream;
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
+  private static Serializer serializerMockReturning(String line) {
+    Serializer serializerMock = mock(Serializer.class);
+    doAnswer(
+            invocation -> {
+              ((MetricLineSink) invocation.getArgument(1)).accept(line);
+              return null;
+            })
+        .when(serializerMock)
+        .createLongGaugeLines(Mockito.any(MetricData.class), Mockito.any(MetricLineSink.class));
+    return serializerMock;
+  }
+
+  private static MetricData longGaugeMetricDataMock() {
+    MetricData metricDataMock = mock(MetricData.class);
+    when(metricDataMock.getType()).thenReturn(MetricDataType.LONG_GAUGE);
+    return metricDataMock;
+  }
+
   @Test
   void testFlush() {
     DynatraceMetricExporter exporter =
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ExportJitterTest {
+  @Test
+  void offsetIsDeterministicAndWithinWindow() {
+    Duration window = Duration.ofSeconds(10);
+    long offset = ExportJitter.offsetNanos("12345@host-1", window);
+    assertThat(offset).isBetween(0L, window.toNanos() - 1);
+    assertThat(ExportJitter.offsetNanos("12345@host-1", window)).isEqualTo(offset);
+  }
+
+  @Test
+  void spreadsSimilarInstancesOverWindow() {
+    Duration window = Duration.ofSeconds(10);
+    Set<Long> seconds = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      long offset = ExportJitter.offsetNanos("1@host-" + i, window);
+      assertThat(offset).isBetween(0L, window.toNanos() - 1);
+      seconds.add(Duration.ofNanos(offset).getSeconds());
+    }
+    // 100 instances should hit every second of the window.
+    assertThat(seconds).hasSize(10);
+  }
+
+  @Test
+  void noOffsetWithoutWindow() {
+    assertThat(ExportJitter.offsetNanos("12345@host-1", Duration.ZERO)).isZero();
+  }
+
+  @Test
+  void instanceIdDependsOnExporterConfiguration() throws MalformedURLException {
+    URL url = new URL("http://localhost:14499/metrics/ingest");
+    Attributes pod1 = Attributes.builder().put("pod", "pod-1").build();
+    Attributes pod2 = Attributes.builder().put("pod", "pod-2").build();
+    assertThat(ExportJitter.instanceId(url, "prefix", pod1))
+        .isEqualTo(ExportJitter.instanceId(url, "prefix", pod1))
+        .isNotEqualTo(ExportJitter.instanceId(url, "prefix", pod2))
+        .isNotEqualTo(ExportJitter.instanceId(url, null, pod1));
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ExportRetryTest {
+  private static final RetryPolicy POLICY =
+      RetryPolicy.builder()
+          .setMaxAttempts(10)
+          .setInitialBackoff(Duration.ofMillis(100))
+          .setMaxBackoff(Duration.ofMillis(1000))
+          .setTimeBudget(Duration.ofSeconds(5))
+          .build();
+
+  private static final long NOW_MILLIS = 1_640_991_600_000L;
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final List<Long> sleeps = new ArrayList<>();
+
+  private ExportRetry newRetry(RetryPolicy policy, double random) {
+    return new ExportRetry(
+        policy,
+        millis -> {
+          sleeps.add(millis);
+          nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        },
+        nanoTime::get,
+        () -> NOW_MILLIS,
+        () -> random);
+  }
+
+  @Test
+  void backoffGrowsExponentiallyUpToMax() {
+    ExportRetry retry = newRetry(POLICY, 0.0);
+
+    assertThat(retry.getBackoffMillis(1)).isEqualTo(100);
+    assertThat(retry.getBackoffMillis(2)).isEqualTo(200);
+    assertThat(retry.getBackoffMillis(3)).isEqualTo(400);
+    assertThat(retry.getBackoffMillis(4)).isEqualTo(800);
+    assertThat(retry.getBackoffMillis(5)).isEqualTo(1000);
+    assertThat(retry.getBackoffMillis(50)).isEqualTo(1000);
+  }
+
+  @Test
+  void jitterShortensBackoffByUpToHalf() {
+    assertThat(newRetry(POLICY, 0.5).getBackoffMillis(2)).isEqualTo(150);
+    assertThat(newRetry(POLICY, 0.999).getBackoffMillis(2)).isBetween(100L, 101L);
+  }
+
+  @Test
+  void stopsAfterMaxAttempts() {
+    ExportRetry retry = newRetry(RetryPolicy.builder().setMaxAttempts(3).build(), 0.0);
+
+    assertThat(retry.awaitRetry(1, null)).isTrue();
+    assertThat(retry.awaitRetry(2, null)).isTrue();
+    assertThat(retry.awaitRetry(3, null)).isFalse();
+    assertThat(sleeps).containsExactly(1000L, 2000L);
+  }
+
+  @Test
+  void stopsWhenTimeBudgetWouldBeExceeded() {
+    ExportRetry retry = newRetry(POLICY, 0.0);
+
+    // 100 + 200 + 400 + 800 + 1000 + 1000 = 3500 ms, the next 1000 ms still fit into 5 seconds.
+    for (int attempt = 1; attempt <= 7; attempt++) {
+      assertThat(retry.awaitRetry(attempt, null)).isTrue();
+    }
+    assertThat(retry.awaitRetry(8, null)).isFalse();
+    assertThat(sleeps).hasSize(7);
+  }
+
+  @Test
+  void honorsRetryAfterSeconds() {
+    ExportRetry retry = newRetry(POLICY, 0.0);
+
+    assertThat(retry.awaitRetry(1, "2")).isTrue();
+    assertThat(sleeps).containsExactly(2000L);
+  }
+
+  @Test
+  void honorsRetryAfterDate() {
+    ExportRetry retry = newRetry(POLICY, 0.0);
+    String inThreeSeconds =
+        ZonedDateTime.ofInstant(Instant.ofEpochMilli(NOW_MILLIS + 3000), ZoneOffset.UTC)
+            .format(DateTimeFormatter.RFC_1123_DATE_TIME);
+
+    assertThat(retry.awaitRetry(1, inThreeSeconds)).isTrue();
+    assertThat(sleeps).containsExactly(3000L);
+  }
+
+  @Test
+  void givesUpIfRetryAfterExceedsTimeBudget() {
+    ExportRetry retry = newRetry(POLICY, 0.0);
+
+    assertThat(retry.awaitRetry(1, "60")).isFalse();
+    assertThat(sleeps).isEmpty();
+  }
+
+  @Test
+  void stopsWhenInterrupted() {
+    ExportRetry retry =
+        new ExportRetry(
+            POLICY,
+            millis -> {
+              throw new InterruptedException();
+            },
+            nanoTime::get,
+            () -> NOW_MILLIS,
+            () -> 0.0);
+
+    assertThat(retry.awaitRetry(1, null)).isFalse();
+    assertThat(Thread.interrupted()).isTrue();
+  }
+
+  @Test
+  void isRetryable() {
+    ExportRetry retry = newRetry(RetryPolicy.getDefault(), 0.0);
+
+    assertThat(retry.isRetryable(429)).isTrue();
+    assertThat(retry.isRetryable(502)).isTrue();
+    assertThat(retry.isRetryable(503)).isTrue();
+    assertThat(retry.isRetryable(504)).isTrue();
+    assertThat(retry.isRetryable(400)).isFalse();
+    assertThat(retry.isRetryable(401)).isFalse();
+    assertThat(retry.isRetryable(500)).isFalse();
+  }
+
+  @Test
+  void parseRetryAfter() {
+    long now = NOW_MILLIS;
+    String inTenSeconds =
+        ZonedDateTime.ofInstant(Instant.ofEpochMilli(now + 10_000), ZoneOffset.UTC)
+            .format(DateTimeFormatter.RFC_1123_DATE_TIME);
+
+    assertThat(ExportRetry.parseRetryAfterMillis("3", now)).isEqualTo(3000);
+    assertThat(ExportRetry.parseRetryAfterMillis(" 0 ", now)).isEqualTo(0);
+    assertThat(ExportRetry.parseRetryAfterMillis(inTenSeconds, now)).isEqualTo(10_000);
+    assertThat(ExportRetry.parseRetryAfterMillis("Sat, 01 Jan 2000 00:00:00 GMT", now))
+        .isEqualTo(0);
+    assertThat(ExportRetry.parseRetryAfterMillis(null, now)).isEqualTo(-1);
+    assertThat(ExportRetry.parseRetryAfterMillis("", now)).isEqualTo(-1);
+    assertThat(ExportRetry.parseRetryAfterMillis("soon", now)).isEqualTo(-1);
+    assertThat(ExportRetry.parseRetryAfterMillis("1.5", now)).isEqualTo(-1);
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static com.dynatrace.opentelemetry.metric.TestDataConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.dynatrace.metric.util.Dimension;
+import com.dynatrace.metric.util.DimensionList;
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.SummaryPointData;
+import io.opentelemetry.sdk.metrics.internal.data.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs all {@link SerializerTest} cases against the fast path and compares its output to the
+ * builder for a large number of random values.
+ */
+class FastPathSerializerTest extends SerializerTest {
+  private static final int POINTS = 2_000;
+
+  @FunctionalInterface
+  private interface LineCreator {
+    void createLines(Serializer serializer, MetricData metric, MetricLineSink sink);
+  }
+
+  @BeforeEach
+  @Override
+  void setUp() {
+    serializer =
+        Serializer.builder(MetricBuilderFactory.builder().build()).setFastPath(true).build();
+  }
+
+  @Test
+  void fastPathIsEnabled() {
+    assertThat(MetricLineEncoder.isSupported()).isTrue();
+    assertThat(serializer.isFastPathEnabled()).isTrue();
+    assertThat(new Serializer(MetricBuilderFactory.builder().build()).isFastPathEnabled())
+        .isFalse();
+  }
+
+  @Test
+  void normalizesMetricKeyOncePerMetric() {
+    // the builder normalizes the metric key of every line it serializes.
+    MetricBuilderFactory factory = spy(MetricBuilderFactory.builder().build());
+    List<LongPointData> points = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      points.add(ImmutableLongPointData.create(NANOS_TS_1, NANOS_TS_2, EMPTY_ATTRIBUTES, i));
+    }
+    MetricData metric =
+        ImmutableMetricData.createLongGauge(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            "my.long.gauge",
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableGaugeData.create(points));
+
+    Serializer fastPath = Serializer.builder(factory).setFastPath(true).build();
+    for (int run = 0; run < 3; run++) {
+      assertThat(fastPath.createLongGaugeLines(metric)).hasSize(100);
+    }
+    // once for the metric key and once for the dimensions of the only series.
+    verify(factory, times(2)).newMetricBuilder("my.long.gauge");
+
+    // without the fast path, one builder is created for the metric key and reused for all lines.
+    clearInvocations(factory);
+    Serializer builderPath = new Serializer(factory);
+    assertThat(builderPath.createLongGaugeLines(metric)).hasSize(100);
+    verify(factory, times(2)).newMetricBuilder("my.long.gauge");
+  }
+
+  @Test
+  void longLinesAreIdenticalToBuilder() {
+    Random random = new Random(42);
+    List<LongPointData> points = new ArrayList<>();
+    for (int i = 0; i < POINTS; i++) {
+      long value;
+      switch (i % 4) {
+        case 0:
+          value = random.nextLong();
+          break;
+        case 1:
+          value = random.nextInt(1000) - 500;
+          break;
+        default:
+          value = random.nextInt();
+      }
+      points.add(
+          ImmutableLongPointData.create(
+              NANOS_TS_1, randomTimestamp(random), randomAttributes(random), value));
+    }
+
+    for (boolean monotonic : new boolean[] {true, false}) {
+      assertIdenticalLines(
+          ImmutableMetricData.createLongSum(
+              DEFAULT_RESOURCE,
+              DEFAULT_SCOPE,
+              "my.long.sum",
+              DEFAULT_DESC,
+              DEFAULT_UNIT,
+              ImmutableSumData.create(monotonic, AggregationTemporality.DELTA, points)),
+          Serializer::createLongSumLines);
+    }
+    assertIdenticalLines(
+        ImmutableMetricData.createLongGauge(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            "my.long.gauge",
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableGaugeData.create(points)),
+        Serializer::createLongGaugeLines);
+  }
+
+  @Test
+  void doubleLinesAreIdenticalToBuilder() {
+    Random random = new Random(42);
+    List<DoublePointData> points = new ArrayList<>();
+    for (int i = 0; i < POINTS; i++) {
+      points.add(
+          ImmutableDoublePointData.create(
+              NANOS_TS_1, randomTimestamp(random), randomAttributes(random), randomDouble(random)));
+    }
+
+    for (boolean monotonic : new boolean[] {true, false}) {
+      assertIdenticalLines(
+          ImmutableMetricData.createDoubleSum(
+              DEFAULT_RESOURCE,
+              DEFAULT_SCOPE,
+              "my.double.sum",
+              DEFAULT_DESC,
+              DEFAULT_UNIT,
+              ImmutableSumData.create(monotonic, AggregationTemporality.DELTA, points)),
+          Serializer::createDoubleSumLines);
+    }
+    assertIdenticalLines(
+        ImmutableMetricData.createDoubleGauge(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            "my.double.gauge",
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableGaugeData.create(points)),
+        Serializer::createDoubleGaugeLines);
+  }
+
+  @Test
+  void summaryLinesAreIdenticalToBuilder() {
+    Random random = new Random(42);
+    List<SummaryPointData> points = new ArrayList<>();
+    for (int i = 0; i < POINTS; i++) {
+      double min = randomDouble(random);
+      double max = randomDouble(random);
+      points.add(
+          ImmutableSummaryPointData.create(
+              NANOS_TS_1,
+              randomTimestamp(random),
+              randomAttributes(random),
+              random.nextInt(100),
+              randomDouble(random),
+              Arrays.asList(
+                  ImmutableValueAtQuantile.create(0.0, Math.min(min, max)),
+                  ImmutableValueAtQuantile.create(100.0, Math.max(min, max)))));
+    }
+
+    assertIdenticalLines(
+        ImmutableMetricData.createDoubleSummary(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            "my.summary",
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableSummaryData.create(points)),
+        Serializer::createDoubleSummaryLines);
+  }
+
+  private static void assertIdenticalLines(
+      MetricData metric, LineCreator lineCreator) {
+    // prefix and default dimensions are part of the serialized dimensions, so use both.
+    MetricBuilderFactory factory =
+        MetricBuilderFactory.builder()
+            .withPrefix("prefix")
+            .withDefaultDimensions(
+                DimensionList.create(
+                    Dimension.create("dt.metrics.source", "opentelemetry"),
+                    Dimension.create("default", "\u00fcml\u00e4ut")))
+            .build();
+
+    List<String> expected = new ArrayList<>();
+    lineCreator.createLines(new Serializer(factory), metric, expected::add);
+    // run twice, so the second run uses the cached dimensions.
+    Serializer fastPath = Serializer.builder(factory).setFastPath(true).build();
+    for (int run = 0; run < 2; run++) {
+      List<String> actual = new ArrayList<>();
+      lineCreator.createLines(fastPath, metric, actual::add);
+      assertThat(actual).hasSize(POINTS).containsExactlyElementsOf(expected);
+    }
+  }
+
+  private static long randomTimestamp(Random random) {
+    // some points have no timestamp, some are out of the range the fast path handles.
+    switch (random.nextInt(10)) {
+      case 0:
+        return 0L;
+      case 1:
+        return random.nextInt(1000) * 1_000_000L;
+      default:
+        return NANOS_TS_1 + random.nextInt(1_000_000) * 1_000_000L;
+    }
+  }
+
+  private static double randomDouble(Random random) {
+    // spans the plain decimal range as well as values that are left to the builder.
+    double magnitude = Math.pow(10, random.nextInt(24) - 12);
+    double value = random.nextDouble() * magnitude;
+    switch (random.nextInt(8)) {
+      case 0:
+        return 0.0;
+      case 1:
+        return Math.rint(value);
+      case 2:
+        return -Math.rint(value);
+      case 3:
+        return -value;
+      default:
+        return value;
+    }
+  }
+
+  private static Attributes randomAttributes(Random random) {
+    int series = random.nextInt(50);
+    return Attributes.builder()
+        .put("series", "s" + series)
+        .put("~~invalid key", "value")
+        .put("quoted", "a \"b\" c,d=e")
+        .put("number", series)
+        .build();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static com.dynatrace.opentelemetry.metric.TestDataConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dynatrace.metric.util.Dimension;
+import com.dynatrace.metric.util.DimensionList;
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class GzipCompressorTest {
+
+  @Test
+  void testRoundTrip() throws IOException {
+    byte[] input = "prefix.metric,dim=value gauge,1\nprefix.metric,dim=other gauge,2".getBytes();
+    GzipCompressor compressor = new GzipCompressor();
+
+    PayloadBuffer compressed = compressor.compress(input, input.length);
+
+    assertThat(decompress(compressed)).isEqualTo(input);
+    compressor.close();
+  }
+
+  @Test
+  void testCompressorIsReusable() throws IOException {
+    byte[] first = "first.metric gauge,1".getBytes();
+    byte[] second = "second.metric,with=dimensions count,delta=42".getBytes();
+    GzipCompressor compressor = new GzipCompressor();
+
+    assertThat(decompress(compressor.compress(first, first.length))).isEqualTo(first);
+    assertThat(decompress(compressor.compress(second, second.length))).isEqualTo(second);
+    // only the given length of the input is compressed.
+    assertThat(decompress(compressor.compress(second, 13))).isEqualTo("second.metric".getBytes());
+    compressor.close();
+  }
+
+  @Test
+  void testEmptyInput() throws IOException {
+    GzipCompressor compressor = new GzipCompressor();
+
+    assertThat(decompress(compressor.compress(new byte[0], 0))).isEmpty();
+    compressor.close();
+  }
+
+  /**
+   * Measures the bytes on the wire for a full partition of lines shaped like the test fixtures. On
+   * the data below, gzip reduces the payload to less than a tenth of its original size.
+   */
+  @Test
+  void testBytesOnWireReduction() throws IOException {
+    Serializer serializer =
+        new Serializer(
+            MetricBuilderFactory.builder()
+                .withPrefix("otel.java")
+                .withDefaultDimensions(
+                    DimensionList.create(
+                        Dimension.create("environment", "example"),
+                        Dimension.create("dt.metrics.source", "opentelemetry")))
+                .build());
+
+    List<DoublePointData> points = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Attributes attributes =
+          Attributes.builder()
+              .put("http.method", i % 2 == 0 ? "GET" : "POST")
+              .put("http.route", "/api/v1/items/" + (i % 50))
+              .put("http.status_code", String.valueOf(200 + (i % 3)))
+              .build();
+      points.add(ImmutableDoublePointData.create(NANOS_TS_1, NANOS_TS_2, attributes, i * 1.5));
+    }
+    MetricData metricData =
+        ImmutableMetricData.createDoubleSum(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            DEFAULT_NAME,
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableSumData.create(true, AggregationTemporality.DELTA, points));
+
+    byte[] raw =
+        String.join("\n", serializer.createDoubleSumLines(metricData))
+            .getBytes(StandardCharsets.UTF_8);
+    GzipCompressor compressor = new GzipCompressor();
+    PayloadBuffer compressed = compressor.compress(raw, raw.length);
+
+    assertThat(decompress(compressed)).isEqualTo(raw);
+    assertThat(compressed.size())
+        .as("compressed %d of %d bytes", compressed.size(), raw.length)
+        .isLessThan(raw.length / 10);
+    compressor.close();
+  }
+
+  private static byte[] decompress(PayloadBuffer compressed) throws IOException {
+    try (InputStream in =
+        new GZIPInputStream(new ByteArrayInputStream(compressed.array(), 0, compressed.size()))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
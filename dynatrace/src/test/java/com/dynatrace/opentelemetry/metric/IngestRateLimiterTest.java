@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class IngestRateLimiterTest {
+  private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final List<Long> sleeps = new ArrayList<>();
+
+  private IngestRateLimiter newLimiter(
+      double maxRequestsPerSecond, double maxLinesPerSecond, boolean adaptive, long maxWaitNanos) {
+    return new IngestRateLimiter(
+        maxRequestsPerSecond,
+        maxLinesPerSecond,
+        adaptive,
+        maxWaitNanos,
+        millis -> {
+          sleeps.add(millis);
+          nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        },
+        nanoTime::get);
+  }
+
+  @Test
+  void pacesRequests() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(2, 0, false, MAX_WAIT_NANOS);
+
+    assertThat(limiter.acquire(1000)).isTrue();
+    assertThat(limiter.acquire(1000)).isTrue();
+    assertThat(limiter.acquire(1000)).isTrue();
+    assertThat(sleeps).containsExactly(500L, 500L);
+  }
+
+  @Test
+  void pacesLines() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(0, 100, false, MAX_WAIT_NANOS);
+
+    assertThat(limiter.acquire(100)).isTrue();
+    assertThat(limiter.acquire(50)).isTrue();
+    assertThat(limiter.acquire(10)).isTrue();
+    assertThat(sleeps).containsExactly(1000L, 500L);
+  }
+
+  @Test
+  void doesNotBurstAfterIdleTime() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(1, 0, false, MAX_WAIT_NANOS);
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(sleeps).containsExactly(1000L);
+  }
+
+  @Test
+  void roundsWaitUp() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(3, 0, false, MAX_WAIT_NANOS);
+
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(sleeps).containsExactly(334L);
+  }
+
+  @Test
+  void givesUpOnRequestsThatWouldWaitTooLong() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(0, 10, false, TimeUnit.SECONDS.toNanos(1));
+
+    // a single large request may exceed the rate, but the following ones have to wait for it.
+    assertThat(limiter.acquire(100)).isTrue();
+    assertThat(limiter.acquire(1)).isFalse();
+    assertThat(sleeps).isEmpty();
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(sleeps).containsExactly(1000L);
+  }
+
+  @Test
+  void adaptiveLimitPausesAndSlowsDownAfterThrottling() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(10, 0, true, MAX_WAIT_NANOS);
+
+    limiter.onThrottled(2000);
+    assertThat(limiter.getRateFactor()).isEqualTo(0.5);
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(sleeps).containsExactly(2000L, 200L);
+  }
+
+  @Test
+  void adaptiveLimitRecoversWithSuccessfulRequests() {
+    IngestRateLimiter limiter = newLimiter(10, 0, true, MAX_WAIT_NANOS);
+    for (int i = 0; i < 5; i++) {
+      limiter.onThrottled(-1);
+    }
+    assertThat(limiter.getRateFactor()).isEqualTo(0.1);
+
+    limiter.onSuccess();
+    assertThat(limiter.getRateFactor()).isBetween(0.149, 0.151);
+    for (int i = 0; i < 20; i++) {
+      limiter.onSuccess();
+    }
+    assertThat(limiter.getRateFactor()).isEqualTo(1.0);
+  }
+
+  @Test
+  void fixedLimitIgnoresThrottling() throws InterruptedException {
+    IngestRateLimiter limiter = newLimiter(10, 0, false, MAX_WAIT_NANOS);
+
+    limiter.onThrottled(2000);
+    assertThat(limiter.getRateFactor()).isEqualTo(1.0);
+    assertThat(limiter.acquire(1)).isTrue();
+    assertThat(sleeps).isEmpty();
+  }
+}
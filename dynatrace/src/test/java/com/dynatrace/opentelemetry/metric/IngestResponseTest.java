@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class IngestResponseTest {
+
+  private static IngestResponse parse(String body) throws IOException {
+    return IngestResponse.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void parsesSuccessfulResponse() throws IOException {
+    IngestResponse response =
+        parse("{\n\"linesOk\": 3,\n\"linesInvalid\": 0,\n  \"error\": null\n}");
+
+    assertThat(response.getLinesOk()).isEqualTo(3);
+    assertThat(response.getLinesInvalid()).isZero();
+    assertThat(response.hasLineCounts()).isTrue();
+    assertThat(response.hasError()).isFalse();
+    assertThat(response.getInvalidLines()).isEmpty();
+  }
+
+  @Test
+  void parsesCompactResponse() throws IOException {
+    IngestResponse response = parse("{\"linesOk\":12345678901,\"linesInvalid\":2,\"error\":null}");
+
+    assertThat(response.getLinesOk()).isEqualTo(12345678901L);
+    assertThat(response.getLinesInvalid()).isEqualTo(2);
+    assertThat(response.hasError()).isFalse();
+  }
+
+  @Test
+  void parsesErrorWithInvalidLines() throws IOException {
+    IngestResponse response =
+        parse(
+            "{\"linesOk\": 1, \"linesInvalid\": 2, \"error\": {\"code\": 400, "
+                + "\"message\": \"2 invalid lines\", \"invalidLines\": ["
+                + "{\"line\": 2, \"error\": \"invalid value\"}, "
+                + "{\"line\": 3, \"error\": \"invalid key \\\"a\\\"\"}]}}");
+
+    assertThat(response.hasError()).isTrue();
+    assertThat(response.getErrorCode()).isEqualTo(400);
+    assertThat(response.getErrorMessage()).isEqualTo("2 invalid lines");
+    assertThat(response.getInvalidLines()).hasSize(2);
+    assertThat(response.getInvalidLines().get(0).getLine()).isEqualTo(2);
+    assertThat(response.getInvalidLines().get(0).getError()).isEqualTo("invalid value");
+    assertThat(response.getInvalidLines().get(1).getLine()).isEqualTo(3);
+    assertThat(response.getInvalidLines().get(1).getError()).isEqualTo("invalid key \"a\"");
+  }
+
+  @Test
+  void skipsUnknownFields() throws IOException {
+    IngestResponse response =
+        parse(
+            "{\"warnings\": {\"changedMetricKeys\": [\"a\", \"b\"], \"nested\": [[1.5e3, true]]},"
+                + " \"linesOk\": 1, \"other\": false, \"linesInvalid\": 0, \"error\": null,"
+                + " \"trailing\": \"\\u00e4\"}");
+
+    assertThat(response.getLinesOk()).isEqualTo(1);
+    assertThat(response.getLinesInvalid()).isZero();
+    assertThat(response.hasError()).isFalse();
+  }
+
+  @Test
+  void decodesEscapesAndUtf8() throws IOException {
+    // escaped and raw UTF-8 characters, including a surrogate pair.
+    IngestResponse response =
+        parse("{\"error\": {\"message\": \"\\u00e4 \\n \u00f6 \\ud83d\\ude00 \\/ \ud83d\ude00\"}}");
+
+    assertThat(response.getErrorMessage()).isEqualTo("\u00e4 \n \u00f6 \ud83d\ude00 / \ud83d\ude00");
+  }
+
+  @Test
+  void reportsMissingCounters() throws IOException {
+    IngestResponse response = parse("{\"linesOk\": 1}");
+
+    assertThat(response.getLinesOk()).isEqualTo(1);
+    assertThat(response.getLinesInvalid()).isEqualTo(IngestResponse.UNKNOWN);
+    assertThat(response.hasLineCounts()).isFalse();
+  }
+
+  @Test
+  void treatsNonObjectErrorAsError() throws IOException {
+    IngestResponse response = parse("{\"linesOk\": 0, \"linesInvalid\": 0, \"error\": \"failed\"}");
+
+    assertThat(response.hasError()).isTrue();
+    assertThat(response.getErrorMessage()).isNull();
+  }
+
+  @Test
+  void limitsInvalidLines() throws IOException {
+    StringBuilder body = new StringBuilder("{\"error\": {\"invalidLines\": [");
+    for (int i = 1; i <= IngestResponse.MAX_INVALID_LINES + 10; i++) {
+      if (i > 1) {
+        body.append(',');
+      }
+      body.append("{\"line\": ").append(i).append(", \"error\": \"invalid\"}");
+    }
+    body.append("]}, \"linesOk\": 0, \"linesInvalid\": 110}");
+
+    IngestResponse response = parse(body.toString());
+
+    assertThat(response.getInvalidLines()).hasSize(IngestResponse.MAX_INVALID_LINES);
+    assertThat(response.getLinesInvalid()).isEqualTo(110);
+  }
+
+  @Test
+  void rejectsMalformedResponses() {
+    assertThatThrownBy(() -> parse("")).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> parse("not json")).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> parse("{\"linesOk\": 1")).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> parse("{\"linesOk\" 1}")).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> parse("{\"linesOk\": 1 \"linesInvalid\": 0}"))
+        .isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> parse("{\"a\": \"\\x\"}")).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void rejectsDeeplyNestedValues() {
+    StringBuilder body = new StringBuilder("{\"a\": ");
+    for (int i = 0; i < 1000; i++) {
+      body.append('[');
+    }
+
+    assertThatThrownBy(() -> parse(body.toString())).isInstanceOf(IOException.class);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static com.dynatrace.opentelemetry.metric.TestDataConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dynatrace.metric.util.Dimension;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MetricFilterTest {
+  private static MetricData metric(String name) {
+    return ImmutableMetricData.createLongGauge(
+        DEFAULT_RESOURCE,
+        DEFAULT_SCOPE,
+        name,
+        DEFAULT_DESC,
+        DEFAULT_UNIT,
+        ImmutableGaugeData.create(
+            Collections.singletonList(
+                ImmutableLongPointData.create(NANOS_TS_1, NANOS_TS_2, EMPTY_ATTRIBUTES, 1))));
+  }
+
+  private static MetricFilter metricFilter(List<String> allowed, List<String> denied) {
+    return new MetricFilter(
+        allowed,
+        denied,
+        Collections.emptyList(),
+        Collections.emptyMap(),
+        Integer.MAX_VALUE);
+  }
+
+  @Test
+  void exportsAllowedMetricsThatAreNotDenied() {
+    MetricFilter filter =
+        metricFilter(Arrays.asList("http.", "jvm."), Collections.singletonList("jvm.gc."));
+
+    assertThat(filter.isExported("http.server.duration")).isTrue();
+    assertThat(filter.isExported("jvm.memory.used")).isTrue();
+    assertThat(filter.isExported("jvm.gc.duration")).isFalse();
+    assertThat(filter.isExported("db.client.connections")).isFalse();
+    // cached results are the same.
+    assertThat(filter.isExported("jvm.gc.duration")).isFalse();
+    assertThat(filter.isExported("jvm.memory.used")).isTrue();
+  }
+
+  @Test
+  void exportsAllMetricsThatAreNotDenied() {
+    MetricFilter filter = metricFilter(null, Collections.singletonList("debug."));
+
+    assertThat(filter.isExported("http.server.duration")).isTrue();
+    assertThat(filter.isExported("debug.queue.size")).isFalse();
+  }
+
+  @Test
+  void filtersMetrics() {
+    MetricFilter filter = metricFilter(null, Collections.singletonList("debug."));
+    MetricData first = metric("first");
+    MetricData debug = metric("debug.metric");
+    MetricData second = metric("second");
+
+    assertThat(filter.filterMetrics(Arrays.asList(first, debug, second)))
+        .containsExactly(first, second);
+    Collection<MetricData> unfiltered = Arrays.asList(first, second);
+    assertThat(filter.filterMetrics(unfiltered)).isSameAs(unfiltered);
+  }
+
+  @Test
+  void transformsDimensions() {
+    MetricFilter filter =
+        new MetricFilter(
+            null,
+            Collections.emptyList(),
+            Collections.singletonList("request.id"),
+            Collections.singletonMap("http.route", "route"),
+            5);
+    List<Dimension> dimensions =
+        filter.transformDimensions(
+            Arrays.asList(
+                Dimension.create("request.id", "0123456789"),
+                Dimension.create("http.route", "/users"),
+                Dimension.create("method", "GET"),
+                Dimension.create("emoji", "abcd\ud83d\ude00")));
+
+    assertThat(dimensions)
+        .extracting(Dimension::getKey)
+        .containsExactly("route", "method", "emoji");
+    assertThat(dimensions).extracting(Dimension::getValue).containsExactly("/user", "GET", "abcd");
+  }
+
+  @Test
+  void transformsNoDimensionsByDefault() {
+    assertThat(metricFilter(null, Collections.singletonList("debug.")).transformsDimensions())
+        .isFalse();
+  }
+}
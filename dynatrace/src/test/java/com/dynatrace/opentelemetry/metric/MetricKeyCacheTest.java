@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dynatrace.metric.util.Dimension;
+import com.dynatrace.metric.util.DimensionList;
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import org.junit.jupiter.api.Test;
+
+class MetricKeyCacheTest {
+
+  @Test
+  void testResolvesPrefixedMetricKey() {
+    MetricKeyCache cache =
+        new MetricKeyCache(
+            MetricBuilderFactory.builder()
+                .withPrefix("prefix")
+                .withDefaultDimensions(
+                    DimensionList.create(Dimension.create("dt.metrics.source", "opentelemetry")))
+                .build());
+
+    assertThat(cache.getMetricKey("my.metric")).isEqualTo("prefix.my.metric");
+  }
+
+  @Test
+  void testResolvesEachNameOnlyOnce() {
+    MetricKeyCache cache = new MetricKeyCache(MetricBuilderFactory.builder().build());
+
+    assertThat(cache.getMetricKey("first")).isEqualTo("first");
+    assertThat(cache.getMetricKey("first")).isEqualTo("first");
+    assertThat(cache.getMetricKey("first")).isEqualTo("first");
+    assertThat(cache.getMetricKey("second")).isEqualTo("second");
+
+    assertThat(cache.stats().missCount()).isEqualTo(2);
+    assertThat(cache.stats().hitCount()).isEqualTo(2);
+  }
+
+  @Test
+  void testInvalidNameIsCached() {
+    MetricKeyCache cache = new MetricKeyCache(MetricBuilderFactory.builder().build());
+
+    assertThat(cache.getMetricKey("")).isNull();
+    assertThat(cache.getMetricKey("")).isNull();
+
+    assertThat(cache.stats().missCount()).isEqualTo(1);
+    assertThat(cache.stats().hitCount()).isEqualTo(1);
+  }
+}
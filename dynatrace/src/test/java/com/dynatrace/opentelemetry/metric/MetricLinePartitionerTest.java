@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MetricLinePartitionerTest {
+
+  @Test
+  void testPartitionsAtLineLimit() {
+    List<String> partitions = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            2,
+            Integer.MAX_VALUE,
+            (body, lineCount) -> {
+              partitions.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+              return true;
+            });
+
+    partitioner.accept("line1 gauge,1");
+    partitioner.accept("line2 gauge,2");
+    partitioner.accept("line3 gauge,3");
+
+    // the first two lines are sent as soon as the limit is reached.
+    assertThat(partitions).containsExactly("line1 gauge,1\nline2 gauge,2");
+
+    assertThat(partitioner.flush()).isTrue();
+    assertThat(partitions).containsExactly("line1 gauge,1\nline2 gauge,2", "line3 gauge,3");
+  }
+
+  @Test
+  void testPartitionsAtByteLimit() {
+    List<String> partitions = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            100,
+            30,
+            (body, lineCount) -> {
+              assertThat(body.size()).isLessThanOrEqualTo(30);
+              partitions.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+              return true;
+            });
+
+    partitioner.accept("line1 gauge,1");
+    // "line1 gauge,1\nline2 gauge,2" is 27 bytes long and fits into one partition.
+    partitioner.accept("line2 gauge,2");
+    // adding another line would exceed 30 bytes, so the partition is sent before adding it.
+    partitioner.accept("line3 gauge,3");
+    partitioner.flush();
+
+    assertThat(partitions).containsExactly("line1 gauge,1\nline2 gauge,2", "line3 gauge,3");
+  }
+
+  @Test
+  void testCountsEncodedBytesForByteLimit() {
+    List<Integer> sizes = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            100,
+            8,
+            (body, lineCount) -> {
+              sizes.add(body.size());
+              return true;
+            });
+
+    // four characters, but eight bytes in UTF-8.
+    partitioner.accept("\u00e4\u00f6\u00fc\u00df");
+    partitioner.accept("a");
+    partitioner.flush();
+
+    assertThat(sizes).containsExactly(8, 1);
+  }
+
+  @Test
+  void testDropsLinesLargerThanByteLimit() {
+    List<String> partitions = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            100,
+            10,
+            (body, lineCount) -> {
+              partitions.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+              return true;
+            });
+
+    partitioner.accept("short");
+    partitioner.accept("this line is too long");
+    partitioner.accept("fits");
+    partitioner.flush();
+
+    assertThat(partitions).containsExactly("short\nfits");
+  }
+
+  @Test
+  void testCountsLinesAcrossPartitions() {
+    MetricLinePartitioner partitioner = new MetricLinePartitioner(2, 30, (body, lineCount) -> true);
+
+    partitioner.accept("line1 gauge,1");
+    partitioner.accept("this line is much too long gauge,1");
+    partitioner.accept("line2 gauge,2");
+    partitioner.accept("line3 gauge,3");
+    partitioner.lineDropped();
+    partitioner.flush();
+
+    assertThat(partitioner.getTotalLines()).isEqualTo(3);
+    assertThat(partitioner.getDroppedLines()).isEqualTo(2);
+  }
+
+  @Test
+  void testFlushWithoutLines() {
+    List<Integer> lineCounts = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            10,
+            Integer.MAX_VALUE,
+            (body, lineCount) -> {
+              lineCounts.add(lineCount);
+              return true;
+            });
+
+    assertThat(partitioner.flush()).isTrue();
+    assertThat(lineCounts).isEmpty();
+  }
+
+  @Test
+  void testEncodesNonAsciiAsUtf8() {
+    List<String> partitions = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            10,
+            Integer.MAX_VALUE,
+            (body, lineCount) -> {
+              partitions.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+              return true;
+            });
+
+    partitioner.accept("metric,dim=\u00e4\u00f6\u00fc\ud83d\ude00 gauge,1");
+    partitioner.accept("metric,dim=ascii gauge,2");
+    partitioner.flush();
+
+    assertThat(partitions)
+        .containsExactly(
+            "metric,dim=\u00e4\u00f6\u00fc\ud83d\ude00 gauge,1\nmetric,dim=ascii gauge,2");
+  }
+
+  @Test
+  void testStopsAfterFailedPartition() {
+    List<Integer> lineCounts = new ArrayList<>();
+    MetricLinePartitioner partitioner =
+        new MetricLinePartitioner(
+            1,
+            Integer.MAX_VALUE,
+            (body, lineCount) -> {
+              lineCounts.add(lineCount);
+              return false;
+            });
+
+    partitioner.accept("line1 gauge,1");
+    assertThat(partitioner.hasFailed()).isTrue();
+
+    partitioner.accept("line2 gauge,2");
+    assertThat(partitioner.flush()).isFalse();
+    // only the first partition was handed off.
+    assertThat(lineCounts).containsExactly(1);
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class PartitionQueueTest {
+
+  private static PartitionQueue.Entry entry(int bytes, int lines) {
+    return new PartitionQueue.Entry(new byte[bytes], lines, new CompletableResultCode());
+  }
+
+  @Test
+  void takesInOrder() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(1000, 100, QueueOverflowPolicy.DROP_NEWEST, 0);
+    PartitionQueue.Entry first = entry(10, 1);
+    PartitionQueue.Entry second = entry(20, 2);
+
+    assertThat(queue.offer(first)).isTrue();
+    assertThat(queue.offer(second)).isTrue();
+    assertThat(queue.stats().getQueuedBytes()).isEqualTo(30);
+    assertThat(queue.stats().getQueuedLines()).isEqualTo(3);
+
+    assertThat(queue.take()).isSameAs(first);
+    assertThat(queue.take()).isSameAs(second);
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.stats().getQueuedBytes()).isZero();
+  }
+
+  @Test
+  void dropOldestMakesRoomForNewPartitions() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(100, 10, QueueOverflowPolicy.DROP_OLDEST, 0);
+    PartitionQueue.Entry first = entry(40, 4);
+    PartitionQueue.Entry second = entry(40, 4);
+    PartitionQueue.Entry third = entry(40, 4);
+
+    queue.offer(first);
+    queue.offer(second);
+    assertThat(queue.offer(third)).isTrue();
+
+    assertThat(first.result.isDone()).isTrue();
+    assertThat(first.result.isSuccess()).isFalse();
+    assertThat(queue.take()).isSameAs(second);
+    assertThat(queue.take()).isSameAs(third);
+
+    ExportQueueStats stats = queue.stats();
+    assertThat(stats.getEnqueuedLines()).isEqualTo(12);
+    assertThat(stats.getDroppedLines()).isEqualTo(4);
+  }
+
+  @Test
+  void dropNewestKeepsQueuedPartitions() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(1000, 10, QueueOverflowPolicy.DROP_NEWEST, 0);
+    PartitionQueue.Entry first = entry(10, 6);
+    PartitionQueue.Entry second = entry(10, 6);
+
+    assertThat(queue.offer(first)).isTrue();
+    assertThat(queue.offer(second)).isFalse();
+
+    assertThat(second.result.isDone()).isTrue();
+    assertThat(second.result.isSuccess()).isFalse();
+    assertThat(first.result.isDone()).isFalse();
+    assertThat(queue.stats().getDroppedLines()).isEqualTo(6);
+    assertThat(queue.take()).isSameAs(first);
+  }
+
+  @Test
+  void blockWaitsForRoom() throws Exception {
+    PartitionQueue queue = new PartitionQueue(100, 10, QueueOverflowPolicy.BLOCK, 10_000);
+    PartitionQueue.Entry first = entry(80, 1);
+    PartitionQueue.Entry second = entry(80, 1);
+    queue.offer(first);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CountDownLatch offering = new CountDownLatch(1);
+      Future<Boolean> offered =
+          executor.submit(
+              () -> {
+                offering.countDown();
+                return queue.offer(second);
+              });
+      assertThat(offering.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(offered.isDone()).isFalse();
+
+      assertThat(queue.take()).isSameAs(first);
+      assertThat(offered.get(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(queue.take()).isSameAs(second);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void blockDropsAfterTimeout() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(100, 10, QueueOverflowPolicy.BLOCK, 10);
+    queue.offer(entry(80, 1));
+    PartitionQueue.Entry second = entry(80, 1);
+
+    assertThat(queue.offer(second)).isFalse();
+    assertThat(second.result.isSuccess()).isFalse();
+    assertThat(queue.stats().getDroppedLines()).isEqualTo(1);
+  }
+
+  @Test
+  void dropsPartitionsLargerThanCapacity() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(100, 10, QueueOverflowPolicy.BLOCK, 10_000);
+
+    assertThat(queue.offer(entry(101, 1))).isFalse();
+    assertThat(queue.offer(entry(1, 11))).isFalse();
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  void completedCountsSentAndFailedLines() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(1000, 100, QueueOverflowPolicy.DROP_NEWEST, 0);
+    queue.offer(entry(10, 3));
+    queue.offer(entry(10, 5));
+
+    PartitionQueue.Entry sent = queue.take();
+    queue.completed(sent, true);
+    PartitionQueue.Entry failed = queue.take();
+    queue.completed(failed, false);
+
+    assertThat(sent.result.isSuccess()).isTrue();
+    assertThat(failed.result.isDone()).isTrue();
+    assertThat(failed.result.isSuccess()).isFalse();
+    assertThat(queue.stats().getSentLines()).isEqualTo(3);
+    assertThat(queue.stats().getFailedLines()).isEqualTo(5);
+  }
+
+  @Test
+  void closeDrainsRemainingThenStops() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(1000, 100, QueueOverflowPolicy.DROP_NEWEST, 0);
+    PartitionQueue.Entry queued = entry(10, 1);
+    queue.offer(queued);
+    queue.close();
+
+    PartitionQueue.Entry rejected = entry(10, 1);
+    assertThat(queue.offer(rejected)).isFalse();
+    assertThat(rejected.result.isSuccess()).isFalse();
+    assertThat(queue.take()).isSameAs(queued);
+    assertThat(queue.take()).isNull();
+  }
+
+  @Test
+  void failsDroppedPartitionsOutsideTheLock() throws InterruptedException {
+    PartitionQueue queue = new PartitionQueue(100, 10, QueueOverflowPolicy.DROP_OLDEST, 0);
+    PartitionQueue.Entry oldest = entry(80, 1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicBoolean statsRead = new AtomicBoolean();
+    // reading the stats from another thread would block if the result was failed under the lock.
+    oldest.result.whenComplete(
+        () -> {
+          try {
+            executor.submit(queue::stats).get(5, TimeUnit.SECONDS);
+            statsRead.set(true);
+          } catch (Exception e) {
+            // leaves statsRead unset.
+          }
+        });
+    try {
+      queue.offer(oldest);
+      assertThat(queue.offer(entry(80, 1))).isTrue();
+
+      assertThat(oldest.result.isDone()).isTrue();
+      assertThat(statsRead).isTrue();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PartitionSpoolTest {
+  private static final long MAX_BYTES = 1024 * 1024;
+  private static final Duration MAX_AGE = Duration.ofHours(1);
+
+  @TempDir Path directory;
+
+  private final AtomicLong clock = new AtomicLong(1_640_991_600_000L);
+
+  private PartitionSpool open(long maxBytes) throws IOException {
+    return PartitionSpool.open(directory, maxBytes, MAX_AGE, clock::get);
+  }
+
+  private static boolean append(PartitionSpool spool, String body, int lineCount) {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    return spool.append(bytes, bytes.length, lineCount, false);
+  }
+
+  private static String body(PartitionSpool.Record record) {
+    return new String(record.body, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void returnsRecordsInOrder() throws IOException {
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      assertThat(spool.isEmpty()).isTrue();
+      assertThat(spool.peek()).isNull();
+
+      assertThat(append(spool, "first", 1)).isTrue();
+      assertThat(spool.append("second-gzip".getBytes(StandardCharsets.UTF_8), 6, 2, true))
+          .isTrue();
+      assertThat(spool.isEmpty()).isFalse();
+
+      PartitionSpool.Record first = spool.peek();
+      assertThat(body(first)).isEqualTo("first");
+      assertThat(first.lineCount).isEqualTo(1);
+      assertThat(first.gzip).isFalse();
+      // not committed yet, so it is returned again.
+      assertThat(body(spool.peek())).isEqualTo("first");
+      spool.commit(first);
+
+      PartitionSpool.Record second = spool.peek();
+      assertThat(body(second)).isEqualTo("second");
+      assertThat(second.lineCount).isEqualTo(2);
+      assertThat(second.gzip).isTrue();
+      spool.commit(second);
+
+      assertThat(spool.peek()).isNull();
+      assertThat(spool.isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  void resumesAfterReopen() throws IOException {
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      append(spool, "first", 1);
+      append(spool, "second", 1);
+      append(spool, "third", 1);
+      spool.commit(spool.peek());
+    }
+
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      assertThat(body(spool.peek())).isEqualTo("second");
+      append(spool, "fourth", 1);
+
+      List<String> bodies = new ArrayList<>();
+      PartitionSpool.Record record;
+      while ((record = spool.peek()) != null) {
+        bodies.add(body(record));
+        spool.commit(record);
+      }
+      assertThat(bodies).containsExactly("second", "third", "fourth");
+    }
+  }
+
+  @Test
+  void discardsPartiallyWrittenRecord() throws IOException {
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      append(spool, "complete", 1);
+      append(spool, "cut off by a crash", 1);
+    }
+    Path segment = onlySegment();
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 5);
+    }
+
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      append(spool, "after recovery", 1);
+
+      assertThat(body(spool.peek())).isEqualTo("complete");
+      spool.commit(spool.peek());
+      assertThat(body(spool.peek())).isEqualTo("after recovery");
+      spool.commit(spool.peek());
+      assertThat(spool.peek()).isNull();
+    }
+  }
+
+  @Test
+  void discardsRecordWithWrongChecksum() throws IOException {
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      append(spool, "corrupted", 1);
+    }
+    Path segment = onlySegment();
+    byte[] content = Files.readAllBytes(segment);
+    content[content.length - 1] ^= 0x1;
+    Files.write(segment, content);
+
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      assertThat(spool.peek()).isNull();
+    }
+  }
+
+  @Test
+  void evictsOldestSegmentsWhenFull() throws IOException {
+    String body = new String(new char[100]).replace('\0', 'x');
+    try (PartitionSpool spool = open(1000)) {
+      for (int i = 0; i < 20; i++) {
+        assertThat(append(spool, i + body, 1)).isTrue();
+        assertThat(spool.totalBytes()).isLessThanOrEqualTo(1000);
+      }
+
+      List<String> bodies = new ArrayList<>();
+      PartitionSpool.Record record;
+      while ((record = spool.peek()) != null) {
+        bodies.add(body(record));
+        spool.commit(record);
+      }
+      assertThat(bodies).isNotEmpty().hasSizeLessThan(20).last().isEqualTo(19 + body);
+      assertThat(bodies.get(0)).doesNotStartWith("0x");
+    }
+  }
+
+  @Test
+  void dropsRecordLargerThanSpool() throws IOException {
+    try (PartitionSpool spool = open(100)) {
+      assertThat(append(spool, new String(new char[200]), 1)).isFalse();
+      assertThat(spool.isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  void skipsExpiredRecords() throws IOException {
+    try (PartitionSpool spool = open(MAX_BYTES)) {
+      append(spool, "old", 1);
+      clock.addAndGet(MAX_AGE.toMillis() / 2);
+      append(spool, "recent", 1);
+      clock.addAndGet(MAX_AGE.toMillis() / 2 + 1);
+
+      assertThat(body(spool.peek())).isEqualTo("recent");
+    }
+  }
+
+  @Test
+  void doesNotAppendAfterClose() throws IOException {
+    PartitionSpool spool = open(MAX_BYTES);
+    append(spool, "before close", 1);
+    spool.close();
+
+    assertThat(append(spool, "after close", 1)).isFalse();
+    assertThat(spool.peek()).isNull();
+    assertThat(onlySegment()).isNotNull();
+  }
+
+  private Path onlySegment() throws IOException {
+    List<Path> segments = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.spool")) {
+      stream.forEach(segments::add);
+    }
+    assertThat(segments).hasSize(1);
+    return segments.get(0);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+  @Test
+  void matchesNamesStartingWithPrefix() {
+    PrefixTrie trie = PrefixTrie.compile(Arrays.asList("http.server.", "jvm.memory", "db"));
+
+    assertThat(trie.matches("http.server.duration")).isTrue();
+    assertThat(trie.matches("http.server.")).isTrue();
+    assertThat(trie.matches("jvm.memory")).isTrue();
+    assertThat(trie.matches("jvm.memory.used")).isTrue();
+    assertThat(trie.matches("db.client.connections")).isTrue();
+
+    assertThat(trie.matches("http.server")).isFalse();
+    assertThat(trie.matches("http.client.duration")).isFalse();
+    assertThat(trie.matches("jvm.threads")).isFalse();
+    assertThat(trie.matches("d")).isFalse();
+    assertThat(trie.matches("")).isFalse();
+  }
+
+  @Test
+  void matchesShortestPrefix() {
+    PrefixTrie trie = PrefixTrie.compile(Arrays.asList("jvm.memory.used", "jvm."));
+
+    assertThat(trie.matches("jvm.threads")).isTrue();
+    assertThat(trie.matches("jvm.memory.committed")).isTrue();
+    assertThat(trie.matches("jvm")).isFalse();
+  }
+
+  @Test
+  void emptyPrefixMatchesAll() {
+    PrefixTrie trie = PrefixTrie.compile(Collections.singletonList(""));
+
+    assertThat(trie.matches("")).isTrue();
+    assertThat(trie.matches("any.metric")).isTrue();
+  }
+
+  @Test
+  void noPrefixMatchesNothing() {
+    PrefixTrie trie = PrefixTrie.compile(Collections.emptyList());
+
+    assertThat(trie.matches("")).isFalse();
+    assertThat(trie.matches("any.metric")).isFalse();
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static com.dynatrace.opentelemetry.metric.TestDataConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dynatrace.metric.util.MetricBuilderFactory;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RejectedSeriesCacheTest {
+  private final RejectedSeriesCache cache = new RejectedSeriesCache(100, Duration.ofHours(1));
+
+  private static IngestResponse.InvalidLine invalidLine(long line) {
+    return invalidLine(line, "invalid dimension key");
+  }
+
+  private static IngestResponse.InvalidLine invalidLine(long line, String error) {
+    return new IngestResponse.InvalidLine(line, error);
+  }
+
+  @Test
+  void rejectsSeriesOfLine() {
+    cache.reject("my.metric,a=b,c=d gauge,1 1640991600000");
+
+    assertThat(cache.hasRejectedSeries("my.metric")).isTrue();
+    assertThat(cache.hasRejectedSeries("other.metric")).isFalse();
+    assertThat(cache.isRejected("my.metric", ",a=b,c=d")).isTrue();
+    assertThat(cache.isRejected("my.metric", ",a=b")).isFalse();
+    assertThat(cache.isRejected("my.metric", "")).isFalse();
+  }
+
+  @Test
+  void rejectsSeriesWithoutDimensions() {
+    cache.reject("my.metric count,delta=-1");
+
+    assertThat(cache.hasRejectedSeries("my.metric")).isTrue();
+    assertThat(cache.isRejected("my.metric", "")).isTrue();
+  }
+
+  @Test
+  void keepsEscapedAndQuotedSpacesInDimensions() {
+    cache.reject("my.metric,a=b\\ c,d=\"e f\" gauge,1");
+
+    assertThat(cache.isRejected("my.metric", ",a=b\\ c,d=\"e f\"")).isTrue();
+  }
+
+  @Test
+  void rejectsInvalidLinesOfBody() throws IOException {
+    byte[] body =
+        "first gauge,1\nsecond,a=b gauge,2\nthird gauge,3\nfourth gauge,4"
+            .getBytes(StandardCharsets.UTF_8);
+
+    int rejected =
+        cache.rejectLines(
+            body,
+            body.length,
+            false,
+            Arrays.asList(invalidLine(4), invalidLine(2), invalidLine(2), invalidLine(9)));
+
+    assertThat(rejected).isEqualTo(2);
+    assertThat(cache.isRejected("second", ",a=b")).isTrue();
+    assertThat(cache.isRejected("fourth", "")).isTrue();
+    assertThat(cache.hasRejectedSeries("first")).isFalse();
+    assertThat(cache.hasRejectedSeries("third")).isFalse();
+  }
+
+  @Test
+  void rejectsInvalidLinesOfCompressedBody() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write("first gauge,1\nsecond gauge,2".getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] body = compressed.toByteArray();
+
+    int rejected =
+        cache.rejectLines(body, body.length, true, Collections.singletonList(invalidLine(1)));
+
+    assertThat(rejected).isEqualTo(1);
+    assertThat(cache.isRejected("first", "")).isTrue();
+    assertThat(cache.hasRejectedSeries("second")).isFalse();
+  }
+
+  @Test
+  void ignoresUnknownLineNumbers() throws IOException {
+    byte[] body = "first gauge,1".getBytes(StandardCharsets.UTF_8);
+
+    int rejected =
+        cache.rejectLines(
+            body,
+            body.length,
+            false,
+            Arrays.asList(invalidLine(IngestResponse.UNKNOWN), invalidLine(0)));
+
+    assertThat(rejected).isZero();
+    assertThat(cache.hasRejectedSeries("first")).isFalse();
+  }
+
+  @Test
+  void ignoresLinesRejectedForTheirValueOrTimestamp() throws IOException {
+    byte[] body =
+        "first gauge,1 1\nsecond gauge,1e400\nthird,a=b gauge,3\nfourth gauge,4"
+            .getBytes(StandardCharsets.UTF_8);
+
+    int rejected =
+        cache.rejectLines(
+            body,
+            body.length,
+            false,
+            Arrays.asList(
+                invalidLine(1, "Timestamp is out of range"),
+                invalidLine(2, "value out of range"),
+                invalidLine(3, "Invalid dimension key"),
+                invalidLine(4, null)));
+
+    assertThat(rejected).isEqualTo(1);
+    assertThat(cache.isRejected("third", ",a=b")).isTrue();
+    assertThat(cache.hasRejectedSeries("first")).isFalse();
+    assertThat(cache.hasRejectedSeries("second")).isFalse();
+    assertThat(cache.hasRejectedSeries("fourth")).isFalse();
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {"invalid metric key", "Invalid dimension key", "dimension value too long"})
+  void attributesKeyAndDimensionErrorsToSeries(String error) {
+    assertThat(RejectedSeriesCache.isSeriesError(error)).isTrue();
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {"invalid timestamp", "timestamp out of range", "value out of range", "invalid"})
+  void doesNotAttributeOtherErrorsToSeries(String error) {
+    assertThat(RejectedSeriesCache.isSeriesError(error)).isFalse();
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void serializerSkipsRejectedSeries(boolean fastPath) {
+    Serializer serializer =
+        Serializer.builder(MetricBuilderFactory.builder().build())
+            .setFastPath(fastPath)
+            .setRejectedSeries(cache)
+            .build();
+    Attributes valid = Attributes.builder().put("attr", "valid").build();
+    Attributes rejected = Attributes.builder().put("attr", "rejected").build();
+    MetricData metricData =
+        ImmutableMetricData.createLongGauge(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            DEFAULT_NAME,
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableGaugeData.create(
+                Arrays.asList(
+                    ImmutableLongPointData.create(NANOS_TS_1, NANOS_TS_2, valid, 1),
+                    ImmutableLongPointData.create(NANOS_TS_1, NANOS_TS_2, rejected, 2))));
+
+    List<String> lines = serializer.createLongGaugeLines(metricData);
+    assertThat(lines).hasSize(2);
+
+    cache.reject(lines.get(1));
+
+    assertThat(serializer.createLongGaugeLines(metricData)).containsExactly(lines.get(0));
+  }
+}
@@ -16,16 +16,21 @@ package com.dynatrace.opentelemetry.metric;
 
 import static com.dynatrace.opentelemetry.metric.TestDataConstants.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.dynatrace.metric.util.Dimension;
 import com.dynatrace.metric.util.DimensionList;
 import com.dynatrace.metric.util.MetricBuilderFactory;
+import com.google.common.base.Strings;
 import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
 import io.opentelemetry.sdk.metrics.data.MetricData;
 import io.opentelemetry.sdk.metrics.internal.data.*;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -37,7 +42,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 class SerializerTest {
-  private Serializer serializer = null;
+  Serializer serializer = null;
 
   @BeforeEach
   void setUp() {
@@ -106,6 +111,43 @@ class SerializerTest {
             Dimension.create("_", "test"), Dimension.create("_test2", "test2"));
   }
 
+  @Test
+  void getDimensionsReusesNormalizedDimensions() {
+    Attributes attributes =
+        Attributes.builder().put("~~!123", "test").put("attr2", "value2").build();
+    Attributes equalAttributes =
+        Attributes.builder().put("attr2", "value2").put("~~!123", "test").build();
+
+    DimensionList first = serializer.getDimensions(attributes);
+
+    assertThat(serializer.getDimensions(attributes)).isSameAs(first);
+    assertThat(serializer.getDimensions(equalAttributes)).isSameAs(first);
+    assertThat(serializer.getDimensions(Attributes.empty())).isNotSameAs(first);
+    assertThat(first.getDimensions())
+        .containsExactlyInAnyOrder(
+            Dimension.create("_", "test"), Dimension.create("attr2", "value2"));
+  }
+
+  @Test
+  void getDimensionsEvictsWhenCacheIsFull() {
+    Serializer smallCacheSerializer =
+        Serializer.builder(MetricBuilderFactory.builder().build())
+            .setDimensionCacheMaxSize(1)
+            .build();
+    Attributes first = Attributes.builder().put("attr", "first").build();
+    Attributes second = Attributes.builder().put("attr", "second").build();
+
+    DimensionList firstDimensions = smallCacheSerializer.getDimensions(first);
+    smallCacheSerializer.getDimensions(second);
+
+    assertThat(smallCacheSerializer.getDimensions(first))
+        .isNotSameAs(firstDimensions)
+        .satisfies(
+            dimensions ->
+                assertThat(dimensions.getDimensions())
+                    .containsExactlyElementsOf(firstDimensions.getDimensions()));
+  }
+
   @Test
   void createSumLines_Double_Cumulative_NonMonotonic_ExportedAsGauge() {
     MetricData metricData =
@@ -265,6 +307,83 @@ class SerializerTest {
             String.format("%s gauge,345.6", DEFAULT_NAME));
   }
 
+  @Test
+  void skipsUnchangedGaugeLines() {
+    Serializer suppressing =
+        Serializer.builder(MetricBuilderFactory.builder().build())
+            .setUnchangedGauges(new UnchangedGaugeFilter(Duration.ofSeconds(7), 100))
+            .build();
+    Attributes a = Attributes.builder().put("series", "a").build();
+    Attributes b = Attributes.builder().put("series", "b").build();
+
+    assertThat(suppressing.createLongGaugeLines(longGauge(NANOS_TS_1, a, 1, b, 2)))
+        .containsExactly(
+            String.format("%s,series=a gauge,1 %d", DEFAULT_NAME, MILLIS_TS_1),
+            String.format("%s,series=b gauge,2 %d", DEFAULT_NAME, MILLIS_TS_1));
+    assertThat(suppressing.createLongGaugeLines(longGauge(NANOS_TS_2, a, 1, b, 3)))
+        .containsExactly(String.format("%s,series=b gauge,3 %d", DEFAULT_NAME, MILLIS_TS_2));
+    assertThat(suppressing.createLongGaugeLines(longGauge(NANOS_TS_3, a, 1, b, 3))).isEmpty();
+    // the line of series a was exported 9 seconds ago.
+    assertThat(suppressing.createLongGaugeLines(longGauge(NANOS_TS_4, a, 1, b, 3)))
+        .containsExactly(String.format("%s,series=a gauge,1 %d", DEFAULT_NAME, MILLIS_TS_4));
+  }
+
+  @Test
+  void dropsSeriesOverCardinalityLimit() {
+    CardinalityLimiter limiter = new CardinalityLimiter(1, Duration.ofHours(1), 10);
+    Serializer limiting =
+        Serializer.builder(MetricBuilderFactory.builder().build())
+            .setCardinalityLimiter(limiter)
+            .build();
+    Attributes a = Attributes.builder().put("series", "a").build();
+    Attributes b = Attributes.builder().put("series", "b").build();
+
+    assertThat(limiting.createLongGaugeLines(longGauge(NANOS_TS_1, a, 1, b, 2)))
+        .containsExactly(String.format("%s,series=a gauge,1 %d", DEFAULT_NAME, MILLIS_TS_1));
+    assertThat(limiting.createLongGaugeLines(longGauge(NANOS_TS_2, b, 3, a, 4)))
+        .containsExactly(String.format("%s,series=a gauge,4 %d", DEFAULT_NAME, MILLIS_TS_2));
+    assertThat(limiter.getLimitedPoints()).isEqualTo(2);
+  }
+
+  @Test
+  void limitsSeriesWithLongDimensions() {
+    CardinalityLimiter limiter = new CardinalityLimiter(1, Duration.ofHours(1), 10);
+    Serializer limiting =
+        Serializer.builder(MetricBuilderFactory.builder().build())
+            .setCardinalityLimiter(limiter)
+            .build();
+    Attributes a = longAttributes("a");
+    Attributes b = longAttributes("b");
+
+    List<String> lines = limiting.createLongGaugeLines(longGauge(NANOS_TS_1, a, 1, b, 2));
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains("series=a");
+    assertThat(limiter.getLimitedPoints()).isEqualTo(1);
+  }
+
+  // too long for the serialized dimensions of the series to be kept.
+  private static Attributes longAttributes(String series) {
+    AttributesBuilder builder = Attributes.builder().put("series", series);
+    for (int i = 0; i < 40; i++) {
+      builder.put("dimension" + i, Strings.repeat("v", 240));
+    }
+    return builder.build();
+  }
+
+  private static MetricData longGauge(
+      long epochNanos, Attributes first, long firstValue, Attributes second, long secondValue) {
+    return ImmutableMetricData.createLongGauge(
+        DEFAULT_RESOURCE,
+        DEFAULT_SCOPE,
+        DEFAULT_NAME,
+        DEFAULT_DESC,
+        DEFAULT_UNIT,
+        ImmutableGaugeData.create(
+            Arrays.asList(
+                ImmutableLongPointData.create(0, epochNanos, first, firstValue),
+                ImmutableLongPointData.create(0, epochNanos, second, secondValue))));
+  }
+
   @Test
   void createDoubleSummaryLines() {
     MetricData metricData =
@@ -354,6 +473,120 @@ class SerializerTest {
                 "%s gauge,min=1.2,max=32.6,sum=100.4,count=13 %d", DEFAULT_NAME, MILLIS_TS_3));
   }
 
+  @Test
+  void createExponentialHistogramLines_Delta() {
+    MetricData metricData =
+        ImmutableMetricData.createExponentialHistogram(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            DEFAULT_NAME,
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableExponentialHistogramData.create(
+                AggregationTemporality.DELTA,
+                Arrays.asList(
+                    // buckets (2, 4], (4, 8], (8, 16]
+                    ImmutableExponentialHistogramPointData.create(
+                        0,
+                        20.0,
+                        0,
+                        false,
+                        0,
+                        false,
+                        0,
+                        ImmutableExponentialHistogramBuckets.create(
+                            0, 1, Arrays.asList(0L, 2L, 1L)),
+                        ImmutableExponentialHistogramBuckets.create(0, 0, Collections.emptyList()),
+                        NANOS_TS_1,
+                        NANOS_TS_2,
+                        EMPTY_ATTRIBUTES,
+                        Collections.emptyList()),
+                    ImmutableExponentialHistogramPointData.create(
+                        0,
+                        12.0,
+                        0,
+                        true,
+                        1.5,
+                        true,
+                        7.5,
+                        ImmutableExponentialHistogramBuckets.create(
+                            0, 0, Arrays.asList(1L, 1L, 1L)),
+                        ImmutableExponentialHistogramBuckets.create(0, 0, Collections.emptyList()),
+                        NANOS_TS_1,
+                        NANOS_TS_3,
+                        EMPTY_ATTRIBUTES,
+                        Collections.emptyList()),
+                    // negative buckets [-0.5, -0.25) and [-2, -1), zero bucket, (2, 4]
+                    ImmutableExponentialHistogramPointData.create(
+                        0,
+                        1.2,
+                        1,
+                        false,
+                        0,
+                        false,
+                        0,
+                        ImmutableExponentialHistogramBuckets.create(
+                            0, 1, Collections.singletonList(1L)),
+                        ImmutableExponentialHistogramBuckets.create(
+                            0, -2, Arrays.asList(1L, 0L, 1L)),
+                        NANOS_TS_1,
+                        NANOS_TS_4,
+                        EMPTY_ATTRIBUTES,
+                        Collections.emptyList()))));
+
+    List<String> lines = serializer.createExponentialHistogramLines(metricData);
+    assertThat(lines)
+        .containsExactly(
+            // min&max estimated from the lowest and highest non-empty bucket
+            String.format(
+                "%s gauge,min=4.0,max=16.0,sum=20.0,count=3 %d", DEFAULT_NAME, MILLIS_TS_2),
+            // uses explicitly set min&max
+            String.format(
+                "%s gauge,min=1.5,max=7.5,sum=12.0,count=3 %d", DEFAULT_NAME, MILLIS_TS_3),
+            // min estimated from the negative, max from the positive buckets
+            String.format(
+                "%s gauge,min=-2.0,max=4.0,sum=1.2,count=4 %d", DEFAULT_NAME, MILLIS_TS_4));
+  }
+
+  @Test
+  void testExponentialBound() {
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(0, 0)).isEqualTo(1.0);
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(0, 3)).isEqualTo(8.0);
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(0, -2)).isEqualTo(0.25);
+    // base 4
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(-1, 3)).isEqualTo(64.0);
+    // base sqrt(2)
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(1, 2)).isEqualTo(2.0);
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(1, -1)).isEqualTo(Math.sqrt(2) / 2);
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(2, -5))
+        .isCloseTo(Math.pow(2, -1.25), within(1e-15));
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(20, 3L << 20)).isEqualTo(8.0);
+    assertThat(SdkExponentialHistogramSupport.exponentialBound(-10, 2))
+        .isEqualTo(Double.POSITIVE_INFINITY);
+  }
+
+  @Test
+  void testEstimatesExponentialMinAndMaxFromZeroBucket() {
+    ExponentialHistogramPointData point =
+        ImmutableExponentialHistogramPointData.create(
+            3,
+            0.0,
+            4,
+            false,
+            0,
+            false,
+            0,
+            ImmutableExponentialHistogramBuckets.create(3, 0, Collections.emptyList()),
+            ImmutableExponentialHistogramBuckets.create(3, 0, Collections.emptyList()),
+            NANOS_TS_1,
+            NANOS_TS_2,
+            EMPTY_ATTRIBUTES,
+            Collections.emptyList());
+
+    assertThat(SdkExponentialHistogramSupport.estimateMin(point)).isEqualTo(0.0);
+    assertThat(SdkExponentialHistogramSupport.estimateMax(point)).isEqualTo(0.0);
+  }
+
   @Test
   void createInvalidDoubleSumLinesCumulative() {
     MetricData metricData =
@@ -560,6 +793,24 @@ class SerializerTest {
                 Arrays.asList(0L, 2L, 1L, 3L, 0L)));
   }
 
+  @Test
+  void testFindsFirstAndLastNonEmptyBucket() {
+    List<Long> counts = Arrays.asList(0L, 1L, 0L, 3L, 2L, 0L);
+    int first = Serializer.firstNonEmptyBucket(counts);
+    assertThat(first).isEqualTo(1);
+    assertThat(Serializer.lastNonEmptyBucket(counts, first)).isEqualTo(4);
+
+    List<Long> single = Arrays.asList(0L, 0L, 5L, 0L);
+    first = Serializer.firstNonEmptyBucket(single);
+    assertThat(first).isEqualTo(2);
+    assertThat(Serializer.lastNonEmptyBucket(single, first)).isEqualTo(2);
+
+    List<Long> empty = Arrays.asList(0L, 0L, 0L);
+    first = Serializer.firstNonEmptyBucket(empty);
+    assertThat(first).isEqualTo(-1);
+    assertThat(Serializer.lastNonEmptyBucket(empty, first)).isEqualTo(-1);
+  }
+
   private static Stream<Arguments> provideMinFromBoundaryTestCases() {
     return Stream.of(
         Arguments.of(
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SeriesFingerprintTest {
+  private static long fingerprint(String metricKey, String dimensions) {
+    return SeriesFingerprint.of(
+        SeriesFingerprint.hash(metricKey), SeriesFingerprint.hash(dimensions));
+  }
+
+  @Test
+  void hashesWithFnv1a() {
+    assertThat(SeriesFingerprint.hash("")).isEqualTo(0xcbf29ce484222325L);
+    assertThat(SeriesFingerprint.hash("a")).isEqualTo(0xaf63dc4c8601ec8cL);
+    assertThat(SeriesFingerprint.hash("foobar")).isEqualTo(0x85944171f73967e8L);
+  }
+
+  @Test
+  void distinguishesSeries() {
+    assertThat(fingerprint("my.metric", ",a=b")).isNotEqualTo(fingerprint("my.metric", ",a=c"));
+    assertThat(fingerprint("my.metric", ",a=b")).isNotEqualTo(fingerprint("my.metri", "c,a=b"));
+    assertThat(fingerprint("my.metric", "")).isNotEqualTo(0);
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static com.dynatrace.opentelemetry.metric.TestDataConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Exports to a local stub server that can be made unavailable, to exercise the spool. */
+class SpoolingExportTest {
+  private static final byte[] ACCEPTED =
+      "{\"linesOk\": 1, \"linesInvalid\": 0, \"error\": null}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] INVALID =
+      ("{\"linesOk\": 0, \"linesInvalid\": 1, \"error\": {\"code\": 400, "
+              + "\"message\": \"1 invalid line\", "
+              + "\"invalidLines\": [{\"line\": 1, \"error\": \"invalid dimension key\"}]}}")
+          .getBytes(StandardCharsets.UTF_8);
+
+  @TempDir Path spoolDirectory;
+
+  private HttpServer server;
+  private volatile boolean available = true;
+  // lines of this metric are rejected as invalid.
+  private volatile String invalidMetric;
+  private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+  // requests with lines of this metric wait until they are released.
+  private volatile String blockedMetric;
+  private final CountDownLatch blockedRequest = new CountDownLatch(1);
+  private final CountDownLatch releaseBlocked = new CountDownLatch(1);
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/api/v2/metrics/ingest",
+        exchange -> {
+          byte[] body = ByteStreams.toByteArray(exchange.getRequestBody());
+          if (!available) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+          }
+          String lines = new String(body, StandardCharsets.UTF_8);
+          String blocked = blockedMetric;
+          if (blocked != null && lines.startsWith(blocked + ",")) {
+            blockedRequest.countDown();
+            Uninterruptibles.awaitUninterruptibly(releaseBlocked);
+          }
+          String invalid = invalidMetric;
+          if (invalid != null && lines.startsWith(invalid + ",")) {
+            rejected.add(lines);
+            exchange.sendResponseHeaders(400, INVALID.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+              response.write(INVALID);
+            }
+            return;
+          }
+          received.add(lines);
+          exchange.sendResponseHeaders(202, ACCEPTED.length);
+          try (OutputStream response = exchange.getResponseBody()) {
+            response.write(ACCEPTED);
+          }
+        });
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  private DynatraceMetricExporter newExporter() throws IOException {
+    return exporterBuilder().build();
+  }
+
+  private DynatraceMetricExporter.Builder exporterBuilder() {
+    return DynatraceMetricExporter.builder()
+        .setUrl(
+            String.format(
+                "http://localhost:%d/api/v2/metrics/ingest", server.getAddress().getPort()))
+        .setEnrichWithOneAgentMetaData(false)
+        .setSpoolDirectory(spoolDirectory);
+  }
+
+  @Test
+  void replaysSpooledPartitionsAfterNewMetrics() throws IOException {
+    DynatraceMetricExporter exporter = newExporter();
+
+    available = false;
+    assertThat(export(exporter, "during.outage.first").isSuccess()).isFalse();
+    assertThat(export(exporter, "during.outage.second").isSuccess()).isFalse();
+    assertThat(received).isEmpty();
+
+    available = true;
+    assertThat(export(exporter, "after.outage").isSuccess()).isTrue();
+    assertThat(receivedMetricNames())
+        .containsExactly("after.outage", "during.outage.first", "during.outage.second");
+
+    // nothing is sent twice.
+    assertThat(export(exporter, "later").isSuccess()).isTrue();
+    assertThat(receivedMetricNames()).hasSize(4).endsWith("later");
+    exporter.shutdown();
+  }
+
+  @Test
+  void replaysSpooledPartitionsAfterRestart() throws IOException {
+    DynatraceMetricExporter exporter = newExporter();
+    available = false;
+    assertThat(export(exporter, "before.restart").isSuccess()).isFalse();
+    exporter.shutdown();
+
+    available = true;
+    DynatraceMetricExporter restarted = newExporter();
+    assertThat(export(restarted, "after.restart").isSuccess()).isTrue();
+    assertThat(receivedMetricNames()).containsExactly("after.restart", "before.restart");
+    restarted.shutdown();
+  }
+
+  @Test
+  void completesExportBeforeReplayingSpool() throws InterruptedException, IOException {
+    DynatraceMetricExporter exporter = newExporter();
+    available = false;
+    assertThat(export(exporter, "spooled").isSuccess()).isFalse();
+
+    available = true;
+    blockedMetric = "spooled";
+    assertThat(exporter.export(gauge("new")).join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    // the replay is still waiting for its request, but the export is done.
+    assertThat(blockedRequest.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(receivedMetricNames()).containsExactly("new");
+
+    releaseBlocked.countDown();
+    assertThat(exporter.flush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    assertThat(receivedMetricNames()).containsExactly("new", "spooled");
+    exporter.shutdown();
+  }
+
+  @Test
+  void doesNotSpoolWhenEndpointIsAvailable() throws IOException {
+    DynatraceMetricExporter exporter = newExporter();
+
+    assertThat(export(exporter, "first").isSuccess()).isTrue();
+    assertThat(export(exporter, "second").isSuccess()).isTrue();
+    assertThat(receivedMetricNames()).containsExactly("first", "second");
+    exporter.shutdown();
+  }
+
+  @Test
+  void doesNotRememberSeriesRejectedOnReplay() throws IOException {
+    DynatraceMetricExporter exporter =
+        exporterBuilder().setRejectedSeriesExpiry(Duration.ofMinutes(10)).build();
+
+    available = false;
+    assertThat(export(exporter, "invalid").isSuccess()).isFalse();
+
+    available = true;
+    invalidMetric = "invalid";
+    assertThat(export(exporter, "valid").isSuccess()).isTrue();
+    // the replayed partition was rejected and dropped, but its series is still exported.
+    assertThat(rejected).hasSize(1);
+    assertThat(export(exporter, "invalid").isSuccess()).isFalse();
+    assertThat(rejected).hasSize(2);
+
+    // the series of lines of new metrics that are rejected is skipped from now on.
+    assertThat(export(exporter, "invalid").isSuccess()).isTrue();
+    assertThat(rejected).hasSize(2);
+    assertThat(receivedMetricNames()).containsExactly("valid");
+    exporter.shutdown();
+  }
+
+  private static CompletableResultCode export(DynatraceMetricExporter exporter, String name) {
+    CompletableResultCode result = exporter.export(gauge(name)).join(10, TimeUnit.SECONDS);
+    // spooled partitions are replayed in the background after the export.
+    exporter.flush().join(10, TimeUnit.SECONDS);
+    return result;
+  }
+
+  private static Collection<MetricData> gauge(String name) {
+    return Collections.singleton(
+        ImmutableMetricData.createDoubleGauge(
+            DEFAULT_RESOURCE,
+            DEFAULT_SCOPE,
+            name,
+            DEFAULT_DESC,
+            DEFAULT_UNIT,
+            ImmutableGaugeData.create(
+                Collections.singletonList(
+                    ImmutableDoublePointData.create(
+                        NANOS_TS_1, NANOS_TS_2, EMPTY_ATTRIBUTES, 1)))));
+  }
+
+  /** The metric names of the lines received by the server, in the order they were received. */
+  private List<String> receivedMetricNames() {
+    synchronized (received) {
+      return received.stream()
+          .map(body -> body.substring(0, body.indexOf(',')))
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Dynatrace LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.opentelemetry.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class UnchangedGaugeFilterTest {
+  private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+  private final UnchangedGaugeFilter filter = new UnchangedGaugeFilter(Duration.ofSeconds(60), 100);
+
+  private static long fingerprint(String metricKey, String dimensions) {
+    return SeriesFingerprint.of(
+        SeriesFingerprint.hash(metricKey), SeriesFingerprint.hash(dimensions));
+  }
+
+  @Test
+  void skipsUnchangedValues() {
+    long series = fingerprint("my.metric", ",a=b");
+
+    assertThat(filter.isUnchanged(series, 1, 10 * SECOND)).isFalse();
+    assertThat(filter.isUnchanged(series, 1, 20 * SECOND)).isTrue();
+    assertThat(filter.isUnchanged(series, 2, 30 * SECOND)).isFalse();
+    assertThat(filter.isUnchanged(series, 2, 40 * SECOND)).isTrue();
+    assertThat(filter.isUnchanged(series, 1, 50 * SECOND)).isFalse();
+  }
+
+  @Test
+  void keepsSeriesApart() {
+    long first = fingerprint("my.metric", ",a=b");
+    long second = fingerprint("my.metric", ",a=c");
+
+    assertThat(filter.isUnchanged(first, 1, SECOND)).isFalse();
+    assertThat(filter.isUnchanged(second, 1, SECOND)).isFalse();
+    assertThat(filter.isUnchanged(first, 1, 2 * SECOND)).isTrue();
+    assertThat(filter.isUnchanged(second, 2, 2 * SECOND)).isFalse();
+  }
+
+  @Test
+  void exportsUnchangedValuesAfterMaxSuppression() {
+    long series = fingerprint("my.metric", "");
+
+    assertThat(filter.isUnchanged(series, 1, 0)).isFalse();
+    assertThat(filter.isUnchanged(series, 1, 59 * SECOND)).isTrue();
+    assertThat(filter.isUnchanged(series, 1, 60 * SECOND)).isFalse();
+    // the suppression starts over with the exported line.
+    assertThat(filter.isUnchanged(series, 1, 90 * SECOND)).isTrue();
+    assertThat(filter.isUnchanged(series, 1, 120 * SECOND)).isFalse();
+  }
+
+  @Test
+  void exportsLinesWithEarlierTimestamps() {
+    long series = fingerprint("my.metric", "");
+
+    assertThat(filter.isUnchanged(series, 1, 10 * SECOND)).isFalse();
+    assertThat(filter.isUnchanged(series, 1, 5 * SECOND)).isFalse();
+  }
+
+  @Test
+  void forgetsValuesThatWereNotExported() {
+    long first = fingerprint("my.metric", ",a=b");
+    long second = fingerprint("my.metric", ",a=c");
+    UnchangedGaugeFilter.RememberedPoints remembered = new UnchangedGaugeFilter.RememberedPoints();
+
+    assertThat(filter.isUnchanged(first, 1, SECOND)).isFalse();
+    remembered.add(first, SECOND);
+    assertThat(filter.isUnchanged(second, 1, SECOND)).isFalse();
+    filter.forget(remembered);
+
+    assertThat(filter.isUnchanged(first, 1, 2 * SECOND)).isFalse();
+    assertThat(filter.isUnchanged(first, 1, 3 * SECOND)).isTrue();
+    assertThat(filter.isUnchanged(second, 1, 2 * SECOND)).isTrue();
+  }
+
+  @Test
+  void keepsLaterValuesWhenForgetting() {
+    long series = fingerprint("my.metric", "");
+    UnchangedGaugeFilter.RememberedPoints remembered = new UnchangedGaugeFilter.RememberedPoints();
+
+    assertThat(filter.isUnchanged(series, 1, SECOND)).isFalse();
+    remembered.add(series, SECOND);
+    // a later export remembered another value in the meantime.
+    assertThat(filter.isUnchanged(series, 2, 2 * SECOND)).isFalse();
+    filter.forget(remembered);
+
+    assertThat(filter.isUnchanged(series, 2, 3 * SECOND)).isTrue();
+  }
+
+  @Test
+  void remembersManySeries() {
+    UnchangedGaugeFilter large = new UnchangedGaugeFilter(Duration.ofSeconds(60), 10_000);
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(large.isUnchanged(fingerprint("my.metric", ",i=" + i), i, SECOND)).isFalse();
+    }
+    assertThat(large.size()).isEqualTo(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(large.isUnchanged(fingerprint("my.metric", ",i=" + i), i, 2 * SECOND)).isTrue();
+    }
+  }
+
+  @Test
+  void removesExpiredSeriesOnceFull() {
+    for (int i = 0; i < 10_000; i++) {
+      filter.isUnchanged(fingerprint("my.metric", ",i=" + i), i, i * SECOND);
+    }
+    // each of the 16 segments holds at most 32 series.
+    assertThat(filter.size()).isLessThanOrEqualTo(16 * 32);
+    assertThat(filter.isUnchanged(fingerprint("my.metric", ",i=9999"), 9999, 10_000 * SECOND))
+        .isTrue();
+  }
+}